@@ -10,6 +10,10 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import org.jdesktop.core.animation.i18n.I18N;
 import org.jdesktop.core.animation.timing.KeyFrames.Frame;
+import org.jdesktop.core.animation.timing.evaluators.EvaluatorDouble;
+import org.jdesktop.core.animation.timing.evaluators.EvaluatorFloat;
+import org.jdesktop.core.animation.timing.evaluators.EvaluatorInteger;
+import org.jdesktop.core.animation.timing.evaluators.EvaluatorLong;
 import org.jdesktop.core.animation.timing.evaluators.KnownEvaluators;
 import org.jdesktop.core.animation.timing.interpolators.LinearInterpolator;
 
@@ -639,6 +643,34 @@ public class KeyFrames<T> implements Iterable<Frame<T>> {
    */
   final Evaluator<T> f_evaluator;
 
+  /**
+   * The time fractions of the key frames, in the same order as
+   * {@link #f_frames}. Used to find the interval of a time fraction without
+   * dereferencing each frame.
+   */
+  @Vouch("Immutable")
+  @Unique
+  final double[] f_timeFractions;
+
+  /**
+   * The key frame values unboxed, if evaluated by one of the known primitive
+   * evaluators, otherwise {@code null}. At most one of these is non-null.
+   */
+  @Vouch("Immutable")
+  final double[] f_doubleValues;
+  @Vouch("Immutable")
+  final float[] f_floatValues;
+  @Vouch("Immutable")
+  final int[] f_intValues;
+  @Vouch("Immutable")
+  final long[] f_longValues;
+
+  /**
+   * The number of key frames above which {@link #getFrameIndexAt(double)} uses
+   * a binary search rather than a linear scan.
+   */
+  static final int BINARY_SEARCH_THRESHOLD = 8;
+
   /**
    * Constructs a key frames instance.
    * <p>
@@ -649,6 +681,49 @@ public class KeyFrames<T> implements Iterable<Frame<T>> {
   KeyFrames(@Unique Frame<T>[] frames, Evaluator<T> evaluator) {
     f_frames = frames;
     f_evaluator = evaluator;
+    final int size = frames.length;
+    f_timeFractions = new double[size];
+    for (int i = 0; i < size; i++) {
+      f_timeFractions[i] = frames[i].getTimeFraction();
+    }
+    double[] doubleValues = null;
+    float[] floatValues = null;
+    int[] intValues = null;
+    long[] longValues = null;
+    /*
+     * Only the evaluators known to be linear on the unboxed value may be
+     * by-passed, the values must be of the evaluated type.
+     */
+    if (evaluator instanceof EvaluatorDouble && hasValuesOf(frames, Double.class)) {
+      doubleValues = new double[size];
+      for (int i = 0; i < size; i++)
+        doubleValues[i] = ((Double) frames[i].getValue()).doubleValue();
+    } else if (evaluator instanceof EvaluatorFloat && hasValuesOf(frames, Float.class)) {
+      floatValues = new float[size];
+      for (int i = 0; i < size; i++)
+        floatValues[i] = ((Float) frames[i].getValue()).floatValue();
+    } else if (evaluator instanceof EvaluatorInteger && hasValuesOf(frames, Integer.class)) {
+      intValues = new int[size];
+      for (int i = 0; i < size; i++)
+        intValues[i] = ((Integer) frames[i].getValue()).intValue();
+    } else if (evaluator instanceof EvaluatorLong && hasValuesOf(frames, Long.class)) {
+      longValues = new long[size];
+      for (int i = 0; i < size; i++)
+        longValues[i] = ((Long) frames[i].getValue()).longValue();
+    }
+    f_doubleValues = doubleValues;
+    f_floatValues = floatValues;
+    f_intValues = intValues;
+    f_longValues = longValues;
+  }
+
+  @RegionEffects("none")
+  private static boolean hasValuesOf(Frame<?>[] frames, Class<?> type) {
+    for (Frame<?> frame : frames) {
+      if (frame.getValue().getClass() != type)
+        return false;
+    }
+    return true;
   }
 
   /**
@@ -825,12 +900,32 @@ public class KeyFrames<T> implements Iterable<Frame<T>> {
    */
   @RegionEffects("reads any(org.jdesktop.core.animation.timing.KeyFrames.Frame):Instance, this:Instance")
   public int getFrameIndexAt(double fraction) {
-    final int size = size();
-    for (int i = 1; i < size; ++i) {
-      if (fraction <= f_frames[i].getTimeFraction())
-        return i - 1;
+    final double[] timeFractions = f_timeFractions;
+    final int size = timeFractions.length;
+    if (size <= BINARY_SEARCH_THRESHOLD) {
+      for (int i = 1; i < size; ++i) {
+        if (fraction <= timeFractions[i])
+          return i - 1;
+      }
+      return size - 2;
+    }
+    /*
+     * Find the first frame i >= 1 with fraction <= its time fraction, same as
+     * the linear scan. The negated test makes NaN fall through to the last
+     * interval.
+     */
+    if (!(fraction <= timeFractions[size - 1]))
+      return size - 2;
+    int low = 1;
+    int high = size - 1;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (fraction <= timeFractions[mid])
+        high = mid;
+      else
+        low = mid + 1;
     }
-    return size - 2;
+    return low - 1;
   }
 
   /**
@@ -846,12 +941,105 @@ public class KeyFrames<T> implements Iterable<Frame<T>> {
    */
   public T getInterpolatedValueAt(double fraction) {
     final int interval = getFrameIndexAt(fraction);
+    final double iFraction = getIntervalFraction(interval, fraction);
     /*
-     * First, figure out the real fraction to use, given the interpolation type
-     * and start and end time of the interval.
+     * Second evaluate between the two key values.
      */
-    final double t0 = f_frames[interval].getTimeFraction();
-    final double t1 = f_frames[interval + 1].getTimeFraction();
+    final T v0 = f_frames[interval].getValue();
+    final T v1 = f_frames[interval + 1].getValue();
+    return f_evaluator.evaluate(v0, v1, iFraction);
+  }
+
+  /**
+   * Gets the interpolated value at the passed time fraction as a
+   * {@code double}. Same as {@link #getInterpolatedValueAt(double)} but without
+   * allocation if the values are evaluated by {@link EvaluatorDouble}.
+   * 
+   * @param fraction
+   *          a time fraction in the range [0,1].
+   * @return the evaluated value at the passed time fraction.
+   * @throws ClassCastException
+   *           if the values are not {@link Number}s.
+   */
+  public double getInterpolatedDoubleAt(double fraction) {
+    if (f_doubleValues == null)
+      return ((Number) getInterpolatedValueAt(fraction)).doubleValue();
+    final int interval = getFrameIndexAt(fraction);
+    final double iFraction = getIntervalFraction(interval, fraction);
+    return ((EvaluatorDouble) f_evaluator).evaluate(f_doubleValues[interval], f_doubleValues[interval + 1], iFraction);
+  }
+
+  /**
+   * Gets the interpolated value at the passed time fraction as a {@code float}.
+   * Same as {@link #getInterpolatedValueAt(double)} but without allocation if
+   * the values are evaluated by {@link EvaluatorFloat}.
+   * 
+   * @param fraction
+   *          a time fraction in the range [0,1].
+   * @return the evaluated value at the passed time fraction.
+   * @throws ClassCastException
+   *           if the values are not {@link Number}s.
+   */
+  public float getInterpolatedFloatAt(double fraction) {
+    if (f_floatValues == null)
+      return ((Number) getInterpolatedValueAt(fraction)).floatValue();
+    final int interval = getFrameIndexAt(fraction);
+    final double iFraction = getIntervalFraction(interval, fraction);
+    return ((EvaluatorFloat) f_evaluator).evaluate(f_floatValues[interval], f_floatValues[interval + 1], iFraction);
+  }
+
+  /**
+   * Gets the interpolated value at the passed time fraction as an {@code int}.
+   * Same as {@link #getInterpolatedValueAt(double)} but without allocation if
+   * the values are evaluated by {@link EvaluatorInteger}.
+   * 
+   * @param fraction
+   *          a time fraction in the range [0,1].
+   * @return the evaluated value at the passed time fraction.
+   * @throws ClassCastException
+   *           if the values are not {@link Number}s.
+   */
+  public int getInterpolatedIntAt(double fraction) {
+    if (f_intValues == null)
+      return ((Number) getInterpolatedValueAt(fraction)).intValue();
+    final int interval = getFrameIndexAt(fraction);
+    final double iFraction = getIntervalFraction(interval, fraction);
+    return ((EvaluatorInteger) f_evaluator).evaluate(f_intValues[interval], f_intValues[interval + 1], iFraction);
+  }
+
+  /**
+   * Gets the interpolated value at the passed time fraction as a {@code long}.
+   * Same as {@link #getInterpolatedValueAt(double)} but without allocation if
+   * the values are evaluated by {@link EvaluatorLong}.
+   * 
+   * @param fraction
+   *          a time fraction in the range [0,1].
+   * @return the evaluated value at the passed time fraction.
+   * @throws ClassCastException
+   *           if the values are not {@link Number}s.
+   */
+  public long getInterpolatedLongAt(double fraction) {
+    if (f_longValues == null)
+      return ((Number) getInterpolatedValueAt(fraction)).longValue();
+    final int interval = getFrameIndexAt(fraction);
+    final double iFraction = getIntervalFraction(interval, fraction);
+    return ((EvaluatorLong) f_evaluator).evaluate(f_longValues[interval], f_longValues[interval + 1], iFraction);
+  }
+
+  /**
+   * Figures out the real fraction to use for evaluation within the passed
+   * interval, given the interpolation type and start and end time of the
+   * interval.
+   * 
+   * @param interval
+   *          the interval as returned by {@link #getFrameIndexAt(double)}.
+   * @param fraction
+   *          a time fraction in the range [0,1].
+   * @return the interpolated fraction, clamped to [0,1].
+   */
+  private double getIntervalFraction(int interval, double fraction) {
+    final double t0 = f_timeFractions[interval];
+    final double t1 = f_timeFractions[interval + 1];
     final double t = (fraction - t0) / (t1 - t0);
     double iFraction = f_frames[interval + 1].getInterpolator().interpolate(t);
     /*
@@ -862,11 +1050,6 @@ public class KeyFrames<T> implements Iterable<Frame<T>> {
     } else if (iFraction > 1) {
       iFraction = 1;
     }
-    /*
-     * Second evaluate between the two key values.
-     */
-    final T v0 = f_frames[interval].getValue();
-    final T v1 = f_frames[interval + 1].getValue();
-    return f_evaluator.evaluate(v0, v1, iFraction);
+    return iFraction;
   }
 }
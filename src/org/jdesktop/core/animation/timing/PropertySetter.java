@@ -1,5 +1,8 @@
 package org.jdesktop.core.animation.timing;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.util.Locale;
 import java.util.concurrent.atomic.AtomicReference;
@@ -327,22 +330,80 @@ public final class PropertySetter {
     protected final Object f_object;
     protected final Method f_propertySetter;
 
+    /**
+     * The setter bound to the object, of type <tt>(Object)void</tt>, or
+     * {@code null} if the setter is not accessible as a method handle and has
+     * to be invoked reflectively.
+     */
+    protected final MethodHandle f_setter;
+
+    /**
+     * The setter bound to the object, of type <tt>(p)void</tt> where <i>p</i>
+     * is the setter's primitive parameter type, or {@code null} if the
+     * parameter type is not one of {@code double}, {@code float}, {@code int}
+     * or {@code long}.
+     */
+    protected final MethodHandle f_primitiveSetter;
+
     public PropertySetterTimingTarget(KeyFrames<Object> keyFrames, Object object, Method propertySetter, String propertyName) {
       f_keyFrames.set(keyFrames);
       f_object = object;
       f_propertySetter = propertySetter;
+      MethodHandle setter = null;
+      MethodHandle primitiveSetter = null;
+      try {
+        final MethodHandle bound = MethodHandles.lookup().unreflect(propertySetter).bindTo(object);
+        setter = bound.asType(MethodType.methodType(void.class, Object.class));
+        final Class<?> type = propertySetter.getParameterTypes()[0];
+        if (type == double.class || type == float.class || type == int.class || type == long.class)
+          primitiveSetter = bound.asType(MethodType.methodType(void.class, type));
+      } catch (IllegalAccessException e) {
+        // not accessible from here, fall back to reflection
+      }
+      f_setter = setter;
+      f_primitiveSetter = primitiveSetter;
       setDebugName(propertyName);
     }
 
     @Override
     public void timingEvent(Animator source, double fraction) {
+      final KeyFrames<Object> keyFrames = f_keyFrames.get();
       try {
-        f_propertySetter.invoke(f_object, f_keyFrames.get().getInterpolatedValueAt(fraction));
-      } catch (Exception e) {
+        if (f_primitiveSetter != null && invokePrimitive(keyFrames, fraction))
+          return;
+        if (f_setter != null)
+          f_setter.invokeExact(keyFrames.getInterpolatedValueAt(fraction));
+        else
+          f_propertySetter.invoke(f_object, keyFrames.getInterpolatedValueAt(fraction));
+      } catch (Error e) {
+        throw e;
+      } catch (Throwable e) {
         throw new IllegalStateException(I18N.err(31, f_propertySetter.getName(), f_object.toString()), e);
       }
     }
 
+    /**
+     * Sets the interpolated value without boxing, if the key frames hold
+     * unboxed values of the setter's parameter type.
+     * 
+     * @return {@code true} if the value was set, {@code false} otherwise.
+     */
+    private boolean invokePrimitive(KeyFrames<Object> keyFrames, double fraction) throws Throwable {
+      final MethodType type = f_primitiveSetter.type();
+      if (type.parameterType(0) == double.class && keyFrames.f_doubleValues != null) {
+        f_primitiveSetter.invokeExact(keyFrames.getInterpolatedDoubleAt(fraction));
+      } else if (type.parameterType(0) == float.class && keyFrames.f_floatValues != null) {
+        f_primitiveSetter.invokeExact(keyFrames.getInterpolatedFloatAt(fraction));
+      } else if (type.parameterType(0) == int.class && keyFrames.f_intValues != null) {
+        f_primitiveSetter.invokeExact(keyFrames.getInterpolatedIntAt(fraction));
+      } else if (type.parameterType(0) == long.class && keyFrames.f_longValues != null) {
+        f_primitiveSetter.invokeExact(keyFrames.getInterpolatedLongAt(fraction));
+      } else {
+        return false;
+      }
+      return true;
+    }
+
     @Override
     public void begin(Animator source) {
       final double fraction = source.getCurrentDirection() == Direction.FORWARD ? 0.0 : 1.0;
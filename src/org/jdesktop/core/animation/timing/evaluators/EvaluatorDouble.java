@@ -16,6 +16,23 @@ public final class EvaluatorDouble implements Evaluator<Double> {
 
   @RegionEffects("none")
   public Double evaluate(Double v0, Double v1, double fraction) {
+    return evaluate(v0.doubleValue(), v1.doubleValue(), fraction);
+  }
+
+  /**
+   * Evaluates between two primitive boundary values without boxing. Used by
+   * {@link org.jdesktop.core.animation.timing.KeyFrames#getInterpolatedDoubleAt(double)}.
+   * 
+   * @param v0
+   *          the start value.
+   * @param v1
+   *          the end value.
+   * @param fraction
+   *          the fraction in the range [0,1].
+   * @return the evaluated value.
+   */
+  @RegionEffects("none")
+  public double evaluate(double v0, double v1, double fraction) {
     return v0 + ((v1 - v0) * fraction);
   }
 
@@ -16,6 +16,23 @@ public final class EvaluatorFloat implements Evaluator<Float> {
 
   @RegionEffects("none")
   public Float evaluate(Float v0, Float v1, double fraction) {
+    return evaluate(v0.floatValue(), v1.floatValue(), fraction);
+  }
+
+  /**
+   * Evaluates between two primitive boundary values without boxing. Used by
+   * {@link org.jdesktop.core.animation.timing.KeyFrames#getInterpolatedFloatAt(double)}.
+   * 
+   * @param v0
+   *          the start value.
+   * @param v1
+   *          the end value.
+   * @param fraction
+   *          the fraction in the range [0,1].
+   * @return the evaluated value.
+   */
+  @RegionEffects("none")
+  public float evaluate(float v0, float v1, double fraction) {
     return v0 + ((v1 - v0) * (float) fraction);
   }
 
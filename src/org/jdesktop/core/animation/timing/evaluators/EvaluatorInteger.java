@@ -16,6 +16,23 @@ public final class EvaluatorInteger implements Evaluator<Integer> {
 
   @RegionEffects("none")
   public Integer evaluate(Integer v0, Integer v1, double fraction) {
+    return evaluate(v0.intValue(), v1.intValue(), fraction);
+  }
+
+  /**
+   * Evaluates between two primitive boundary values without boxing. Used by
+   * {@link org.jdesktop.core.animation.timing.KeyFrames#getInterpolatedIntAt(double)}.
+   * 
+   * @param v0
+   *          the start value.
+   * @param v1
+   *          the end value.
+   * @param fraction
+   *          the fraction in the range [0,1].
+   * @return the evaluated value.
+   */
+  @RegionEffects("none")
+  public int evaluate(int v0, int v1, double fraction) {
     return v0 + (int) ((v1 - v0) * fraction);
   }
 
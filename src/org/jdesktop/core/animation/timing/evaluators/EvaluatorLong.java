@@ -16,6 +16,23 @@ public final class EvaluatorLong implements Evaluator<Long> {
 
   @RegionEffects("none")
   public Long evaluate(Long v0, Long v1, double fraction) {
+    return evaluate(v0.longValue(), v1.longValue(), fraction);
+  }
+
+  /**
+   * Evaluates between two primitive boundary values without boxing. Used by
+   * {@link org.jdesktop.core.animation.timing.KeyFrames#getInterpolatedLongAt(double)}.
+   * 
+   * @param v0
+   *          the start value.
+   * @param v1
+   *          the end value.
+   * @param fraction
+   *          the fraction in the range [0,1].
+   * @return the evaluated value.
+   */
+  @RegionEffects("none")
+  public long evaluate(long v0, long v1, double fraction) {
     return v0 + (long) ((v1 - v0) * fraction);
   }
 
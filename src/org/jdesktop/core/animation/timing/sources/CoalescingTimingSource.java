@@ -0,0 +1,347 @@
+package org.jdesktop.core.animation.timing.sources;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jdesktop.core.animation.i18n.I18N;
+import org.jdesktop.core.animation.timing.TimingSource;
+import org.jdesktop.core.animation.timing.WrappedRunnable;
+
+import com.surelogic.ThreadSafe;
+
+/**
+ * A timing source driven by a scheduler thread shared by all instances of this
+ * class, which drops missed ticks instead of running them in a burst.
+ * <p>
+ * A typical use, where {@code tl} is a {@code TickListener} object, would be
+ *
+ * <pre>
+ * TimingSource ts = new CoalescingTimingSource(15, TimeUnit.MILLISECONDS);
+ * ts.init(); // starts the timer
+ *
+ * ts.addTickListener(tl); // tl gets tick notifications
+ *
+ * ts.removeTickListener(tl); // tl stops getting notifications
+ *
+ * ts.dispose(); // done using ts
+ * </pre>
+ *
+ * The ticks are due at multiples of the period after {@link #init()}. If a tick
+ * is late by more than a period, because the listeners of the previous tick
+ * took too long or the thread they run on was busy, the ticks which are
+ * overdue are dropped and counted by {@link #getDroppedTickCount()}. The next
+ * tick is due at the next multiple of the period. Listeners get the current
+ * time with every tick, so animations remain correct, only with fewer frames.
+ * <p>
+ * By default, tasks submitted to {@link #submit(Runnable)} and calls to
+ * registered {@code TickListener} and {@code PostTickListener} objects are made
+ * in the context of the shared scheduler thread, so a slow listener of one
+ * timing source delays the ticks of all others. Alternatively, an
+ * {@link Executor} can be passed to deliver the ticks, for example to the
+ * thread of a user interface toolkit. A tick is not delivered to the executor
+ * while the previous tick of the same timing source has not been run yet, so a
+ * busy thread never accumulates a backlog of ticks. The executor must run its
+ * tasks in a single thread context.
+ * <p>
+ * Each timing source records histograms of
+ * <ul>
+ * <li>the latency of its ticks, the time from the tick being due to its
+ * listeners being called,</li>
+ * <li>the jitter of its ticks, the deviation of the time between two ticks
+ * from the period, and</li>
+ * <li>the listener time, the time taken to run the submitted tasks and to
+ * notify all listeners of a tick.</li>
+ * </ul>
+ * A growing latency with a small listener time shows that the thread which
+ * runs the ticks is busy with other work.
+ *
+ * @see ScheduledExecutorTimingSource
+ */
+@ThreadSafe
+public final class CoalescingTimingSource extends TimingSource {
+
+  /**
+   * The scheduler shared by all instances, created on first use. Its thread is
+   * a daemon and terminates when idle.
+   */
+  private static ScheduledThreadPoolExecutor s_scheduler;
+
+  private static synchronized ScheduledThreadPoolExecutor getScheduler() {
+    if (s_scheduler == null) {
+      s_scheduler = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+          final Thread thread = new Thread(r, "CoalescingTimingSource");
+          thread.setDaemon(true);
+          thread.setPriority(Thread.MAX_PRIORITY);
+          return thread;
+        }
+      });
+      s_scheduler.setKeepAliveTime(1, TimeUnit.SECONDS);
+      s_scheduler.allowCoreThreadTimeOut(true);
+      s_scheduler.setRemoveOnCancelPolicy(true);
+    }
+    return s_scheduler;
+  }
+
+  private final long f_period;
+  private final TimeUnit f_periodTimeUnit;
+  private final long f_periodNanos;
+  private final Executor f_tickExecutor;
+
+  private final TickHistogram f_latency = new TickHistogram();
+  private final TickHistogram f_jitter = new TickHistogram();
+  private final TickHistogram f_listenerTime = new TickHistogram();
+  private final AtomicLong f_tickCount = new AtomicLong();
+  private final AtomicLong f_droppedTickCount = new AtomicLong();
+
+  /**
+   * Set while a tick has been handed to the tick executor but not run yet.
+   */
+  private final AtomicBoolean f_tickPending = new AtomicBoolean();
+
+  private final Object f_lock = new Object();
+  private boolean f_started; // guarded by f_lock
+  private volatile boolean f_disposed;
+  private ScheduledFuture<?> f_future; // guarded by f_lock
+
+  /**
+   * The time the next tick is due, only accessed by the scheduler thread.
+   */
+  private long f_nextTickNanos;
+
+  /**
+   * The time the last tick was run, only accessed in the tick thread context.
+   */
+  private long f_lastTickNanos;
+
+  /**
+   * Constructs a new instance which calls its listeners in the context of the
+   * shared scheduler thread. The {@link #init()} must be called on the new
+   * instance to start the timer. The {@link #dispose()} method should be called
+   * to stop the timer.
+   *
+   * @param period
+   *          the period of time between "tick" events.
+   * @param unit
+   *          the time unit of period parameter.
+   */
+  public CoalescingTimingSource(long period, TimeUnit unit) {
+    this(period, unit, null);
+  }
+
+  /**
+   * Constructs a new instance. The {@link #init()} must be called on the new
+   * instance to start the timer. The {@link #dispose()} method should be called
+   * to stop the timer.
+   *
+   * @param period
+   *          the period of time between "tick" events.
+   * @param unit
+   *          the time unit of period parameter.
+   * @param tickExecutor
+   *          the executor running the ticks in a single thread context, or
+   *          {@code null} to run them in the context of the shared scheduler
+   *          thread.
+   */
+  public CoalescingTimingSource(long period, TimeUnit unit, Executor tickExecutor) {
+    if (unit == null)
+      throw new IllegalArgumentException(I18N.err(1, "unit"));
+    if (period <= 0)
+      throw new IllegalArgumentException("period must be > 0: " + period);
+    f_period = period;
+    f_periodTimeUnit = unit;
+    f_periodNanos = unit.toNanos(period);
+    f_tickExecutor = tickExecutor;
+  }
+
+  /**
+   * Constructs a new instance with a period of 15 milliseconds which calls its
+   * listeners in the context of the shared scheduler thread. The
+   * {@link #init()} must be called on the new instance to start the timer. The
+   * {@link #dispose()} method should be called to stop the timer.
+   */
+  public CoalescingTimingSource() {
+    this(15, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void init() {
+    synchronized (f_lock) {
+      if (f_started || f_disposed)
+        return;
+      f_started = true;
+      f_nextTickNanos = System.nanoTime();
+      f_future = getScheduler().schedule(f_scheduledTick, 0, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  @Override
+  public void dispose() {
+    synchronized (f_lock) {
+      f_disposed = true;
+      if (f_future != null) {
+        f_future.cancel(false);
+        f_future = null;
+      }
+    }
+  }
+
+  @Override
+  public boolean isDisposed() {
+    return f_disposed;
+  }
+
+  /**
+   * Run by the scheduler when a tick is due. Hands the tick to the tick
+   * executor, unless the previous tick has not been run yet, and schedules the
+   * next tick.
+   */
+  private final Runnable f_scheduledTick = new Runnable() {
+    public void run() {
+      if (f_disposed)
+        return;
+      final long dueNanos = f_nextTickNanos;
+      if (f_tickPending.compareAndSet(false, true)) {
+        final Runnable tick = new Runnable() {
+          public void run() {
+            tick(dueNanos);
+          }
+        };
+        if (f_tickExecutor == null) {
+          tick.run();
+        } else {
+          try {
+            f_tickExecutor.execute(tick);
+          } catch (RuntimeException e) {
+            f_tickPending.set(false);
+            throw e;
+          }
+        }
+      } else {
+        f_droppedTickCount.incrementAndGet();
+      }
+      scheduleNextTick(dueNanos);
+    }
+  };
+
+  private void scheduleNextTick(long dueNanos) {
+    final long now = System.nanoTime();
+    long next = dueNanos + f_periodNanos;
+    if (next <= now) {
+      final long missed = (now - dueNanos) / f_periodNanos;
+      f_droppedTickCount.addAndGet(missed);
+      next = dueNanos + (missed + 1) * f_periodNanos;
+    }
+    f_nextTickNanos = next;
+    synchronized (f_lock) {
+      if (!f_disposed)
+        f_future = getScheduler().schedule(f_scheduledTick, next - now, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  /**
+   * Runs a tick in the tick thread context and records its timing.
+   */
+  private void tick(long dueNanos) {
+    try {
+      if (f_disposed)
+        return;
+      final long start = System.nanoTime();
+      f_latency.record(start - dueNanos);
+      if (f_lastTickNanos != 0)
+        f_jitter.record(Math.abs(start - f_lastTickNanos - f_periodNanos));
+      f_lastTickNanos = start;
+      f_tickCount.incrementAndGet();
+      new WrappedRunnable(new Runnable() {
+        public void run() {
+          runPerTick();
+        }
+      }).run();
+      f_listenerTime.record(System.nanoTime() - start);
+    } finally {
+      f_tickPending.set(false);
+    }
+  }
+
+  /**
+   * Gets the histogram of the latency of the ticks of this timing source: the
+   * time from a tick being due to its listeners being called.
+   *
+   * @return the latency histogram.
+   */
+  public TickHistogram getLatencyHistogram() {
+    return f_latency;
+  }
+
+  /**
+   * Gets the histogram of the jitter of the ticks of this timing source: the
+   * absolute deviation of the time between the starts of two consecutive ticks
+   * from the period. Dropped ticks show up as jitter of a multiple of the
+   * period.
+   *
+   * @return the jitter histogram.
+   */
+  public TickHistogram getJitterHistogram() {
+    return f_jitter;
+  }
+
+  /**
+   * Gets the histogram of the listener time of this timing source: the time
+   * taken by a tick to run the submitted tasks and to notify the
+   * {@code TickListener} and {@code PostTickListener} objects.
+   *
+   * @return the listener time histogram.
+   */
+  public TickHistogram getListenerTimeHistogram() {
+    return f_listenerTime;
+  }
+
+  /**
+   * Gets the number of ticks run by this timing source.
+   *
+   * @return the number of ticks run.
+   */
+  public long getTickCount() {
+    return f_tickCount.get();
+  }
+
+  /**
+   * Gets the number of ticks dropped by this timing source because they were
+   * overdue or the previous tick had not been run yet.
+   *
+   * @return the number of dropped ticks.
+   */
+  public long getDroppedTickCount() {
+    return f_droppedTickCount.get();
+  }
+
+  /**
+   * Discards all recorded histograms and counts.
+   */
+  public void resetStatistics() {
+    f_latency.reset();
+    f_jitter.reset();
+    f_listenerTime.reset();
+    f_tickCount.set(0);
+    f_droppedTickCount.set(0);
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder b = new StringBuilder();
+    b.append(CoalescingTimingSource.class.getSimpleName()).append('@').append(Integer.toHexString(hashCode()));
+    b.append("(period=").append(f_period).append(' ').append(f_periodTimeUnit.toString());
+    b.append(", ticks=").append(getTickCount());
+    b.append(", dropped=").append(getDroppedTickCount());
+    b.append(", latency=").append(f_latency);
+    b.append(", jitter=").append(f_jitter);
+    b.append(", listener time=").append(f_listenerTime);
+    b.append(')');
+    return b.toString();
+  }
+}
@@ -0,0 +1,170 @@
+package org.jdesktop.core.animation.timing.sources;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.surelogic.ThreadSafe;
+
+/**
+ * A histogram of durations measured by a timing source, such as the latency of
+ * its ticks. Durations are counted in buckets whose limits are powers of two
+ * microseconds: the first bucket counts durations below 1 microsecond, bucket
+ * <i>i</i> counts durations from 2<sup><i>i</i>-1</sup> up to, but excluding,
+ * 2<sup><i>i</i></sup> microseconds, and the last bucket counts all longer
+ * durations. Percentiles are thus estimated within a factor of two, which is
+ * enough to tell a healthy animation from a starving one.
+ * <p>
+ * Recording is lock-free and may happen concurrently with reading.
+ *
+ * @see CoalescingTimingSource
+ */
+@ThreadSafe
+public final class TickHistogram {
+
+  /**
+   * The number of buckets, the last one counts durations of 2<sup>24</sup>
+   * microseconds (about 17 seconds) and longer.
+   */
+  public static final int BUCKET_COUNT = 26;
+
+  private final AtomicLongArray f_buckets = new AtomicLongArray(BUCKET_COUNT);
+  private final AtomicLong f_count = new AtomicLong();
+  private final AtomicLong f_totalNanos = new AtomicLong();
+  private final AtomicLong f_maxNanos = new AtomicLong();
+
+  /**
+   * Records a duration. Negative durations are recorded as 0.
+   *
+   * @param nanos
+   *          the duration in nanoseconds.
+   */
+  public void record(long nanos) {
+    if (nanos < 0)
+      nanos = 0;
+    f_buckets.incrementAndGet(bucketOf(nanos));
+    f_count.incrementAndGet();
+    f_totalNanos.addAndGet(nanos);
+    long max;
+    while (nanos > (max = f_maxNanos.get()) && !f_maxNanos.compareAndSet(max, nanos)) {
+      // retry
+    }
+  }
+
+  private static int bucketOf(long nanos) {
+    final long micros = nanos / 1000;
+    return Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(micros));
+  }
+
+  /**
+   * Gets the number of recorded durations.
+   *
+   * @return the number of recorded durations.
+   */
+  public long getCount() {
+    return f_count.get();
+  }
+
+  /**
+   * Gets the number of recorded durations in a bucket.
+   *
+   * @param bucket
+   *          the index of the bucket, from 0 to {@link #BUCKET_COUNT} - 1.
+   * @return the number of durations recorded in the bucket.
+   */
+  public long getBucketCount(int bucket) {
+    return f_buckets.get(bucket);
+  }
+
+  /**
+   * Gets the exclusive upper limit of the durations counted in a bucket. The
+   * limit of the last bucket is {@link Long#MAX_VALUE}.
+   *
+   * @param bucket
+   *          the index of the bucket, from 0 to {@link #BUCKET_COUNT} - 1.
+   * @param unit
+   *          the time unit of the result.
+   * @return the upper limit of the bucket.
+   */
+  public long getBucketLimit(int bucket, TimeUnit unit) {
+    if (bucket == BUCKET_COUNT - 1)
+      return Long.MAX_VALUE;
+    return unit.convert(1L << bucket, TimeUnit.MICROSECONDS);
+  }
+
+  /**
+   * Gets the mean of the recorded durations, 0 if none has been recorded.
+   *
+   * @param unit
+   *          the time unit of the result.
+   * @return the mean duration.
+   */
+  public long getMean(TimeUnit unit) {
+    final long count = f_count.get();
+    return count == 0 ? 0 : unit.convert(f_totalNanos.get() / count, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Gets the longest recorded duration, 0 if none has been recorded.
+   *
+   * @param unit
+   *          the time unit of the result.
+   * @return the maximal duration.
+   */
+  public long getMax(TimeUnit unit) {
+    return unit.convert(f_maxNanos.get(), TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Estimates a percentile of the recorded durations as the upper limit of the
+   * bucket containing it, but at most the longest recorded duration.
+   *
+   * @param percentile
+   *          the percentile, from 0 to 100.
+   * @param unit
+   *          the time unit of the result.
+   * @return an upper estimate of the duration below which the given percentage
+   *         of the recorded durations lies, 0 if none has been recorded.
+   */
+  public long getPercentile(double percentile, TimeUnit unit) {
+    if (percentile < 0 || percentile > 100)
+      throw new IllegalArgumentException("percentile must be between 0 and 100: " + percentile);
+    final long count = f_count.get();
+    if (count == 0)
+      return 0;
+    final long rank = Math.max(1, (long) Math.ceil(count * percentile / 100.0));
+    long seen = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      seen += f_buckets.get(i);
+      if (seen >= rank) {
+        final long limit = i == BUCKET_COUNT - 1 ? Long.MAX_VALUE : TimeUnit.MICROSECONDS.toNanos(1L << i);
+        return unit.convert(Math.min(limit, f_maxNanos.get()), TimeUnit.NANOSECONDS);
+      }
+    }
+    return getMax(unit);
+  }
+
+  /**
+   * Discards all recorded durations.
+   */
+  public void reset() {
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      f_buckets.set(i, 0);
+    }
+    f_count.set(0);
+    f_totalNanos.set(0);
+    f_maxNanos.set(0);
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder b = new StringBuilder();
+    b.append("(count=").append(getCount());
+    b.append(", mean=").append(getMean(TimeUnit.MICROSECONDS));
+    b.append(", p50=").append(getPercentile(50, TimeUnit.MICROSECONDS));
+    b.append(", p99=").append(getPercentile(99, TimeUnit.MICROSECONDS));
+    b.append(", max=").append(getMax(TimeUnit.MICROSECONDS));
+    b.append(" microseconds)");
+    return b.toString();
+  }
+}
@@ -0,0 +1,109 @@
+package org.jdesktop.swingworker;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A ThreadPoolExecutor with a bounded number of threads which records how long
+ * tasks wait in its queue and how deep the queue gets. Idle threads time out,
+ * so an idle pool holds no threads. Tasks are wrapped before queueing, so
+ * the queue and <code>shutdownNow</code> contain the wrappers.
+ */
+public class InstrumentedThreadPoolExecutor extends ThreadPoolExecutor {
+   private final AtomicInteger peakQueueDepth = new AtomicInteger();
+   private final AtomicLong waitedTasks = new AtomicLong();
+   private final AtomicLong totalWaitNanos = new AtomicLong();
+   private final AtomicLong maxWaitNanos = new AtomicLong();
+
+   public InstrumentedThreadPoolExecutor(int maxThreads) {
+      this(maxThreads, new ThreadFactory() {
+         final ThreadFactory defaultFactory = Executors.defaultThreadFactory();
+
+         public Thread newThread(Runnable task) {
+            Thread thread = this.defaultFactory.newThread(task);
+            thread.setName("SwingWorker-" + thread.getName());
+            return thread;
+         }
+      });
+   }
+
+   public InstrumentedThreadPoolExecutor(int maxThreads, ThreadFactory threadFactory) {
+      super(maxThreads, maxThreads, 1L, TimeUnit.SECONDS, new LinkedBlockingQueue(), threadFactory);
+      this.allowCoreThreadTimeOut(true);
+   }
+
+   public void execute(Runnable task) {
+      if (task == null) {
+         throw new NullPointerException();
+      }
+
+      super.execute(new TimedRunnable(task));
+      int depth = this.getQueue().size();
+
+      int peak;
+      while(depth > (peak = this.peakQueueDepth.get()) && !this.peakQueueDepth.compareAndSet(peak, depth)) {
+      }
+
+   }
+
+   protected void beforeExecute(Thread thread, Runnable task) {
+      super.beforeExecute(thread, task);
+      if (task instanceof TimedRunnable) {
+         long wait = System.nanoTime() - ((TimedRunnable)task).queuedAt;
+         this.waitedTasks.incrementAndGet();
+         this.totalWaitNanos.addAndGet(wait);
+
+         long max;
+         while(wait > (max = this.maxWaitNanos.get()) && !this.maxWaitNanos.compareAndSet(max, wait)) {
+         }
+      }
+
+   }
+
+   public int getQueueDepth() {
+      return this.getQueue().size();
+   }
+
+   public int getPeakQueueDepth() {
+      return this.peakQueueDepth.get();
+   }
+
+   public long getAverageWaitTime(TimeUnit unit) {
+      long tasks = this.waitedTasks.get();
+      return tasks == 0L ? 0L : unit.convert(this.totalWaitNanos.get() / tasks, TimeUnit.NANOSECONDS);
+   }
+
+   public long getMaxWaitTime(TimeUnit unit) {
+      return unit.convert(this.maxWaitNanos.get(), TimeUnit.NANOSECONDS);
+   }
+
+   public void resetStatistics() {
+      this.peakQueueDepth.set(0);
+      this.waitedTasks.set(0L);
+      this.totalWaitNanos.set(0L);
+      this.maxWaitNanos.set(0L);
+   }
+
+   public String toString() {
+      return super.toString() + "[queue depth = " + this.getQueueDepth() + ", peak queue depth = " + this.getPeakQueueDepth() + ", average wait = " + this.getAverageWaitTime(TimeUnit.MILLISECONDS) + " ms, max wait = " + this.getMaxWaitTime(TimeUnit.MILLISECONDS) + " ms]";
+   }
+
+   private static class TimedRunnable implements Runnable {
+      final Runnable task;
+      final long queuedAt;
+
+      TimedRunnable(Runnable task) {
+         this.task = task;
+         this.queuedAt = System.nanoTime();
+      }
+
+      public void run() {
+         this.task.run();
+      }
+   }
+}
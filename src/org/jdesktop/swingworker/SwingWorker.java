@@ -4,31 +4,37 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 import javax.swing.SwingUtilities;
 import javax.swing.Timer;
 
 public abstract class SwingWorker implements Future, Runnable {
    private static final int MAX_WORKER_THREADS = 10;
+   private static final int DEFAULT_PUBLISH_CAPACITY = 65536;
+   private static final long FRAME_BUDGET_NANOS = 16000000L;
    private volatile int progress;
    private volatile SwingWorker.StateValue state;
    private final FutureTask future;
    private final SwingPropertyChangeSupport propertyChangeSupport;
-   private AccumulativeRunnable doProcess;
+   private SwingWorker.PublishBuffer doProcess;
+   private volatile int publishCapacity;
+   private volatile boolean publishConflated;
    private AccumulativeRunnable doNotifyProgressChange;
    private static final AccumulativeRunnable doSubmit = new SwingWorker.DoSubmitAccumulativeRunnable();
    private static ExecutorService executorService = null;
@@ -49,6 +55,8 @@ public abstract class SwingWorker implements Future, Runnable {
       this.state = SwingWorker.StateValue.PENDING;
       this.propertyChangeSupport = new SwingPropertyChangeSupport(this, true);
       this.doProcess = null;
+      this.publishCapacity = DEFAULT_PUBLISH_CAPACITY;
+      this.publishConflated = false;
       this.doNotifyProgressChange = null;
    }
 
@@ -61,21 +69,33 @@ public abstract class SwingWorker implements Future, Runnable {
    protected final void publish(Object... var1) {
       synchronized(this) {
          if (this.doProcess == null) {
-            this.doProcess = new AccumulativeRunnable() {
-               public void run(List var1) {
-                  SwingWorker.this.process(var1);
-               }
-
-               protected void submit() {
-                  SwingWorker.doSubmit.add(this);
-               }
-            };
+            this.doProcess = new SwingWorker.PublishBuffer();
          }
       }
 
       this.doProcess.add(var1);
    }
 
+   protected final void setPublishCapacity(int var1) {
+      if (var1 < 1) {
+         throw new IllegalArgumentException("the capacity should be greater than 0");
+      } else {
+         this.publishCapacity = var1;
+      }
+   }
+
+   public final int getPublishCapacity() {
+      return this.publishCapacity;
+   }
+
+   protected final void setPublishConflated(boolean var1) {
+      this.publishConflated = var1;
+   }
+
+   public final boolean isPublishConflated() {
+      return this.publishConflated;
+   }
+
    protected void process(List var1) {
    }
 
@@ -178,80 +198,148 @@ public abstract class SwingWorker implements Future, Runnable {
 
    }
 
-   private static synchronized ExecutorService getWorkersExecutorService() {
+   public static synchronized ExecutorService getWorkersExecutorService() {
       if (executorService == null) {
-         ThreadFactory var0 = new ThreadFactory() {
-            final ThreadFactory defaultFactory = Executors.defaultThreadFactory();
+         if (Boolean.getBoolean("org.jdesktop.swingworker.virtualThreads")) {
+            executorService = createVirtualThreadExecutorService();
+         } else {
+            executorService = new InstrumentedThreadPoolExecutor(MAX_WORKER_THREADS);
+         }
+      }
 
-            public Thread newThread(Runnable var1) {
-               Thread var2 = this.defaultFactory.newThread(var1);
-               var2.setName("SwingWorker-" + var2.getName());
-               return var2;
-            }
-         };
-         executorService = new ThreadPoolExecutor(0, 10, 1L, TimeUnit.SECONDS, new LinkedBlockingQueue(), var0) {
-            private final ReentrantLock pauseLock = new ReentrantLock();
-            private final Condition unpaused;
-            private boolean isPaused;
-            private final ReentrantLock executeLock;
-
-            {
-               this.unpaused = this.pauseLock.newCondition();
-               this.isPaused = false;
-               this.executeLock = new ReentrantLock();
-            }
+      return executorService;
+   }
 
-            public void execute(Runnable var1) {
-               this.executeLock.lock();
+   public static synchronized void setWorkersExecutorService(ExecutorService var0) {
+      executorService = var0;
+   }
 
-               try {
-                  this.pauseLock.lock();
+   public static ExecutorService createVirtualThreadExecutorService() {
+      try {
+         Object var0 = Thread.class.getMethod("ofVirtual").invoke((Object)null);
+         Class var1 = Class.forName("java.lang.Thread$Builder");
+         var0 = var1.getMethod("name", String.class, Long.TYPE).invoke(var0, "SwingWorker-virtual-", 0L);
+         ThreadFactory var2 = (ThreadFactory)var1.getMethod("factory").invoke(var0);
+         return (ExecutorService)Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke((Object)null, var2);
+      } catch (Exception var3) {
+         return new InstrumentedThreadPoolExecutor(MAX_WORKER_THREADS);
+      }
+   }
 
-                  try {
-                     this.isPaused = true;
-                  } finally {
-                     this.pauseLock.unlock();
-                  }
+   private class PublishBuffer implements Runnable {
+      private static final int MIN_BATCH = 64;
+      private static final long MAX_BACK_PRESSURE_NANOS = 250000000L;
+      private final ConcurrentLinkedQueue chunks = new ConcurrentLinkedQueue();
+      private final AtomicInteger size = new AtomicInteger();
+      private final AtomicReference latest;
+      private final AtomicBoolean submitted;
+      private volatile long nanosPerChunk;
+      private volatile boolean stalled;
+      private long posted;
+
+      private PublishBuffer() {
+         this.latest = new AtomicReference(this);
+         this.submitted = new AtomicBoolean();
+         this.nanosPerChunk = 0L;
+      }
 
-                  this.setCorePoolSize(10);
-                  super.execute(var1);
-                  this.setCorePoolSize(0);
-                  this.pauseLock.lock();
+      public void add(Object... var1) {
+         if (var1.length != 0) {
+            if (SwingWorker.this.publishConflated) {
+               this.latest.set(var1[var1.length - 1]);
+            } else {
+               this.awaitCapacity(var1.length);
 
-                  try {
-                     this.isPaused = false;
-                     this.unpaused.signalAll();
-                  } finally {
-                     this.pauseLock.unlock();
-                  }
-               } finally {
-                  this.executeLock.unlock();
+               for(int var2 = 0; var2 < var1.length; ++var2) {
+                  this.chunks.offer(var1[var2]);
                }
 
+               this.size.addAndGet(var1.length);
             }
 
-            protected void afterExecute(Runnable var1, Throwable var2) {
-               super.afterExecute(var1, var2);
-               this.pauseLock.lock();
+            if (this.submitted.compareAndSet(false, true)) {
+               SwingWorker.doSubmit.add(this);
+            }
 
-               try {
-                  while(this.isPaused) {
-                     this.unpaused.await();
-                  }
-               } catch (InterruptedException var7) {
-               } finally {
-                  this.pauseLock.unlock();
+         }
+      }
+
+      private void awaitCapacity(int var1) {
+         if (!SwingUtilities.isEventDispatchThread() && !this.stalled && !SwingWorker.this.isCancelled()) {
+            int var2 = Math.max(SwingWorker.this.publishCapacity - var1, 0);
+            long var3 = System.nanoTime() + MAX_BACK_PRESSURE_NANOS;
+
+            while(this.size.get() > var2 && !SwingWorker.this.isDone() && !Thread.currentThread().isInterrupted()) {
+               if (System.nanoTime() >= var3) {
+                  this.stalled = true;
+                  return;
                }
 
+               LockSupport.parkNanos(1000000L);
             }
-         };
+
+         }
       }
 
-      return executorService;
+      public void run() {
+         long var1 = this.posted == 0L ? 0L : System.nanoTime() - this.posted;
+         this.posted = 0L;
+         int var3 = this.getMaxBatch();
+         ArrayList var4 = new ArrayList(Math.min(this.size.get(), var3) + 1);
+
+         Object var5;
+         while(var4.size() < var3 && (var5 = this.chunks.poll()) != null) {
+            var4.add(var5);
+         }
+
+         this.size.addAndGet(-var4.size());
+         if (this.chunks.isEmpty()) {
+            this.stalled = false;
+            Object var6 = this.latest.getAndSet(this);
+            if (var6 != this) {
+               var4.add(var6);
+            }
+         }
+
+         if (!var4.isEmpty()) {
+            long var7 = System.nanoTime();
+            SwingWorker.this.process(var4);
+            long var9 = (System.nanoTime() - var7) / (long)var4.size();
+            long var11 = this.nanosPerChunk;
+            this.nanosPerChunk = var11 == 0L ? var9 : (3L * var11 + var9) / 4L;
+         }
+
+         if (!this.hasPending()) {
+            this.submitted.set(false);
+            if (!this.hasPending() || !this.submitted.compareAndSet(false, true)) {
+               return;
+            }
+         }
+
+         if (var1 < FRAME_BUDGET_NANOS && !var4.isEmpty()) {
+            this.posted = System.nanoTime();
+            SwingUtilities.invokeLater(this);
+         } else {
+            SwingWorker.doSubmit.add(this);
+         }
+
+      }
+
+      private boolean hasPending() {
+         return !this.chunks.isEmpty() || this.latest.get() != this;
+      }
+
+      private int getMaxBatch() {
+         long var1 = this.nanosPerChunk;
+         return var1 == 0L ? Integer.MAX_VALUE : (int)Math.max((long)MIN_BATCH, Math.min(2147483647L, FRAME_BUDGET_NANOS / 2L / var1));
+      }
    }
 
    private static class DoSubmitAccumulativeRunnable extends AccumulativeRunnable implements ActionListener {
       private static final int DELAY = 33;
+      private static final int MAX_DELAY = 250;
+      private int delay = 33;
+      private long scheduled;
 
       private DoSubmitAccumulativeRunnable() {
       }
@@ -266,14 +354,36 @@ public abstract class SwingWorker implements Future, Runnable {
 
       }
 
+      private synchronized void adjustDelay(long var1) {
+         if (var1 > FRAME_BUDGET_NANOS) {
+            this.delay = (int)Math.min((long)MAX_DELAY, Math.max((long)(2 * this.delay), TimeUnit.NANOSECONDS.toMillis(2L * var1)));
+         } else {
+            this.delay = Math.max(DELAY, this.delay / 2);
+         }
+
+      }
+
       protected void submit() {
-         Timer var1 = new Timer(33, this);
-         var1.setRepeats(false);
-         var1.start();
+         int var1;
+         synchronized(this) {
+            var1 = this.delay;
+            this.scheduled = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos((long)var1);
+         }
+
+         Timer var2 = new Timer(var1, this);
+         var2.setRepeats(false);
+         var2.start();
       }
 
       public void actionPerformed(ActionEvent var1) {
+         long var2 = System.nanoTime();
+         long var4;
+         synchronized(this) {
+            var4 = Math.max(0L, var2 - this.scheduled);
+         }
+
          this.run();
+         this.adjustDelay(System.nanoTime() - var2 + var4);
       }
 
       // $FF: synthetic method
@@ -0,0 +1,286 @@
+/*
+ * $Id$
+ *
+ * Copyright 2004 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.jdesktop.swingx;
+
+import java.awt.AlphaComposite;
+import java.awt.Composite;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+
+import javax.swing.JComponent;
+
+import org.jdesktop.swingx.util.GraphicsUtilities;
+
+/**
+ * The offscreen buffer of a translucent {@link AlphaPaintable} container. The
+ * container renders its content into the buffer, which is then drawn with the
+ * effective alpha of the container.
+ * <p>
+ * The buffer is kept between paints and only replaced if it is too small or
+ * much too large for the container, and only the clipped region is rendered.
+ * Optionally, the buffer is a {@link VolatileImage}, and the rendered content
+ * is kept until it is invalidated, so that a change of alpha alone only draws
+ * the buffer again.
+ */
+class AlphaPaintBuffer {
+    /**
+     * Renders the content of the container, usually by calling the
+     * {@code paint} method of its super class.
+     */
+    interface ContentPainter {
+        void paintContent(Graphics g);
+    }
+
+    private final JComponent component;
+    private final ContentPainter painter;
+
+    private boolean accelerated;
+    private boolean contentCached;
+
+    private BufferedImage image;
+    private VolatileImage volatileImage;
+    /**
+     * The size of the component the buffer was rendered for.
+     */
+    private int width;
+    private int height;
+    /**
+     * The region of the cached content which needs to be rendered again,
+     * {@code null} if the cached content is valid.
+     */
+    private Rectangle invalidRegion;
+    private boolean contentValid;
+
+    /**
+     * Creates a buffer for the given component.
+     *
+     * @param component
+     *            the translucent container
+     * @param painter
+     *            renders the content of the container
+     */
+    AlphaPaintBuffer(JComponent component, ContentPainter painter) {
+        this.component = component;
+        this.painter = painter;
+    }
+
+    /**
+     * Returns whether the buffer is a {@link VolatileImage}.
+     */
+    boolean isAccelerated() {
+        return accelerated;
+    }
+
+    /**
+     * Sets whether the buffer should be a {@link VolatileImage}. It is only
+     * used while the component has a graphics configuration.
+     */
+    void setAccelerated(boolean accelerated) {
+        if (this.accelerated != accelerated) {
+            this.accelerated = accelerated;
+            flush();
+        }
+    }
+
+    /**
+     * Returns whether the rendered content is kept until it is invalidated.
+     */
+    boolean isContentCached() {
+        return contentCached;
+    }
+
+    /**
+     * Sets whether the rendered content is kept until it is invalidated.
+     */
+    void setContentCached(boolean contentCached) {
+        this.contentCached = contentCached;
+        invalidate();
+    }
+
+    /**
+     * Marks a region of the cached content as in need of rendering.
+     */
+    void invalidate(int x, int y, int w, int h) {
+        if (!contentValid || w <= 0 || h <= 0) {
+            return;
+        }
+
+        if (invalidRegion == null) {
+            invalidRegion = new Rectangle(x, y, w, h);
+        } else {
+            invalidRegion.add(new Rectangle(x, y, w, h));
+        }
+    }
+
+    /**
+     * Marks all of the cached content as in need of rendering.
+     */
+    void invalidate() {
+        contentValid = false;
+        invalidRegion = null;
+    }
+
+    /**
+     * Releases the buffer.
+     */
+    void flush() {
+        if (volatileImage != null) {
+            volatileImage.flush();
+            volatileImage = null;
+        }
+
+        if (image != null) {
+            image.flush();
+            image = null;
+        }
+
+        invalidate();
+    }
+
+    /**
+     * Renders the content of the component into the buffer, as far as needed,
+     * and draws the clipped region of the buffer.
+     *
+     * @param g
+     *            the graphics to paint to
+     * @param alpha
+     *            the alpha to draw the buffer with
+     * @param useCache
+     *            {@code true} to reuse the cached content, if any
+     */
+    void paint(Graphics g, float alpha, boolean useCache) {
+        int w = component.getWidth();
+        int h = component.getHeight();
+        Rectangle bounds = new Rectangle(0, 0, w, h);
+        Rectangle clip = g.getClipBounds();
+        clip = clip == null ? bounds : clip.intersection(bounds);
+
+        if (clip.isEmpty()) {
+            return;
+        }
+
+        if (w != width || h != height || !(useCache && contentCached)) {
+            width = w;
+            height = h;
+            invalidate();
+        }
+
+        GraphicsConfiguration gc = accelerated ? component.getGraphicsConfiguration() : null;
+
+        if (gc == null && volatileImage != null) {
+            flush();
+        }
+
+        Image buffer;
+        boolean contentsLost;
+
+        do {
+            if (gc != null) {
+                if (volatileImage == null || !fits(volatileImage.getWidth(), volatileImage.getHeight())) {
+                    flush();
+                    volatileImage = gc.createCompatibleVolatileImage(w, h, Transparency.TRANSLUCENT);
+                } else {
+                    int status = volatileImage.validate(gc);
+
+                    if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+                        flush();
+                        volatileImage = gc.createCompatibleVolatileImage(w, h, Transparency.TRANSLUCENT);
+                    } else if (status == VolatileImage.IMAGE_RESTORED) {
+                        invalidate();
+                    }
+                }
+
+                buffer = volatileImage;
+            } else {
+                if (image == null || !fits(image.getWidth(), image.getHeight())) {
+                    flush();
+                    image = GraphicsUtilities.createCompatibleTranslucentImage(w, h);
+                }
+
+                buffer = image;
+            }
+
+            if (!contentValid) {
+                render(buffer, useCache && contentCached ? bounds : clip);
+            } else if (invalidRegion != null) {
+                render(buffer, invalidRegion.intersection(bounds));
+            }
+
+            contentValid = useCache && contentCached;
+            invalidRegion = null;
+
+            draw((Graphics2D) g, buffer, clip, alpha);
+            contentsLost = buffer == volatileImage && volatileImage.contentsLost();
+
+            if (contentsLost) {
+                invalidate();
+            }
+        } while (contentsLost);
+    }
+
+    /**
+     * Returns whether a buffer of the given size can be reused for the current
+     * component size. A buffer is reused while the component shrinks, so that
+     * animating the size does not allocate a buffer per frame, but not once it
+     * is more than twice as large as needed.
+     */
+    private boolean fits(int bufferWidth, int bufferHeight) {
+        return bufferWidth >= width && bufferHeight >= height
+                && (long) bufferWidth * bufferHeight <= 2L * width * height;
+    }
+
+    private void render(Image buffer, Rectangle region) {
+        if (region.isEmpty()) {
+            return;
+        }
+
+        Graphics2D gfx = (Graphics2D) buffer.getGraphics();
+
+        try {
+            gfx.setComposite(AlphaComposite.Clear);
+            gfx.fillRect(region.x, region.y, region.width, region.height);
+            gfx.setComposite(AlphaComposite.SrcOver);
+            gfx.clipRect(region.x, region.y, region.width, region.height);
+            painter.paintContent(gfx);
+        } finally {
+            gfx.dispose();
+        }
+    }
+
+    private static void draw(Graphics2D g, Image buffer, Rectangle clip, float alpha) {
+        Composite oldComp = g.getComposite();
+
+        try {
+            g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, alpha));
+            g.drawImage(buffer, clip.x, clip.y, clip.x + clip.width, clip.y + clip.height,
+                    clip.x, clip.y, clip.x + clip.width, clip.y + clip.height, null);
+        } finally {
+            g.setComposite(oldComp);
+        }
+    }
+}
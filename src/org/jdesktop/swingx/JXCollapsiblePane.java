@@ -20,21 +20,17 @@
  */
 package org.jdesktop.swingx;
 
-import java.awt.AlphaComposite;
 import java.awt.BorderLayout;
 import java.awt.Component;
 import java.awt.ComponentOrientation;
-import java.awt.Composite;
 import java.awt.Container;
 import java.awt.Dimension;
 import java.awt.Graphics;
-import java.awt.Graphics2D;
 import java.awt.LayoutManager;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.awt.image.BufferedImage;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 
@@ -47,7 +43,6 @@ import javax.swing.Timer;
 import javax.swing.border.Border;
 
 import org.jdesktop.beans.JavaBean;
-import org.jdesktop.swingx.util.GraphicsUtilities;
 
 /**
  * <code>JXCollapsiblePane</code> provides a component which can collapse or
@@ -999,6 +994,7 @@ public class JXCollapsiblePane extends JXPanel {
         boolean collapsedState;
         private volatile float alpha;
         private boolean oldOpaque;
+        private AlphaPaintBuffer alphaBuffer;
 
         public WrapperContainer(Container c) {
             alpha = 1.0f;
@@ -1052,6 +1048,10 @@ public class JXCollapsiblePane extends JXPanel {
                 if (oldOpaque) {
                     setOpaque(true);
                 }
+                
+                if (alphaBuffer != null) {
+                    alphaBuffer.flush();
+                }
             }
             
             firePropertyChange("alpha", oldValue, getAlpha());
@@ -1092,27 +1092,16 @@ public class JXCollapsiblePane extends JXPanel {
             } else {
                 //the component is translucent, so we need to render to
                 //an intermediate image before painting
-                // TODO should we cache this image? repaint to same image unless size changes?
-                BufferedImage img = GraphicsUtilities.createCompatibleTranslucentImage(getWidth(), getHeight());
-                Graphics2D gfx = img.createGraphics();
-                
-                try {
-                    super.paint(gfx);
-                } finally {
-                    gfx.dispose();
+                if (alphaBuffer == null) {
+                    alphaBuffer = new AlphaPaintBuffer(this, new AlphaPaintBuffer.ContentPainter() {
+                        @Override
+                        public void paintContent(Graphics g) {
+                            WrapperContainer.super.paint(g);
+                        }
+                    });
                 }
                 
-                Graphics2D g2d = (Graphics2D) g;
-                Composite oldComp = g2d.getComposite();
-                
-                try {
-                    Composite alphaComp = AlphaComposite.getInstance(AlphaComposite.SRC_OVER, getEffectiveAlpha());
-                    g2d.setComposite(alphaComp);
-                    //TODO should we cache the image?
-                    g2d.drawImage(img, null, 0, 0);
-                } finally {
-                    g2d.setComposite(oldComp);
-                }
+                alphaBuffer.paint(g, getEffectiveAlpha(), false);
             }
         }
     }
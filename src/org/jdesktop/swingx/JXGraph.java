@@ -31,12 +31,14 @@ import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.RenderingHints;
+import java.awt.Shape;
 import java.awt.Stroke;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseMotionAdapter;
 import java.awt.event.MouseWheelEvent;
 import java.awt.event.MouseWheelListener;
+import java.awt.geom.AffineTransform;
 import java.awt.geom.GeneralPath;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
@@ -44,8 +46,14 @@ import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import org.jdesktop.beans.AbstractBean;
 import org.jdesktop.beans.JavaBean;
@@ -248,6 +256,27 @@ import org.jdesktop.swingx.painter.Painter;
  * {@link #removePlots(JXGraph.Plot...)}. You can also remove all plots at once
  * with {@link #removeAllPlots()}.</p>
  *
+ * <h3>Sampling the plots</h3>
+ *
+ * <p>By default, every plot is computed once per horizontal pixel whenever
+ * the graph is painted. Plots which are expensive to compute can be drawn
+ * faster by enabling one or more of the following options:</p>
+ *
+ * <ul>
+ *   <li>{@link #setAdaptiveSampling(boolean)}: Computes the plots at a
+ *   coarser interval and refines only where the curve bends.</li>
+ *   <li>{@link #setPlotCacheEnabled(boolean)}: Keeps the computed values of
+ *   every plot while the view is only panned, so only the newly exposed parts
+ *   of the plots are computed. The cache of a plot is cleared when it fires
+ *   a property change event.</li>
+ *   <li>{@link #setParallelPlotting(boolean)}: Computes several plots
+ *   concurrently. Each plot is computed by a single thread at a time, which
+ *   might not be the EDT.</li>
+ * </ul>
+ *
+ * <p>These options sample the plots at fixed positions of the X axis and
+ * assume the default linear conversions between pixels and positions.</p>
+ *
  * <h2>Painting more information</h2>
  *
  * <h3>How to draw on the graph</h3>
@@ -303,6 +332,14 @@ public class JXGraph extends JXPanel {
     // user zooms in or out
     private static final float ZOOM_MULTIPLIER = 1.1f;
     
+    // number of pixels between two samples of a plot when adaptive sampling
+    // is enabled, and the maximal number of times such an interval is halved
+    private static final int ADAPTIVE_INTERVAL = 4;
+    private static final int MAX_REFINEMENT_DEPTH = 4;
+    // distance in pixels between a computed value and the straight line
+    // through its neighbours above which an interval is refined
+    private static final double REFINEMENT_TOLERANCE = 0.5;
+    
     //listens to changes to plots and repaints the graph
     private PropertyChangeListener plotChangeListener;
 
@@ -343,6 +380,11 @@ public class JXGraph extends JXPanel {
     private boolean axisPainted = true;
     private boolean backPainted = true;
     
+    // plot sampling options
+    private boolean adaptiveSampling;
+    private boolean plotCacheEnabled;
+    private boolean parallelPlotting;
+    
     // used by the PanHandler to move the view
     private Point dragStart;
     
@@ -536,6 +578,11 @@ public class JXGraph extends JXPanel {
         plotChangeListener = new PropertyChangeListener() {
             @Override
             public void propertyChange(PropertyChangeEvent evt) {
+                for (DrawablePlot drawable : plots) {
+                    if (drawable.getEquation() == evt.getSource()) {
+                        drawable.samples = null;
+                    }
+                }
                 repaint();
             }
         };
@@ -714,6 +761,111 @@ public class JXGraph extends JXPanel {
         firePropertyChange("backgroundPainted", old, isBackgroundPainted());
     }
     
+    /**
+     * <p>Defines whether or not the plots are sampled adaptively. The
+     * component is always created with adaptive sampling disabled.</p>
+     *
+     * @return true if the plots are sampled adaptively, false if they are
+     *   computed once per pixel
+     * @see #setAdaptiveSampling(boolean)
+     */
+    public boolean isAdaptiveSampling() {
+        return adaptiveSampling;
+    }
+    
+    /**
+     * <p>Enables or disables the adaptive sampling of the plots depending on
+     * the value of the parameter. When enabled, the plots are computed every
+     * few pixels only. Where the curve bends, the intervals are refined down
+     * to a fraction of a pixel. Smooth plots are thus computed less often than
+     * once per pixel, while sharp features are drawn more accurately. Features
+     * narrower than the sampling interval might be missed though.</p>
+     *
+     * @param adaptiveSampling if true, the plots are sampled adaptively
+     * @see #isAdaptiveSampling()
+     */
+    public void setAdaptiveSampling(boolean adaptiveSampling) {
+        boolean old = isAdaptiveSampling();
+        this.adaptiveSampling = adaptiveSampling;
+        firePropertyChange("adaptiveSampling", old, isAdaptiveSampling());
+        repaint();
+    }
+    
+    /**
+     * <p>Defines whether or not the computed values of the plots are cached.
+     * The component is always created with the plot cache disabled.</p>
+     *
+     * @return true if the computed values of the plots are cached
+     * @see #setPlotCacheEnabled(boolean)
+     */
+    public boolean isPlotCacheEnabled() {
+        return plotCacheEnabled;
+    }
+    
+    /**
+     * <p>Enables or disables the caching of the computed values of the plots
+     * depending on the value of the parameter. When enabled, panning the view
+     * computes the newly exposed parts of the plots only. The cache of a plot
+     * is cleared when the plot fires a property change event or when the
+     * view is zoomed. Plots whose result changes without firing an event must
+     * not be cached, or {@link #clearPlotCache()} must be called.</p>
+     *
+     * @param plotCacheEnabled if true, the computed values of the plots are cached
+     * @see #isPlotCacheEnabled()
+     * @see #clearPlotCache()
+     */
+    public void setPlotCacheEnabled(boolean plotCacheEnabled) {
+        boolean old = isPlotCacheEnabled();
+        this.plotCacheEnabled = plotCacheEnabled;
+        if (!plotCacheEnabled) {
+            clearPlotCache();
+        }
+        firePropertyChange("plotCacheEnabled", old, isPlotCacheEnabled());
+        repaint();
+    }
+    
+    /**
+     * <p>Clears the cached values of all plots, so they are computed again
+     * when the graph is painted.</p>
+     *
+     * @see #setPlotCacheEnabled(boolean)
+     */
+    public void clearPlotCache() {
+        for (DrawablePlot drawable : plots) {
+            drawable.samples = null;
+        }
+        repaint();
+    }
+    
+    /**
+     * <p>Defines whether or not several plots are computed concurrently. The
+     * component is always created with parallel plotting disabled.</p>
+     *
+     * @return true if the plots are computed concurrently
+     * @see #setParallelPlotting(boolean)
+     */
+    public boolean isParallelPlotting() {
+        return parallelPlotting;
+    }
+    
+    /**
+     * <p>Enables or disables the concurrent computation of the plots depending
+     * on the value of the parameter. When enabled, the plots are computed by
+     * the threads of the common <code>ForkJoinPool</code> and painted on the
+     * EDT once all of them are computed. A single plot is never computed by
+     * two threads at the same time, but plots must not depend on state
+     * confined to the EDT.</p>
+     *
+     * @param parallelPlotting if true, the plots are computed concurrently
+     * @see #isParallelPlotting()
+     */
+    public void setParallelPlotting(boolean parallelPlotting) {
+        boolean old = isParallelPlotting();
+        this.parallelPlotting = parallelPlotting;
+        firePropertyChange("parallelPlotting", old, isParallelPlotting());
+        repaint();
+    }
+    
     /**
      * <p>Gets the major grid lines color of this component.</p>
      *
@@ -1305,16 +1457,72 @@ public class JXGraph extends JXPanel {
     protected void paintExtra(Graphics2D g2) {
     }
 
-    // Draw all the registered plots with the appropriate color.
+    // Draw all the registered plots with the appropriate color. The paths of
+    // the plots are created first, concurrently if parallel plotting is on.
     private void drawPlots(Graphics2D g2) {
-        for (DrawablePlot drawable: plots) {
-            g2.setColor(drawable.getColor());
-            drawPlot(g2, drawable.getEquation());
+        final SamplingGrid grid = createSamplingGrid();
+        List<DrawablePlot> drawables = new ArrayList<DrawablePlot>(plots);
+        PlotPath[] paths = new PlotPath[drawables.size()];
+        
+        if (isParallelPlotting() && paths.length > 1) {
+            List<Callable<PlotPath>> tasks = new ArrayList<Callable<PlotPath>>(paths.length);
+            for (final DrawablePlot drawable : drawables) {
+                tasks.add(new Callable<PlotPath>() {
+                    @Override
+                    public PlotPath call() {
+                        return createPlotPath(drawable, grid);
+                    }
+                });
+            }
+            try {
+                List<Future<PlotPath>> results = ForkJoinPool.commonPool().invokeAll(tasks);
+                for (int i = 0; i < paths.length; i++) {
+                    paths[i] = results.get(i).get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        } else {
+            for (int i = 0; i < paths.length; i++) {
+                paths[i] = createPlotPath(drawables.get(i), grid);
+            }
+        }
+        
+        for (int i = 0; i < paths.length; i++) {
+            g2.setColor(drawables.get(i).getColor());
+            paths[i].draw(g2);
+        }
+    }
+    
+    // Creates the path of a single plot, sampled once per pixel if the grid
+    // is null.
+    private PlotPath createPlotPath(DrawablePlot drawable, SamplingGrid grid) {
+        if (grid == null) {
+            return new PlotPath(createPixelPath(drawable.getEquation()), 0.0, 0.0);
+        }
+        
+        PlotSamples samples = drawable.samples;
+        if (samples == null || !samples.matches(grid)) {
+            samples = new PlotSamples(grid);
+        }
+        if (isPlotCacheEnabled()) {
+            drawable.samples = samples;
         }
+        samples.update(drawable.getEquation(), grid);
+        return samples.getPath(grid);
     }
 
-    // Draw a single plot as a GeneralPath made of straight lines.
-    private void drawPlot(Graphics2D g2, Plot equation) {
+    // Create the path of a single plot as a GeneralPath made of straight lines.
+    private Shape createPixelPath(Plot equation) {
         float x = 0.0f;
         float y = (float) yPositionToPixel(equation.compute(xPixelToPosition(0.0)));
         
@@ -1328,7 +1536,32 @@ public class JXGraph extends JXPanel {
             path.lineTo(x, y);
         }
         
-        g2.draw(path);
+        return path;
+    }
+    
+    // Creates the grid of positions at which the plots are sampled for the
+    // current view, or null if the plots must be computed once per pixel.
+    private SamplingGrid createSamplingGrid() {
+        if (!isAdaptiveSampling() && !isPlotCacheEnabled()) {
+            return null;
+        }
+        int width = getWidth();
+        int height = getHeight();
+        if (width <= 0 || height <= 0 || !(maxX > minX) || !(maxY > minY)) {
+            return null;
+        }
+        
+        int interval = isAdaptiveSampling() ? ADAPTIVE_INTERVAL : 1;
+        double step = interval * (maxX - minX) / width;
+        double first = Math.floor(minX / step);
+        double last = Math.ceil(maxX / step);
+        // positions so far away from 0 can't be sampled on a fixed grid
+        if (!(Math.abs(first) < 1e15 && Math.abs(last) < 1e15)) {
+            return null;
+        }
+        return new SamplingGrid(isAdaptiveSampling(), interval, step,
+                width / (maxX - minX), height / (maxY - minY),
+                minX, minY, height, (long) first, (long) last);
     }
 
     // Draws the grid. First draw the vertical lines, then the horizontal lines.
@@ -1631,6 +1864,8 @@ public class JXGraph extends JXPanel {
     private static class DrawablePlot {
         private final Plot equation;
         private final Color color;
+        // computed values, kept while the plot cache is enabled
+        private PlotSamples samples;
 
         private DrawablePlot(Plot equation, Color color) {
             this.equation = equation;
@@ -1669,6 +1904,221 @@ public class JXGraph extends JXPanel {
         }
     }
     
+    // The positions at which the plots are sampled for a given view: the
+    // multiples of step between firstK * step and lastK * step.
+    private static final class SamplingGrid {
+        private final boolean adaptive;
+        private final int interval;
+        private final double step;
+        private final double xScale;
+        private final double yScale;
+        private final double minX;
+        private final double minY;
+        private final int height;
+        private final long firstK;
+        private final long lastK;
+        
+        private SamplingGrid(boolean adaptive, int interval, double step,
+                double xScale, double yScale, double minX, double minY,
+                int height, long firstK, long lastK) {
+            this.adaptive = adaptive;
+            this.interval = interval;
+            this.step = step;
+            this.xScale = xScale;
+            this.yScale = yScale;
+            this.minX = minX;
+            this.minY = minY;
+            this.height = height;
+            this.firstK = firstK;
+            this.lastK = lastK;
+        }
+    }
+    
+    // A path to draw, translated by (tx, ty).
+    private static final class PlotPath {
+        private final Shape shape;
+        private final double tx;
+        private final double ty;
+        
+        private PlotPath(Shape shape, double tx, double ty) {
+            this.shape = shape;
+            this.tx = tx;
+            this.ty = ty;
+        }
+        
+        private void draw(Graphics2D g2) {
+            AffineTransform transform = g2.getTransform();
+            g2.translate(tx, ty);
+            g2.draw(shape);
+            g2.setTransform(transform);
+        }
+    }
+    
+    // The values of a plot computed on a sampling grid. Panning the view
+    // keeps the scale of the grid, so the values computed before are reused
+    // and only the newly exposed positions are computed. The path is created
+    // relative to the first position and translated when drawn.
+    private static final class PlotSamples {
+        private final boolean adaptive;
+        private final int interval;
+        private final double step;
+        private final double yScale;
+        
+        // values[i] is the value at (firstK + i) * step
+        private long firstK;
+        private double[] values;
+        // the x, y pairs computed between positions i and i + 1
+        private double[][] refinements;
+        
+        private GeneralPath path;
+        private double pathYScale;
+        private double pathMinY;
+        
+        private double[] buffer = new double[32];
+        private int bufferSize;
+        
+        private PlotSamples(SamplingGrid grid) {
+            adaptive = grid.adaptive;
+            interval = grid.interval;
+            step = grid.step;
+            yScale = grid.yScale;
+        }
+        
+        // Returns true if the values sampled for this grid can be reused for
+        // the given one. Refinements depend on the vertical scale.
+        private boolean matches(SamplingGrid grid) {
+            return adaptive == grid.adaptive && interval == grid.interval
+                    && sameScale(step, grid.step)
+                    && (!adaptive || sameScale(yScale, grid.yScale));
+        }
+        
+        // Tolerates the rounding errors introduced by panning the view.
+        private static boolean sameScale(double a, double b) {
+            return Math.abs(a - b) <= Math.abs(a) * 1e-9;
+        }
+        
+        // Computes the values of the positions of the grid which are not
+        // computed yet. Values far away from the grid are dropped.
+        private void update(Plot equation, SamplingGrid grid) {
+            long lo = grid.firstK;
+            long hi = grid.lastK;
+            long lastK = firstK + (values == null ? 0 : values.length) - 1;
+            if (values != null && lo >= firstK && hi <= lastK
+                    && lastK - firstK <= 3 * (hi - lo) + 3) {
+                return;
+            }
+            
+            long newFirstK = lo;
+            long newLastK = hi;
+            if (values != null && hi >= firstK && lo <= lastK
+                    && Math.max(hi, lastK) - Math.min(lo, firstK) <= 3 * (hi - lo) + 3) {
+                newFirstK = Math.min(lo, firstK);
+                newLastK = Math.max(hi, lastK);
+            }
+            
+            int count = (int) (newLastK - newFirstK + 1);
+            double[] newValues = new double[count];
+            double[][] newRefinements = adaptive ? new double[count][] : null;
+            for (int i = 0; i < count; i++) {
+                long k = newFirstK + i;
+                if (values != null && k >= firstK && k <= lastK) {
+                    newValues[i] = values[(int) (k - firstK)];
+                } else {
+                    newValues[i] = equation.compute(k * step);
+                }
+            }
+            if (adaptive) {
+                for (int i = 0; i < count - 1; i++) {
+                    long k = newFirstK + i;
+                    if (values != null && k >= firstK && k < lastK) {
+                        newRefinements[i] = refinements[(int) (k - firstK)];
+                    } else {
+                        bufferSize = 0;
+                        refine(equation, k * step, newValues[i],
+                                (k + 1) * step, newValues[i + 1], 0);
+                        newRefinements[i] = Arrays.copyOf(buffer, bufferSize);
+                    }
+                }
+            }
+            
+            firstK = newFirstK;
+            values = newValues;
+            refinements = newRefinements;
+            path = null;
+        }
+        
+        // Computes the middle of the given interval and halves it again where
+        // the curve bends or is not defined, up to the maximal depth.
+        private void refine(Plot equation, double x0, double y0,
+                double x1, double y1, int depth) {
+            double x = (x0 + x1) / 2.0;
+            double y = equation.compute(x);
+            boolean split = false;
+            if (depth < MAX_REFINEMENT_DEPTH) {
+                if (isFinite(y0) && isFinite(y) && isFinite(y1)) {
+                    split = Math.abs(y - (y0 + y1) / 2.0) * yScale > REFINEMENT_TOLERANCE;
+                } else {
+                    split = isFinite(y0) || isFinite(y) || isFinite(y1);
+                }
+            }
+            if (split) {
+                refine(equation, x0, y0, x, y, depth + 1);
+            }
+            if (bufferSize + 2 > buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            buffer[bufferSize++] = x;
+            buffer[bufferSize++] = y;
+            if (split) {
+                refine(equation, x, y, x1, y1, depth + 1);
+            }
+        }
+        
+        // Returns the path of the values, created if the values or the
+        // vertical scale changed.
+        private PlotPath getPath(SamplingGrid grid) {
+            if (path == null || !sameScale(pathYScale, grid.yScale)) {
+                pathYScale = grid.yScale;
+                pathMinY = grid.minY;
+                path = new GeneralPath(GeneralPath.WIND_NON_ZERO, values.length
+                        * (adaptive ? 2 * ADAPTIVE_INTERVAL : 1));
+                double origin = firstK * step;
+                boolean drawing = false;
+                for (int i = 0; i < values.length; i++) {
+                    drawing = addPoint(i * interval, values[i], drawing);
+                    if (adaptive && i < values.length - 1) {
+                        double[] points = refinements[i];
+                        for (int j = 0; j < points.length; j += 2) {
+                            double x = (points[j] - origin) / step * interval;
+                            drawing = addPoint(x, points[j + 1], drawing);
+                        }
+                    }
+                }
+            }
+            return new PlotPath(path, (firstK * step - grid.minX) * grid.xScale,
+                    grid.height + (grid.minY - pathMinY) * pathYScale);
+        }
+        
+        // Adds a point to the path, breaking it where the plot is not defined.
+        private boolean addPoint(double x, double value, boolean drawing) {
+            if (!isFinite(value)) {
+                return false;
+            }
+            double y = -(value - pathMinY) * pathYScale;
+            y = Math.max(-1e7, Math.min(1e7, y));
+            if (drawing) {
+                path.lineTo((float) x, (float) y);
+            } else {
+                path.moveTo((float) x, (float) y);
+            }
+            return true;
+        }
+        
+        private static boolean isFinite(double value) {
+            return !Double.isNaN(value) && !Double.isInfinite(value);
+        }
+    }
+    
     // Shrinks or expand the view depending on the mouse wheel direction.
     // When the wheel moves down, the view is expanded. Otherwise it is shrunk.
     private class ZoomHandler implements MouseWheelListener {
@@ -21,15 +21,12 @@
 
 package org.jdesktop.swingx;
 
-import java.awt.AlphaComposite;
 import java.awt.Component;
-import java.awt.Composite;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.LayoutManager;
 import java.awt.Rectangle;
-import java.awt.image.BufferedImage;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 
@@ -42,7 +39,6 @@ import org.jdesktop.beans.JavaBean;
 import org.jdesktop.swingx.painter.AbstractPainter;
 import org.jdesktop.swingx.painter.Painter;
 import org.jdesktop.swingx.util.Contract;
-import org.jdesktop.swingx.util.GraphicsUtilities;
 import org.jdesktop.swingx.util.JVM;
 
 /**
@@ -74,7 +70,13 @@ import org.jdesktop.swingx.util.JVM;
  * container.setBackground(Color.BLACK);
  * container.add(panel);
  * </pre>
- * 
+ *
+ * </p>
+ * <p>
+ * While translucent, the panel renders its content into an offscreen buffer which is reused
+ * between paints. When fading a panel whose content does not change, enable
+ * {@link #setTranslucentContentCached(boolean) content caching} to only draw the buffer again
+ * on each change of alpha.
  * </p>
  * <h3>Painter Support</h3>
  * <p>
@@ -138,6 +140,21 @@ public class JXPanel extends JPanel implements AlphaPaintable, BackgroundPaintab
      */
     private PropertyChangeListener painterChangeListener;
     
+    /**
+     * The offscreen buffer used to paint while translucent, created lazily.
+     */
+    private transient AlphaPaintBuffer alphaBuffer;
+    
+    private boolean translucentContentCached;
+    
+    private boolean translucentBufferAccelerated;
+    
+    /**
+     * Set while the repaint for a change of alpha is requested, which does
+     * not invalidate the cached content.
+     */
+    private transient boolean repaintingAlpha;
+    
     /**
      * Creates a new <code>JXPanel</code> with a double buffer
      * and a flow layout.
@@ -245,14 +262,25 @@ public class JXPanel extends JPanel implements AlphaPaintable, BackgroundPaintab
             if (oldOpaque) {
                 super.setOpaque(true);
             }
+            
+            if (alphaBuffer != null) {
+                alphaBuffer.flush();
+            }
         }
         
         firePropertyChange("alpha", oldValue, getAlpha());
-        repaint();
+        repaintingAlpha = true;
+        
+        try {
+            repaint();
+        } finally {
+            repaintingAlpha = false;
+        }
     }
     
     void installRepaintManager() {
-        if (!JVM.current().isOrLater(JVM.JDK1_7)) {
+        //the content cache relies on RepaintManagerX to learn about changes
+        if (!JVM.current().isOrLater(JVM.JDK1_7) || isTranslucentContentCached()) {
             RepaintManager manager = RepaintManager.currentManager(this);
             RepaintManager trm = SwingXUtilities.getTranslucentRepaintManager(manager);
             RepaintManager.setCurrentManager(trm);
@@ -263,6 +291,148 @@ public class JXPanel extends JPanel implements AlphaPaintable, BackgroundPaintab
         //TODO uninstall TranslucentRepaintManager when no more non-opaque JXPanel's exist
     }
     
+    /**
+     * Returns whether the content of this panel is kept in an offscreen buffer
+     * while the panel is translucent. The default value of this property is
+     * {@code false}.
+     * 
+     * @return {@code true} if the rendered content is cached; {@code false}
+     *         otherwise
+     * @see #setTranslucentContentCached(boolean)
+     */
+    public boolean isTranslucentContentCached() {
+        return translucentContentCached;
+    }
+    
+    /**
+     * Determines whether the content of this panel is kept in an offscreen
+     * buffer while the panel is translucent. If it is, painting the panel
+     * after a change of alpha only draws the buffer with the new alpha, without
+     * painting the panel and its children again. This speeds up fading a large
+     * panel considerably.
+     * <p>
+     * Changes of the content are tracked with the repaint requests of the
+     * panel and its children, so this must only be used if the content does
+     * not change without a repaint request. The cache is only used while the
+     * current repaint manager is, or forwards to, a {@link RepaintManagerX}.
+     * <p>
+     * This is a bound property.
+     * 
+     * @param translucentContentCached
+     *            {@code true} to cache the rendered content; {@code false}
+     *            otherwise
+     */
+    public void setTranslucentContentCached(boolean translucentContentCached) {
+        boolean old = isTranslucentContentCached();
+        this.translucentContentCached = translucentContentCached;
+        
+        if (alphaBuffer != null) {
+            alphaBuffer.setContentCached(translucentContentCached);
+        }
+        
+        if (translucentContentCached && getAlpha() < 1f) {
+            installRepaintManager();
+        }
+        
+        firePropertyChange("translucentContentCached", old, isTranslucentContentCached());
+    }
+    
+    /**
+     * Returns whether the offscreen buffer used while this panel is
+     * translucent is a {@code VolatileImage}. The default value of this
+     * property is {@code false}.
+     * 
+     * @return {@code true} if the buffer is a {@code VolatileImage};
+     *         {@code false} otherwise
+     * @see #setTranslucentBufferAccelerated(boolean)
+     */
+    public boolean isTranslucentBufferAccelerated() {
+        return translucentBufferAccelerated;
+    }
+    
+    /**
+     * Determines whether the offscreen buffer used while this panel is
+     * translucent is a {@code VolatileImage}, which may be held and drawn by
+     * the graphics hardware. A {@code BufferedImage} is used while the panel
+     * has no graphics configuration.
+     * <p>
+     * This is a bound property.
+     * 
+     * @param translucentBufferAccelerated
+     *            {@code true} to use a {@code VolatileImage}; {@code false}
+     *            otherwise
+     */
+    public void setTranslucentBufferAccelerated(boolean translucentBufferAccelerated) {
+        boolean old = isTranslucentBufferAccelerated();
+        this.translucentBufferAccelerated = translucentBufferAccelerated;
+        
+        if (alphaBuffer != null) {
+            alphaBuffer.setAccelerated(translucentBufferAccelerated);
+        }
+        
+        firePropertyChange("translucentBufferAccelerated", old, isTranslucentBufferAccelerated());
+        repaint();
+    }
+    
+    /**
+     * Invalidates the cached content in the given region. Called by
+     * {@link RepaintManagerX} for repaint requests of this panel, including
+     * those redirected from its children.
+     */
+    void contentChanged(int x, int y, int w, int h) {
+        if (alphaBuffer != null && !repaintingAlpha) {
+            alphaBuffer.invalidate(x, y, w, h);
+        }
+    }
+    
+    /**
+     * Returns whether repaint requests reach {@link #contentChanged}, that is
+     * whether the current repaint manager is or forwards to a
+     * {@link RepaintManagerX}.
+     */
+    private boolean isContentChangeTracked() {
+        RepaintManager manager = RepaintManager.currentManager(this);
+        
+        while (manager instanceof ForwardingRepaintManager) {
+            if (manager instanceof RepaintManagerX) {
+                return true;
+            }
+            
+            manager = ((ForwardingRepaintManager) manager).getDelegateManager();
+        }
+        
+        return false;
+    }
+    
+    private AlphaPaintBuffer getAlphaBuffer() {
+        if (alphaBuffer == null) {
+            alphaBuffer = new AlphaPaintBuffer(this, new AlphaPaintBuffer.ContentPainter() {
+                @Override
+                public void paintContent(Graphics g) {
+                    JXPanel.super.paint(g);
+                }
+            });
+            alphaBuffer.setAccelerated(isTranslucentBufferAccelerated());
+            alphaBuffer.setContentCached(isTranslucentContentCached());
+        }
+        
+        return alphaBuffer;
+    }
+    
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Overridden to release the offscreen buffer.
+     */
+    @Override
+    public void removeNotify() {
+        super.removeNotify();
+        
+        if (alphaBuffer != null) {
+            alphaBuffer.flush();
+        }
+    }
+    
     /**
      * {@inheritDoc}
      */
@@ -540,27 +710,7 @@ public class JXPanel extends JPanel implements AlphaPaintable, BackgroundPaintab
         } else {
             //the component is translucent, so we need to render to
             //an intermediate image before painting
-            // TODO should we cache this image? repaint to same image unless size changes?
-            BufferedImage img = GraphicsUtilities.createCompatibleTranslucentImage(getWidth(), getHeight());
-            Graphics2D gfx = img.createGraphics();
-            
-            try {
-                super.paint(gfx);
-            } finally {
-                gfx.dispose();
-            }
-            
-            Graphics2D g2d = (Graphics2D) g;
-            Composite oldComp = g2d.getComposite();
-            
-            try {
-                Composite alphaComp = AlphaComposite.getInstance(AlphaComposite.SRC_OVER, getEffectiveAlpha());
-                g2d.setComposite(alphaComp);
-                //TODO should we cache the image?
-                g2d.drawImage(img, null, 0, 0);
-            } finally {
-                g2d.setComposite(oldComp);
-            }
+            getAlphaBuffer().paint(g, getEffectiveAlpha(), isContentChangeTracked());
         }
     }
     
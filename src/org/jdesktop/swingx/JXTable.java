@@ -121,6 +121,8 @@ import org.jdesktop.swingx.search.TableSearchable;
 import org.jdesktop.swingx.sort.DefaultSortController;
 import org.jdesktop.swingx.sort.SortController;
 import org.jdesktop.swingx.sort.SortUtils;
+import org.jdesktop.swingx.sort.StringValueCache;
+import org.jdesktop.swingx.sort.StringValueProvider;
 import org.jdesktop.swingx.sort.StringValueRegistry;
 import org.jdesktop.swingx.sort.TableSortController;
 import org.jdesktop.swingx.table.ColumnControlButton;
@@ -511,6 +513,8 @@ public class JXTable extends JTable implements TableColumnModelExtListener {
     private boolean ignoreAddColumn;
     /** Registry of per-cell string representation. */
     private transient StringValueRegistry stringValueRegistry;
+    /** Shared cache of per-cell string representation, null if not caching. */
+    private transient StringValueCache stringValueCache;
 
     private SortOrder[] sortOrderCycle;
     private boolean focusable=false;
@@ -1566,6 +1570,7 @@ public class JXTable extends JTable implements TableColumnModelExtListener {
      */
     @Override
     public void tableChanged(TableModelEvent e) {
+        updateStringValueCache(e);
         preprocessModelChange(e);
         super.tableChanged(e);
         if (isStructureChanged(e) && getAutoCreateColumnsFromModel()) {
@@ -1722,7 +1727,7 @@ public class JXTable extends JTable implements TableColumnModelExtListener {
         // need to hack: if a structureChange is the result of a setModel
         // the rowsorter is not yet updated
         if (ignoreAddColumn || (!getControlsSorterProperties()))  return;
-        getSortController().setStringValueProvider(getStringValueRegistry());
+        getSortController().setStringValueProvider(getStringValueProvider());
         // configure from table properties
         getSortController().setSortable(sortable);
         getSortController().setSortsOnUpdates(sortsOnUpdates);
@@ -3184,6 +3189,9 @@ public class JXTable extends JTable implements TableColumnModelExtListener {
          */
         @Override
         public String getStringAt(int row, int column) {
+            if (table.stringValueCache != null) {
+                return table.stringValueCache.getString(row, column);
+            }
             StringValue sv = table.getStringValueRegistry().getStringValue(row, column);
             return sv.getString(getValueAt(row, column));
         }
@@ -3403,6 +3411,94 @@ public class JXTable extends JTable implements TableColumnModelExtListener {
     }
     
     
+    /**
+     * Sets whether or not to cache the string representation of cells. If enabled,
+     * the converted strings are shared by all parties which use the string 
+     * representation, that is sorting, filtering, searching, highlighting and
+     * <code>getStringAt</code>. The cache is kept in synch with model changes and 
+     * changes of the renderers.<p>
+     * 
+     * The default is false. Enabling is recommended for big tables with expensive
+     * conversions (f.i. formatting dates or numbers). Client code which changes
+     * the conversion of a registered renderer in-place must invalidate the cache.
+     * 
+     * @param cachingStrings whether or not to cache the string representation of 
+     *   cells.
+     * @see #isCachingStrings()
+     * @see #getStringValueCache()
+     * @see org.jdesktop.swingx.sort.StringValueCache#invalidate()
+     */
+    public void setCachingStrings(boolean cachingStrings) {
+        boolean old = isCachingStrings();
+        if (old == cachingStrings) return;
+        stringValueCache = cachingStrings 
+                ? new StringValueCache(getStringValueRegistry(), getModel()) : null;
+        if (getControlsSorterProperties() && getSortController() != null) {
+            getSortController().setStringValueProvider(getStringValueProvider());
+        }
+        firePropertyChange("cachingStrings", old, isCachingStrings());
+    }
+    
+    /**
+     * Returns whether or not the string representation of cells is cached.
+     * 
+     * @return true if the string representation of cells is cached, false
+     *   otherwise.
+     * @see #setCachingStrings(boolean)
+     */
+    public boolean isCachingStrings() {
+        return stringValueCache != null;
+    }
+    
+    /**
+     * Returns the cache of the string representation of cells. 
+     * 
+     * @return the cache of the string representation or null if not caching.
+     * @see #setCachingStrings(boolean)
+     */
+    public StringValueCache getStringValueCache() {
+        return stringValueCache;
+    }
+    
+    /**
+     * Returns the provider of the string representation of cells which 
+     * is shared with collaborators. This is the cache, if caching, or 
+     * the registry otherwise.
+     * 
+     * @return the provider of the string representation of cells.
+     */
+    private StringValueProvider getStringValueProvider() {
+        return stringValueCache != null ? stringValueCache : getStringValueRegistry();
+    }
+    
+    /**
+     * Updates the string cache, if any, from the given event. Must be done
+     * before any other processing of the event.
+     * 
+     * @param e the TableModelEvent received from the model
+     */
+    private void updateStringValueCache(TableModelEvent e) {
+        if (stringValueCache == null) return;
+        if (stringValueCache.getModel() != getModel()) {
+            stringValueCache.setModel(getModel());
+        } else {
+            stringValueCache.tableChanged(e);
+        }
+    }
+    
+    /**
+     * Flushes the string cache, if any, and the strings kept by the
+     * sort controller.  
+     */
+    private void invalidateStringValueCache() {
+        if (stringValueCache != null) {
+            stringValueCache.invalidate();
+        }
+        if (getRowSorter() instanceof DefaultSortController<?>) {
+            ((DefaultSortController<?>) getRowSorter()).stringValuesChanged();
+        }
+    }
+    
     /**
      * Updates per-column class in StringValueRegistry. This is called after
      * structureChanged.  
@@ -3412,6 +3508,7 @@ public class JXTable extends JTable implements TableColumnModelExtListener {
         for (int i = 0; i < getModel().getColumnCount(); i++) {
             getStringValueRegistry().setColumnClass(getModel().getColumnClass(i), i);
         }
+        invalidateStringValueCache();
     }
     
     /**
@@ -3427,6 +3524,7 @@ public class JXTable extends JTable implements TableColumnModelExtListener {
         getStringValueRegistry().setStringValue(
                 renderer instanceof StringValue ? (StringValue) renderer : null, 
                         tableColumn.getModelIndex());
+        invalidateStringValueCache();
     }
     /**
      * Called in init to synch the StringValueProvider with default renderers per class
@@ -3438,6 +3536,7 @@ public class JXTable extends JTable implements TableColumnModelExtListener {
                 getStringValueRegistry().setStringValue((StringValue) renderer, (Class<?>) clazz);
             }
         }
+        invalidateStringValueCache();
     }
     
     /**
@@ -3448,6 +3547,7 @@ public class JXTable extends JTable implements TableColumnModelExtListener {
         for (TableColumn tableColumn : getColumns(true)) {
             updateStringValueForColumn(tableColumn, tableColumn.getCellRenderer());
         }
+        invalidateStringValueCache();
     }
     /**
      * {@inheritDoc} <p>
@@ -3463,6 +3563,7 @@ public class JXTable extends JTable implements TableColumnModelExtListener {
         getStringValueRegistry().setStringValue(
                 (renderer instanceof StringValue) ? (StringValue) renderer : null, 
                         columnClass);
+        invalidateStringValueCache();
     }
 
     /**
@@ -3475,6 +3576,10 @@ public class JXTable extends JTable implements TableColumnModelExtListener {
      *         the table.
      */
     public String getStringAt(int row, int column) {
+        if (stringValueCache != null) {
+            return stringValueCache.getString(convertRowIndexToModel(row), 
+                    convertColumnIndexToModel(column));
+        }
         // changed implementation to use StringValueRegistry
         StringValue stringValue = getStringValueRegistry().getStringValue(
                 convertRowIndexToModel(row), convertColumnIndexToModel(column));
@@ -30,7 +30,14 @@ import java.awt.Window;
 import java.awt.event.ActionEvent;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Enumeration;
 import java.util.Hashtable;
+import java.util.List;
 import java.util.Vector;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
@@ -75,6 +82,7 @@ import org.jdesktop.swingx.search.Searchable;
 import org.jdesktop.swingx.search.TreeSearchable;
 import org.jdesktop.swingx.tree.DefaultXTreeCellEditor;
 import org.jdesktop.swingx.tree.DefaultXTreeCellRenderer;
+import org.jdesktop.swingx.util.Contract;
 
 
 /**
@@ -224,6 +232,9 @@ public class JXTree extends JTree {
     /** Color of selected background. Added for consistent api across collection components. */
     private Color selectionBackground;
     
+    /** True while a bulk change of the expansion state is in progress. */
+    private boolean expansionAdjusting;
+    
     
     
     /**
@@ -518,38 +529,177 @@ public class JXTree extends JTree {
 
 //--------------------- misc. new api and super overrides
     /**
-     * Collapses all nodes in this tree.
+     * Collapses all nodes in this tree. The collapse is a bulk change, see 
+     * {@link #isExpansionAdjusting()}.
      */
     public void collapseAll() {
-        for (int i = getRowCount() - 1; i >= 0 ; i--) {
-            collapseRow(i);
+        boolean wasAdjusting = isExpansionAdjusting();
+        setExpansionAdjusting(true);
+        try {
+            for (int i = getRowCount() - 1; i >= 0 ; i--) {
+                collapseRow(i);
+            }
+        } finally {
+            setExpansionAdjusting(wasAdjusting);
         }
     }
 
     /**
-     * Expands all nodes in this tree.<p>
+     * Expands all nodes in this tree. The nodes are expanded top-down as a bulk 
+     * change, see {@link #isExpansionAdjusting()}. A node whose expansion is 
+     * vetoed by a <code>TreeWillExpandListener</code> stays collapsed, together
+     * with its descendants.<p>
      * 
-     * Note: it's not recommended to use this method on the EDT for large/deep trees
-     * because expansion can take a considerable amount of time. 
+     * Note: expanding a large/deep tree still takes time proportional to the 
+     * number of expanded nodes times the number of rows with the default layout 
+     * of the tree ui. Setting a fixed row height and the largeModel property 
+     * speeds it up considerably.
      */
     public void expandAll() {
-        if (getRowCount() == 0) {
-            expandRoot();
+        TreeModel model = getModel();
+        if (model == null || model.getRoot() == null) {
+            return;
         }
-        for (int i = 0; i < getRowCount(); i++) {
-            expandRow(i);
+        boolean wasAdjusting = isExpansionAdjusting();
+        setExpansionAdjusting(true);
+        try {
+            Deque<TreePath> stack = new ArrayDeque<TreePath>();
+            stack.push(new TreePath(model.getRoot()));
+            while (!stack.isEmpty()) {
+                TreePath path = stack.pop();
+                Object node = path.getLastPathComponent();
+                if (model.isLeaf(node)) continue;
+                expandPath(path);
+                if (!isExpanded(path)) continue;
+                for (int i = model.getChildCount(node) - 1; i >= 0; i--) {
+                    stack.push(path.pathByAddingChild(model.getChild(node, i)));
+                }
+            }
+        } finally {
+            setExpansionAdjusting(wasAdjusting);
         }
     }
 
     /**
-     * Expands the root path if a TreeModel has been set, does nothing if not.
+     * Expands the given paths, including their ancestors, as a bulk change, see 
+     * {@link #isExpansionAdjusting()}. Paths to leaves are ignored. Expansion 
+     * is fastest if ancestors precede their descendants, as in the list returned
+     * by {@link #getExpandablePaths(TreeModel, TreePath)}.
      * 
+     * @param paths the paths to expand
+     * @see #getExpandablePaths(TreeModel, TreePath)
      */
-    private void expandRoot() {
+    public void expandPaths(Collection<? extends TreePath> paths) {
+        Contract.asNotNull(paths, "paths cannot be null");
+        boolean wasAdjusting = isExpansionAdjusting();
+        setExpansionAdjusting(true);
+        try {
+            for (TreePath path : paths) {
+                expandPath(path);
+            }
+        } finally {
+            setExpansionAdjusting(wasAdjusting);
+        }
+    }
+
+    /**
+     * Returns the paths of the given parent and all of its descendants which are
+     * not leaves in the given model, ancestors before their descendants. This
+     * only accesses the model, so it can be called off the EDT if the model is 
+     * safe to read from there, for example to prepare an 
+     * {@link #expandPaths(Collection)} of a large tree.
+     * 
+     * @param model the model to walk
+     * @param parent the path to start with, or null to start with the root 
+     * @return the paths of all nodes below parent which can be expanded, in 
+     *   pre-order
+     */
+    public static List<TreePath> getExpandablePaths(TreeModel model, TreePath parent) {
+        Contract.asNotNull(model, "model cannot be null");
+        List<TreePath> paths = new ArrayList<TreePath>();
+        if (parent == null) {
+            if (model.getRoot() == null) {
+                return paths;
+            }
+            parent = new TreePath(model.getRoot());
+        }
+        Deque<TreePath> stack = new ArrayDeque<TreePath>();
+        stack.push(parent);
+        while (!stack.isEmpty()) {
+            TreePath path = stack.pop();
+            Object node = path.getLastPathComponent();
+            if (model.isLeaf(node)) continue;
+            paths.add(path);
+            for (int i = model.getChildCount(node) - 1; i >= 0; i--) {
+                stack.push(path.pathByAddingChild(model.getChild(node, i)));
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * Returns true while a bulk change of the expansion state is in progress, 
+     * as done by {@link #expandAll()}, {@link #collapseAll()} and 
+     * {@link #expandPaths(Collection)}. <code>TreeExpansionEvent</code>s are fired
+     * for each path as usual; listeners which update expensive state on each 
+     * event may defer the update until this bound property changes back to false.
+     * 
+     * @return true if a bulk change of the expansion state is in progress
+     */
+    public boolean isExpansionAdjusting() {
+        return expansionAdjusting;
+    }
+
+    /**
+     * Sets the expansionAdjusting property and fires a property change if it 
+     * changed.
+     * 
+     * @param adjusting the new value
+     */
+    private void setExpansionAdjusting(boolean adjusting) {
+        boolean old = isExpansionAdjusting();
+        this.expansionAdjusting = adjusting;
+        firePropertyChange("expansionAdjusting", old, isExpansionAdjusting());
+    }
+
+    /**
+     * {@inheritDoc} <p>
+     * 
+     * Overridden to walk the expanded descendants in the model while the 
+     * expansion is adjusting. The super implementation scans all expanded paths
+     * of this tree, and the tree ui calls this method on each expansion, which 
+     * makes expanding many paths one by one quadratic.
+     */
+    @Override
+    public Enumeration<TreePath> getExpandedDescendants(TreePath parent) {
+        if (!isExpansionAdjusting()) {
+            return super.getExpandedDescendants(parent);
+        }
+        if (!isExpanded(parent)) {
+            return null;
+        }
         TreeModel model = getModel();
-        if (model != null && model.getRoot() != null) {
-            expandPath(new TreePath(model.getRoot()));
+        Vector<TreePath> descendants = null;
+        Deque<TreePath> stack = new ArrayDeque<TreePath>();
+        stack.push(parent);
+        while (!stack.isEmpty()) {
+            TreePath path = stack.pop();
+            Object node = path.getLastPathComponent();
+            for (int i = model.getChildCount(node) - 1; i >= 0; i--) {
+                TreePath child = path.pathByAddingChild(model.getChild(node, i));
+                if (isExpanded(child)) {
+                    if (descendants == null) {
+                        descendants = new Vector<TreePath>();
+                    }
+                    descendants.add(child);
+                    stack.push(child);
+                }
+            }
+        }
+        if (descendants == null) {
+            return Collections.enumeration(Collections.<TreePath>emptyList());
         }
+        return descendants.elements();
     }
 
     /**
@@ -33,9 +33,13 @@ import java.awt.event.MouseEvent;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Enumeration;
 import java.util.EventObject;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.logging.Logger;
 
 import javax.swing.ActionMap;
@@ -1674,11 +1678,25 @@ public class JXTreeTable extends JXTable {
 
     /**
      * Expands all nodes in the treetable.
+     * 
+     * @see JXTree#expandAll()
      */
     public void expandAll() {
         renderer.expandAll();
     }
 
+    /**
+     * Expands the given paths, including their ancestors, as a bulk change. The 
+     * table is updated once after all paths have been expanded.
+     * 
+     * @param paths the paths to expand
+     * @see JXTree#expandPaths(Collection)
+     * @see JXTree#getExpandablePaths(javax.swing.tree.TreeModel, TreePath)
+     */
+    public void expandPaths(Collection<? extends TreePath> paths) {
+        renderer.expandPaths(paths);
+    }
+
     /**
      * Collapses the node at the specified path in the treetable.
      *
@@ -2316,7 +2334,22 @@ public class JXTreeTable extends JXTable {
      */
     protected static class TreeTableModelAdapter extends AbstractTableModel 
         implements TreeTableModelProvider {
+        /**
+         * The number of changed paths up to which the rows of an update batch
+         * are looked up path by path. Larger batches are mapped in a single
+         * pass over the rows of the tree.
+         */
+        private static final int MAX_ROW_LOOKUPS = 16;
+        /**
+         * The number of row ranges up to which an update batch fires an 
+         * event per range. Larger batches fire a single event spanning all
+         * updated rows.
+         */
+        private static final int MAX_UPDATE_RANGES = 8;
+
         private TreeModelListener treeModelListener;
+        /** the batch collecting the node changes of the current EDT cycle. */
+        private UpdateBatch pendingUpdates;
         private final JTree tree; // immutable
         private JXTreeTable treeTable; // logically immutable
         
@@ -2347,6 +2380,15 @@ public class JXTreeTable extends JXTable {
                     updateAfterExpansionEvent(event);
                 }
             });
+            tree.addPropertyChangeListener("expansionAdjusting", new PropertyChangeListener() {
+                @Override
+                public void propertyChange(PropertyChangeEvent evt) {
+                    // the events of the bulk change have been skipped
+                    if (!isExpansionAdjusting()) {
+                        fireTableDataChanged();
+                    }
+                }
+            });
             tree.addPropertyChangeListener("model", new PropertyChangeListener() {
                 @Override
                 public void propertyChange(PropertyChangeEvent evt) {
@@ -2370,9 +2412,21 @@ public class JXTreeTable extends JXTable {
             // moved to let the renderer handle directly
 //            treeTable.getTreeTableHacker().setExpansionChangedFlag();
             // JW: delayed fire leads to a certain sluggishness occasionally? 
+            // a bulk change of the expansion is fired once it is done
+            if (isExpansionAdjusting()) return;
             fireTableDataChanged();
         }
 
+        /**
+         * Returns true if the tree is in a bulk change of its expansion state.
+         * 
+         * @return true if the tree's expansion is adjusting
+         * @see JXTree#isExpansionAdjusting()
+         */
+        private boolean isExpansionAdjusting() {
+            return tree instanceof JXTree && ((JXTree) tree).isExpansionAdjusting();
+        }
+
         /**
          * Returns the JXTreeTable instance to which this TreeTableModelAdapter is
          * permanently and exclusively bound. For use by
@@ -2532,6 +2586,7 @@ public class JXTreeTable extends JXTable {
          * processed. SwingUtilities.invokeLater is used to handle this.
          */
         private void delayedFireTableStructureChanged() {
+            discardPendingUpdates();
             SwingUtilities.invokeLater(new Runnable() {
                 @Override
                 public void run() {
@@ -2545,6 +2600,7 @@ public class JXTreeTable extends JXTable {
          * processed. SwingUtilities.invokeLater is used to handle this.
          */
         private void delayedFireTableDataChanged() {
+            discardPendingUpdates();
             SwingUtilities.invokeLater(new Runnable() {
                 @Override
                 public void run() {
@@ -2564,6 +2620,9 @@ public class JXTreeTable extends JXTable {
             // expansion state before invoke may be different 
             // from expansion state in invoke 
             final boolean expanded = tree.isExpanded(tme.getTreePath());
+            // node changes received after this event must be mapped after 
+            // the table has been notified of it
+            pendingUpdates = null;
             // quick test if tree throws for unrelated path. Seems like not.
 //            tree.getRowForPath(new TreePath("dummy"));
             SwingUtilities.invokeLater(new Runnable() {
@@ -2616,59 +2675,135 @@ public class JXTreeTable extends JXTable {
         }
 
         /**
-         * This is used for updated only. PENDING: not necessary to delay?
-         * Updates are never structural changes which are the critical.
+         * This is used for updated only. Updates are never structural changes,
+         * they are collected into a batch which is fired once all the pending
+         * events have been processed. The batch fires the updated rows only, 
+         * never a dataChanged.
          * 
-         * @param tme
+         * @param tme the TreeModelEvent received in the treeModelListener's
+         *   treeNodesChanged
          */
-        protected void delayedFireTableDataUpdated(final TreeModelEvent tme) {
-            final boolean expanded = tree.isExpanded(tme.getTreePath());
-            SwingUtilities.invokeLater(new Runnable() {
-                @Override
-                public void run() {
-                    int indices[] = tme.getChildIndices();
-                    TreePath path = tme.getTreePath();
-                    if (indices != null) {
-                        if (expanded) { // Dont bother to update if the parent
-                            // node is collapsed
-                            Object children[] = tme.getChildren();
-                            // can we be sure that children.length > 0?
-                            // int min = tree.getRowForPath(path.pathByAddingChild(children[0]));
-                            // int max = tree.getRowForPath(path.pathByAddingChild(children[children.length -1]));
-                            int min = Integer.MAX_VALUE;
-                            int max = Integer.MIN_VALUE;
-                            for (int i = 0; i < indices.length; i++) {
-                                Object child = children[i];
-                                TreePath childPath = path
-                                        .pathByAddingChild(child);
-                                int index = tree.getRowForPath(childPath);
-                                if (index < min) {
-                                    min = index;
-                                }
-                                if (index > max) {
-                                    max = index;
-                                }
-                            }
-//                            LOG.info("Updated: parentPath/min/max" + path + "/" + min + "/" + max);
-                            // JW: the index is occasionally - 1 - need further digging 
-                            fireTableRowsUpdated(Math.max(0, min), Math.max(0, max));
-                        } else {
-                            // not expanded - but change might effect appearance
-                            // of parent Issue #82-swingx
-                            int row = tree.getRowForPath(path);
-                            // fix Issue #247-swingx: prevent accidental structureChanged
-                            // for collapsed path in this case row == -1, 
-                            // which == TableEvent.HEADER_ROW
-                            if (row >= 0)
-                                fireTableRowsUpdated(row, row);
+        protected void delayedFireTableDataUpdated(TreeModelEvent tme) {
+            if (pendingUpdates == null) {
+                pendingUpdates = new UpdateBatch();
+                SwingUtilities.invokeLater(pendingUpdates);
+            }
+            // expansion state before invoke may be different 
+            // from expansion state in invoke 
+            pendingUpdates.add(tme, tree.isExpanded(tme.getTreePath()));
+        }
+
+        /**
+         * Drops the node changes collected so far, used if a pending 
+         * dataChanged or structureChanged covers them.
+         */
+        private void discardPendingUpdates() {
+            if (pendingUpdates != null) {
+                pendingUpdates.discarded = true;
+                pendingUpdates = null;
+            }
+        }
+
+        /**
+         * The node changes received in one EDT cycle. Each changed node is 
+         * mapped to its row once, and the rows are fired as ranges of 
+         * consecutive rows.
+         */
+        private class UpdateBatch implements Runnable {
+            private final Set<TreePath> paths = new LinkedHashSet<TreePath>();
+            private boolean discarded;
+
+            /**
+             * Adds the paths whose rows are updated by the given event.
+             * 
+             * @param tme the event of the changed nodes
+             * @param expanded the expansion state of the event's path at the
+             *   time of the event
+             */
+            void add(TreeModelEvent tme, boolean expanded) {
+                TreePath path = tme.getTreePath();
+                Object[] children = tme.getChildren();
+                if (path == null) return;
+                if ((children != null) && expanded) {
+                    for (Object child : children) {
+                        paths.add(path.pathByAddingChild(child));
+                    }
+                } else {
+                    // either the event is fired to identify the root or 
+                    // the parent is not expanded - but change might effect 
+                    // appearance of parent Issue #82-swingx
+                    paths.add(path);
+                }
+            }
+
+            @Override
+            public void run() {
+                if (pendingUpdates == this) {
+                    pendingUpdates = null;
+                }
+                if (discarded || paths.isEmpty()) return;
+                fireRowsUpdated(getRows());
+            }
+
+            /**
+             * Returns the ascending rows of the visible changed paths. Paths
+             * which are not visible, f.i. a hidden root, have no row.
+             * 
+             * @return the rows to update
+             */
+            private int[] getRows() {
+                int[] rows = new int[paths.size()];
+                int count = 0;
+                if (paths.size() <= MAX_ROW_LOOKUPS) {
+                    for (TreePath path : paths) {
+                        int row = tree.getRowForPath(path);
+                        // fix Issue #247-swingx: prevent accidental structureChanged
+                        // for collapsed path in this case row == -1, 
+                        // which == TableEvent.HEADER_ROW
+                        if (row >= 0) {
+                            rows[count++] = row;
+                        }
+                    }
+                    Arrays.sort(rows, 0, count);
+                } else {
+                    // the layout cache maps rows to paths much cheaper 
+                    // than paths to rows
+                    int rowCount = tree.getRowCount();
+                    for (int row = 0; row < rowCount && count < rows.length; row++) {
+                        if (paths.contains(tree.getPathForRow(row))) {
+                            rows[count++] = row;
                         }
-                    } else { // case where the event is fired to identify
-                                // root.
-                        fireTableDataChanged();
                     }
                 }
-            });
+                return Arrays.copyOf(rows, count);
+            }
 
+            /**
+             * Fires an update per range of consecutive rows, or a single
+             * update spanning all rows if there are too many ranges.
+             * 
+             * @param rows the ascending rows to update
+             */
+            private void fireRowsUpdated(int[] rows) {
+                if (rows.length == 0) return;
+                int ranges = 1;
+                for (int i = 1; i < rows.length; i++) {
+                    if (rows[i] > rows[i - 1] + 1) {
+                        ranges++;
+                    }
+                }
+                if (ranges > MAX_UPDATE_RANGES) {
+                    fireTableRowsUpdated(rows[0], rows[rows.length - 1]);
+                    return;
+                }
+                int first = 0;
+                for (int i = 1; i <= rows.length; i++) {
+                    if ((i == rows.length) || (rows[i] > rows[i - 1] + 1)) {
+                        fireTableRowsUpdated(rows[first], rows[i - 1]);
+                        first = i;
+                    }
+                }
+            }
         }
 
     }
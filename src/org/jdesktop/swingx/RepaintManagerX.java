@@ -21,7 +21,9 @@
 
 package org.jdesktop.swingx;
 
+import java.awt.Component;
 import java.awt.Point;
+import java.awt.Window;
 
 import javax.swing.JComponent;
 import javax.swing.RepaintManager;
@@ -57,6 +59,20 @@ public class RepaintManagerX extends ForwardingRepaintManager {
      */
     @Override
     public void addDirtyRegion(JComponent c, int x, int y, int w, int h) {
+        // nested panels redirect to the nearest translucent ancestor only,
+        // so every panel which may cache the content is notified here
+        int px = x;
+        int py = y;
+        
+        for (Component p = c; p != null && !(p instanceof Window); p = p.getParent()) {
+            if (p instanceof JXPanel) {
+                ((JXPanel) p).contentChanged(px, py, w, h);
+            }
+            
+            px += p.getX();
+            py += p.getY();
+        }
+
         AlphaPaintable alphaPaintable = (AlphaPaintable) SwingUtilities.getAncestorOfClass(AlphaPaintable.class, c);
         
         if (alphaPaintable != null && alphaPaintable.getAlpha() < 1f) {
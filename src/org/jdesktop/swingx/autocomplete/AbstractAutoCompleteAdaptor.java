@@ -20,6 +20,7 @@
  */
 package org.jdesktop.swingx.autocomplete;
 
+import javax.swing.ListModel;
 import javax.swing.text.JTextComponent;
 
 /**
@@ -81,6 +82,17 @@ public abstract class AbstractAutoCompleteAdaptor {
      */
     public abstract Object getItem(int index);
     
+    /**
+     * Returns the model holding the items, if any. An AutoCompleteDocument
+     * which indexes the items listens to this model to keep its index up to
+     * date. The default implementation returns <code>null</code>, meaning
+     * the items are not held in a ListModel.
+     * @return the ListModel holding the items, or <code>null</code>
+     */
+    protected ListModel<?> getListModel() {
+        return null;
+    }
+    
     /**
      * Returns true if the list contains the currently selected item.
      * @return true if the list contains the currently selected item.
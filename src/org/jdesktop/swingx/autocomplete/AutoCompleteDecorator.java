@@ -307,6 +307,39 @@ public class AutoCompleteDecorator {
         decorate(textComponent, document, adaptor);
     }
     
+    /**
+     * Enables automatic completion for the given JTextComponent based on the
+     * candidates of the given <tt>CandidateProvider</tt>. The provider is
+     * queried in the background while the user types, the candidates are
+     * shown in a popup list.
+     * @param textComponent the text component that will be used for automatic
+     * completion.
+     * @param provider the source of the candidates
+     * @return the completer installed on the text component
+     */
+    public static CandidateCompleter decorate(JTextComponent textComponent, CandidateProvider provider) {
+        return decorate(textComponent, provider, null);
+    }
+    
+    /**
+     * Enables automatic completion for the given JTextComponent based on the
+     * candidates of the given <tt>CandidateProvider</tt>. The provider is
+     * queried in the background while the user types, the candidates are
+     * shown in a popup list.
+     * @param textComponent the text component that will be used for automatic
+     * completion.
+     * @param provider the source of the candidates
+     * @param stringConverter the converter used to transform candidates to strings
+     * @return the completer installed on the text component
+     */
+    public static CandidateCompleter decorate(JTextComponent textComponent, CandidateProvider provider, ObjectToStringConverter stringConverter) {
+        undecorate(textComponent);
+        
+        CandidateCompleter completer = new CandidateCompleter(textComponent, provider, stringConverter);
+        completer.install();
+        return completer;
+    }
+    
     /**
      * Decorates a given text component for automatic completion using the
      * given AutoCompleteDocument and AbstractAutoCompleteAdaptor.
@@ -347,6 +380,12 @@ public class AutoCompleteDecorator {
     }
     
     static void undecorate(JTextComponent textComponent) {
+        CandidateCompleter completer = CandidateCompleter.getInstalled(textComponent);
+        
+        if (completer != null) {
+            completer.uninstall();
+        }
+        
         Document doc = textComponent.getDocument();
         
         if (doc instanceof AutoCompleteDocument) {
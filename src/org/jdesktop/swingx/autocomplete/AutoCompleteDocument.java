@@ -178,6 +178,9 @@ public class AutoCompleteDocument implements Document {
 
     private final Handler handler;
 
+    /** the index of the adaptor's items, null if not enabled */
+    private AutoCompleteIndex index;
+
     // Note: these comparators do not impose any ordering - e.g. they do not ensure that sgn(compare(x, y)) == -sgn(compare(y, x))
     private static final Comparator<String> EQUALS_IGNORE_CASE = new Comparator<String>() {
         @Override
@@ -372,24 +375,24 @@ public class AutoCompleteDocument implements Document {
 
         // first try: case sensitive
 
-        lookupResult = lookupItem(pattern, EQUALS);
+        lookupResult = lookupItem(pattern, EQUALS, false, false);
         if (lookupResult != null) return lookupResult;
 
         lookupResult = lookupOneItem(selectedItem, pattern, STARTS_WITH);
         if (lookupResult != null) return lookupResult;
 
-        lookupResult = lookupItem(pattern, STARTS_WITH);
+        lookupResult = lookupItem(pattern, STARTS_WITH, true, false);
         if (lookupResult != null) return lookupResult;
 
         // second try: ignore case
 
-        lookupResult = lookupItem(pattern, EQUALS_IGNORE_CASE);
+        lookupResult = lookupItem(pattern, EQUALS_IGNORE_CASE, false, true);
         if (lookupResult != null) return lookupResult;
 
         lookupResult = lookupOneItem(selectedItem, pattern, STARTS_WITH_IGNORE_CASE);
         if (lookupResult != null) return lookupResult;
 
-        lookupResult = lookupItem(pattern, STARTS_WITH_IGNORE_CASE);
+        lookupResult = lookupItem(pattern, STARTS_WITH_IGNORE_CASE, true, true);
         if (lookupResult != null) return lookupResult;
 
         // no item starts with the pattern => return null
@@ -408,7 +411,13 @@ public class AutoCompleteDocument implements Document {
         return null;
     }
 
-    private LookupResult lookupItem(String pattern, Comparator<String> comparator) {
+    private LookupResult lookupItem(String pattern, Comparator<String> comparator,
+            boolean prefix, boolean ignoreCase) {
+        if (index != null) {
+            long position = index.lookup(pattern, prefix, ignoreCase);
+            return position < 0 ? null
+                    : new LookupResult(index.getItem(position), index.getString(position));
+        }
         // iterate over all items and return first match
         for (int i = 0, n = adaptor.getItemCount(); i < n; i++) {
             Object currentItem = adaptor.getItem(i);
@@ -547,6 +556,51 @@ public class AutoCompleteDocument implements Document {
         delegate.render(r);
     }
 
+    /**
+     * Sets whether the adaptor's items are looked up in an index instead of
+     * being searched one by one. Indexing speeds up the completion of long lists
+     * at the cost of memory for the string representations of all items. <p>
+     * 
+     * The index is built on the first lookup. If the adaptor's items are held in a
+     * ListModel, the index is updated on changes of the model. Otherwise, changes of
+     * the items must be reported by {@link #invalidateIndex()}.
+     * 
+     * @param indexEnabled true to look up items in an index, false to search
+     *   them one by one
+     */
+    public void setIndexEnabled(boolean indexEnabled) {
+        if (indexEnabled == isIndexEnabled()) return;
+        if (indexEnabled) {
+            index = new AutoCompleteIndex(adaptor, stringConverter);
+        } else {
+            index.dispose();
+            index = null;
+        }
+    }
+
+    /**
+     * Returns whether the adaptor's items are looked up in an index.
+     * 
+     * @return true if items are looked up in an index, false if they are searched
+     *   one by one
+     * @see #setIndexEnabled(boolean)
+     */
+    public boolean isIndexEnabled() {
+        return index != null;
+    }
+
+    /**
+     * Flushes the index of the adaptor's items, if enabled. Must be called after changing
+     * items which are not held in a ListModel, like those of a TextComponentAdaptor.
+     * 
+     * @see #setIndexEnabled(boolean)
+     */
+    public void invalidateIndex() {
+        if (index != null) {
+            index.invalidate();
+        }
+    }
+
     /**
      * Returns if only items from the adaptor's list should be allowed to be entered.
      * @return if only items from the adaptor's list should be allowed to be entered
@@ -0,0 +1,489 @@
+/*
+ * $Id$
+ *
+ * Copyright 2009 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx.autocomplete;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import javax.swing.ListModel;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+
+/**
+ * A prefix index over the string representations of an adaptor's items. Used
+ * by AutoCompleteDocument to find matching items without converting and
+ * comparing all items on every keystroke.
+ * <p>
+ * The strings are kept in two sorted arrays, one with the strings as is and
+ * one with the strings folded to a single case. All strings starting with a
+ * pattern are a contiguous range in such an array. A tree of minimal item
+ * indices over the sorted array gives the first item of the range in list
+ * order, so lookups return the same item as a linear search.
+ * <p>
+ * If the adaptor's items are held in a ListModel, the index is updated on
+ * ListDataEvents, converting the changed items only. Otherwise, it is rebuilt
+ * if the number of items changes or a found item has been replaced. Changes
+ * of items which don't change the number of items must be reported by
+ * {@link #invalidate()}.
+ *
+ * @see AutoCompleteDocument#setIndexEnabled(boolean)
+ */
+final class AutoCompleteIndex implements ListDataListener {
+
+    /** the adaptor to index the items of */
+    private final AbstractAutoCompleteAdaptor adaptor;
+
+    /** the converter used to transform items to strings */
+    private final ObjectToStringConverter stringConverter;
+
+    /** the model listened to, if any */
+    private ListModel<?> model;
+
+    /** the indexed items and their strings, in list order */
+    private Object[] items = new Object[0];
+    private String[][] strings = new String[0][];
+    private int itemCount;
+
+    private SortedKeys exact;
+    private SortedKeys folded;
+
+    private boolean valid;
+
+    /**
+     * Creates an index over the items of the given adaptor. The index is built
+     * on the first lookup.
+     *
+     * @param adaptor the adaptor to index the items of
+     * @param stringConverter the converter used to transform items to strings
+     */
+    AutoCompleteIndex(AbstractAutoCompleteAdaptor adaptor, ObjectToStringConverter stringConverter) {
+        this.adaptor = adaptor;
+        this.stringConverter = stringConverter;
+    }
+
+    /**
+     * Returns the position of the first item, in list order, with a string
+     * equal to or starting with the given pattern.
+     *
+     * @param pattern the pattern to match
+     * @param prefix true to match strings starting with the pattern, false to
+     *   match strings equal to the pattern
+     * @param ignoreCase true to ignore the case
+     * @return the position of the matching string, or -1 if no item matches
+     * @see #getItem(long)
+     * @see #getString(long)
+     */
+    long lookup(String pattern, boolean prefix, boolean ignoreCase) {
+        ensureValid();
+        long position = find(pattern, prefix, ignoreCase);
+        if (position < 0 || getItem(position) == adaptor.getItem((int) (position >>> 32))) {
+            return position;
+        }
+        // a found item has been replaced without notification
+        invalidate();
+        ensureValid();
+        return find(pattern, prefix, ignoreCase);
+    }
+
+    /**
+     * @param position a position returned by lookup
+     * @return the item at the given position
+     */
+    Object getItem(long position) {
+        return items[(int) (position >>> 32)];
+    }
+
+    /**
+     * @param position a position returned by lookup
+     * @return the matching string at the given position
+     */
+    String getString(long position) {
+        return strings[(int) (position >>> 32)][(int) position];
+    }
+
+    private long find(String pattern, boolean prefix, boolean ignoreCase) {
+        SortedKeys keys = ignoreCase ? folded : exact;
+        return keys.find(ignoreCase ? fold(pattern) : pattern, prefix);
+    }
+
+    /**
+     * Flushes the index, it is rebuilt on the next lookup.
+     */
+    void invalidate() {
+        valid = false;
+    }
+
+    /**
+     * Stops listening to the adaptor's model and releases the index.
+     */
+    void dispose() {
+        setModel(null);
+        items = new Object[0];
+        strings = new String[0][];
+        itemCount = 0;
+        exact = null;
+        folded = null;
+        valid = false;
+    }
+
+    private void ensureValid() {
+        ListModel<?> current = adaptor.getListModel();
+        if (current != model) {
+            setModel(current);
+            valid = false;
+        }
+        if (valid && itemCount == adaptor.getItemCount()) return;
+        build();
+    }
+
+    private void setModel(ListModel<?> model) {
+        if (this.model != null) {
+            this.model.removeListDataListener(this);
+        }
+        this.model = model;
+        if (model != null) {
+            model.addListDataListener(this);
+        }
+    }
+
+    private void build() {
+        itemCount = adaptor.getItemCount();
+        items = new Object[itemCount];
+        strings = new String[itemCount][];
+        for (int i = 0; i < itemCount; i++) {
+            items[i] = adaptor.getItem(i);
+            strings[i] = convert(items[i]);
+        }
+        exact = new SortedKeys(false);
+        exact.build(strings, itemCount);
+        folded = new SortedKeys(true);
+        folded.build(strings, itemCount);
+        valid = true;
+    }
+
+    private String[] convert(Object item) {
+        String[] possibleStrings = stringConverter.getPossibleStringsForItem(item);
+        return possibleStrings == null ? new String[0] : possibleStrings;
+    }
+
+//------------------ ListDataListener: update incrementally
+
+    @Override
+    public void intervalAdded(ListDataEvent e) {
+        if (!valid) return;
+        int first = Math.min(e.getIndex0(), e.getIndex1());
+        int count = Math.abs(e.getIndex1() - e.getIndex0()) + 1;
+        if (first < 0 || first > itemCount) {
+            invalidate();
+            return;
+        }
+        insertItems(first, count);
+        checkSize();
+    }
+
+    @Override
+    public void intervalRemoved(ListDataEvent e) {
+        if (!valid) return;
+        int first = Math.min(e.getIndex0(), e.getIndex1());
+        int count = Math.abs(e.getIndex1() - e.getIndex0()) + 1;
+        if (first < 0 || first + count > itemCount) {
+            invalidate();
+            return;
+        }
+        removeItems(first, count);
+        checkSize();
+    }
+
+    @Override
+    public void contentsChanged(ListDataEvent e) {
+        if (!valid) return;
+        // combo box models report selection changes with negative indices
+        if (e.getIndex0() < 0 && e.getIndex1() < 0) return;
+        int first = Math.min(e.getIndex0(), e.getIndex1());
+        int count = Math.abs(e.getIndex1() - e.getIndex0()) + 1;
+        if (first < 0 || first + count > itemCount) {
+            invalidate();
+            return;
+        }
+        removeItems(first, count);
+        insertItems(first, count);
+        checkSize();
+    }
+
+    private void checkSize() {
+        if (model != null && model.getSize() != itemCount) {
+            invalidate();
+        }
+    }
+
+    private void insertItems(int first, int count) {
+        if (model == null || first + count > model.getSize()) {
+            invalidate();
+            return;
+        }
+        if (itemCount + count > items.length) {
+            int capacity = Math.max(itemCount + count, items.length + (items.length >> 1));
+            items = Arrays.copyOf(items, capacity);
+            strings = Arrays.copyOf(strings, capacity);
+        }
+        System.arraycopy(items, first, items, first + count, itemCount - first);
+        System.arraycopy(strings, first, strings, first + count, itemCount - first);
+        for (int i = first; i < first + count; i++) {
+            items[i] = model.getElementAt(i);
+            strings[i] = convert(items[i]);
+        }
+        itemCount += count;
+        exact.insertItems(first, count, strings);
+        folded.insertItems(first, count, strings);
+    }
+
+    private void removeItems(int first, int count) {
+        System.arraycopy(items, first + count, items, first, itemCount - first - count);
+        System.arraycopy(strings, first + count, strings, first, itemCount - first - count);
+        Arrays.fill(items, itemCount - count, itemCount, null);
+        Arrays.fill(strings, itemCount - count, itemCount, null);
+        itemCount -= count;
+        exact.removeItems(first, count);
+        folded.removeItems(first, count);
+    }
+
+    /**
+     * Folds the given string to a single case, character by character the
+     * same way as <code>String.regionMatches(true, ...)</code>.
+     *
+     * @param s the string to fold
+     * @return the folded string, the same instance if already folded
+     */
+    static String fold(String s) {
+        char[] chars = null;
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            char f = Character.toLowerCase(Character.toUpperCase(c));
+            if (f != c) {
+                if (chars == null) {
+                    chars = s.toCharArray();
+                }
+                chars[i] = f;
+            }
+        }
+        return chars == null ? s : new String(chars);
+    }
+
+    /**
+     * The strings of all items in sorted order. The position of a string is
+     * the index of its item shifted left by 32 plus the index of the string
+     * in the item's possible strings.
+     */
+    private static final class SortedKeys {
+        private static final Comparator<Entry> ORDER = new Comparator<Entry>() {
+            @Override
+            public int compare(Entry e1, Entry e2) {
+                int result = e1.key.compareTo(e2.key);
+                return result != 0 ? result : Long.compare(e1.position, e2.position);
+            }
+        };
+
+        private final boolean folding;
+
+        private String[] keys = new String[0];
+        private long[] positions = new long[0];
+        private int size;
+
+        /** minimal positions of ranges of the sorted keys, as an implicit binary tree */
+        private long[] tree = new long[0];
+
+        SortedKeys(boolean folding) {
+            this.folding = folding;
+        }
+
+        void build(String[][] strings, int itemCount) {
+            Entry[] entries = createEntries(strings, 0, itemCount);
+            keys = new String[entries.length];
+            positions = new long[entries.length];
+            size = entries.length;
+            for (int i = 0; i < size; i++) {
+                keys[i] = entries[i].key;
+                positions[i] = entries[i].position;
+            }
+            buildTree();
+        }
+
+        void insertItems(int first, int count, String[][] strings) {
+            long shift = (long) count << 32;
+            long firstPosition = (long) first << 32;
+            for (int i = 0; i < size; i++) {
+                if (positions[i] >= firstPosition) {
+                    positions[i] += shift;
+                }
+            }
+            Entry[] entries = createEntries(strings, first, first + count);
+            String[] mergedKeys = new String[size + entries.length];
+            long[] mergedPositions = new long[mergedKeys.length];
+            int i = 0, j = 0, k = 0;
+            while (i < size || j < entries.length) {
+                boolean takeOld;
+                if (j == entries.length) {
+                    takeOld = true;
+                } else if (i == size) {
+                    takeOld = false;
+                } else {
+                    int result = keys[i].compareTo(entries[j].key);
+                    takeOld = result < 0 || (result == 0 && positions[i] < entries[j].position);
+                }
+                if (takeOld) {
+                    mergedKeys[k] = keys[i];
+                    mergedPositions[k++] = positions[i++];
+                } else {
+                    mergedKeys[k] = entries[j].key;
+                    mergedPositions[k++] = entries[j++].position;
+                }
+            }
+            keys = mergedKeys;
+            positions = mergedPositions;
+            size = k;
+            buildTree();
+        }
+
+        void removeItems(int first, int count) {
+            long shift = (long) count << 32;
+            long firstPosition = (long) first << 32;
+            long endPosition = (long) (first + count) << 32;
+            int k = 0;
+            for (int i = 0; i < size; i++) {
+                long position = positions[i];
+                if (position >= firstPosition && position < endPosition) continue;
+                keys[k] = keys[i];
+                positions[k++] = position >= endPosition ? position - shift : position;
+            }
+            Arrays.fill(keys, k, size, null);
+            size = k;
+            buildTree();
+        }
+
+        /**
+         * Returns the minimal position of the strings equal to or starting
+         * with the given pattern, or -1 if none.
+         */
+        long find(String pattern, boolean prefix) {
+            int low = lowerBound(pattern);
+            int high = prefix ? prefixEnd(pattern, low) : equalEnd(pattern, low);
+            return low < high ? minimum(low, high) : -1;
+        }
+
+        private Entry[] createEntries(String[][] strings, int firstItem, int endItem) {
+            int count = 0;
+            for (int i = firstItem; i < endItem; i++) {
+                count += strings[i].length;
+            }
+            Entry[] entries = new Entry[count];
+            int k = 0;
+            for (int i = firstItem; i < endItem; i++) {
+                for (int j = 0; j < strings[i].length; j++) {
+                    // null strings never match
+                    if (strings[i][j] == null) continue;
+                    String key = folding ? fold(strings[i][j]) : strings[i][j];
+                    entries[k++] = new Entry(key, ((long) i << 32) | j);
+                }
+            }
+            if (k < count) {
+                entries = Arrays.copyOf(entries, k);
+            }
+            Arrays.sort(entries, ORDER);
+            return entries;
+        }
+
+        /** first index with a key not less than the pattern */
+        private int lowerBound(String pattern) {
+            int low = 0, high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (keys[middle].compareTo(pattern) < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        /** first index from low with a key not starting with the pattern */
+        private int prefixEnd(String pattern, int low) {
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (keys[middle].startsWith(pattern)) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        /** first index from low with a key not equal to the pattern */
+        private int equalEnd(String pattern, int low) {
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (keys[middle].equals(pattern)) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        private void buildTree() {
+            if (tree.length < 2 * size || tree.length > 4 * size) {
+                tree = new long[2 * size];
+            }
+            System.arraycopy(positions, 0, tree, size, size);
+            for (int i = size - 1; i > 0; i--) {
+                tree[i] = Math.min(tree[2 * i], tree[2 * i + 1]);
+            }
+        }
+
+        /** the minimal position of the keys from low (inclusive) to high (exclusive) */
+        private long minimum(int low, int high) {
+            long result = Long.MAX_VALUE;
+            for (low += size, high += size; low < high; low >>= 1, high >>= 1) {
+                if ((low & 1) == 1) {
+                    result = Math.min(result, tree[low++]);
+                }
+                if ((high & 1) == 1) {
+                    result = Math.min(result, tree[--high]);
+                }
+            }
+            return result;
+        }
+    }
+
+    private static final class Entry {
+        final String key;
+        final long position;
+
+        Entry(String key, long position) {
+            this.key = key;
+            this.position = position;
+        }
+    }
+}
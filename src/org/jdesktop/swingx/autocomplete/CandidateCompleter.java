@@ -0,0 +1,648 @@
+/*
+ * $Id$
+ *
+ * Copyright 2009 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx.autocomplete;
+
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.FocusEvent;
+import java.awt.event.FocusListener;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.swing.AbstractAction;
+import javax.swing.Action;
+import javax.swing.DefaultListCellRenderer;
+import javax.swing.DefaultListModel;
+import javax.swing.InputMap;
+import javax.swing.JList;
+import javax.swing.JPopupMenu;
+import javax.swing.JScrollPane;
+import javax.swing.KeyStroke;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.Document;
+import javax.swing.text.JTextComponent;
+
+import org.jdesktop.swingx.util.Contract;
+
+/**
+ * Completes the text of a text component with candidates of a
+ * {@link CandidateProvider}. The candidates are shown in a popup list below
+ * the text component, the arrow keys select a candidate, enter accepts it and
+ * escape hides the popup.
+ * <p>
+ * The provider is queried on a background thread after the user paused
+ * typing for the {@link #getDelay() delay}. A query which is still running
+ * when the text changes is cancelled and its result discarded. The results
+ * of the most recent queries are cached by text, so deleting characters or
+ * typing the same text again doesn't query the provider.
+ * <p>
+ * Completers are installed by
+ * {@link AutoCompleteDecorator#decorate(JTextComponent, CandidateProvider, ObjectToStringConverter)}.
+ * All methods must be called on the EDT.
+ *
+ * @see RankedCandidateProvider
+ */
+public class CandidateCompleter {
+    /**
+     * The default delay in milliseconds between the last change of the text
+     * and the query of the provider.
+     */
+    public static final int DEFAULT_DELAY = 150;
+
+    /**
+     * The default maximal number of candidates shown.
+     */
+    public static final int DEFAULT_MAX_CANDIDATES = 20;
+
+    /**
+     * The default number of query results cached.
+     */
+    public static final int DEFAULT_CACHE_SIZE = 64;
+
+    private static final Logger LOG = Logger.getLogger(CandidateCompleter.class.getName());
+
+    private static final String CLIENT_PROPERTY = "AutoComplete.candidateCompleter";
+
+    private static final int VISIBLE_ROWS = 8;
+
+    private final JTextComponent textComponent;
+    private final CandidateProvider provider;
+    private final ObjectToStringConverter stringConverter;
+
+    private final Timer timer;
+    private final Map<String, List<?>> cache;
+    private final Handler handler;
+    private final Map<KeyStroke, Object> replacedBindings;
+
+    private final DefaultListModel<Object> model;
+    private final JList<Object> list;
+    private final JScrollPane scrollPane;
+    private final JPopupMenu popup;
+
+    private int maxCandidates = DEFAULT_MAX_CANDIDATES;
+    private int cacheSize = DEFAULT_CACHE_SIZE;
+    private int minimumLength = 1;
+
+    private SwingWorker<List<?>, Void> worker;
+    // incremented with every change of the text, identifies outdated queries
+    private int generation;
+    // true while the text is set to an accepted candidate
+    private boolean accepting;
+
+    CandidateCompleter(JTextComponent textComponent, CandidateProvider provider,
+            ObjectToStringConverter stringConverter) {
+        this.textComponent = Contract.asNotNull(textComponent, "textComponent cannot be null");
+        this.provider = Contract.asNotNull(provider, "provider cannot be null");
+        this.stringConverter = stringConverter == null
+                ? ObjectToStringConverter.DEFAULT_IMPLEMENTATION : stringConverter;
+        handler = new Handler();
+        replacedBindings = new LinkedHashMap<KeyStroke, Object>();
+        cache = new LinkedHashMap<String, List<?>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<?>> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        timer = new Timer(DEFAULT_DELAY, handler);
+        timer.setRepeats(false);
+
+        model = new DefaultListModel<Object>();
+        list = new JList<Object>(model);
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.setFocusable(false);
+        list.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value,
+                    int index, boolean isSelected, boolean cellHasFocus) {
+                return super.getListCellRendererComponent(list,
+                        CandidateCompleter.this.stringConverter.getPreferredStringForItem(value),
+                        index, isSelected, cellHasFocus);
+            }
+        });
+        list.addMouseListener(handler);
+        scrollPane = new JScrollPane(list);
+        scrollPane.setBorder(null);
+        scrollPane.getVerticalScrollBar().setFocusable(false);
+        popup = new JPopupMenu();
+        popup.setFocusable(false);
+        popup.add(scrollPane);
+    }
+
+    /**
+     * Returns the completer installed on the given text component, or null.
+     */
+    static CandidateCompleter getInstalled(JTextComponent textComponent) {
+        Object completer = textComponent.getClientProperty(CLIENT_PROPERTY);
+        return completer instanceof CandidateCompleter ? (CandidateCompleter) completer : null;
+    }
+
+    void install() {
+        textComponent.putClientProperty(CLIENT_PROPERTY, this);
+        textComponent.getDocument().addDocumentListener(handler);
+        textComponent.addPropertyChangeListener("document", handler);
+        textComponent.addFocusListener(handler);
+        installAction(KeyStroke.getKeyStroke(KeyEvent.VK_DOWN, 0), new SelectAction("candidate-next", 1));
+        installAction(KeyStroke.getKeyStroke(KeyEvent.VK_UP, 0), new SelectAction("candidate-previous", -1));
+        installAction(KeyStroke.getKeyStroke(KeyEvent.VK_PAGE_DOWN, 0),
+                new SelectAction("candidate-next-page", VISIBLE_ROWS));
+        installAction(KeyStroke.getKeyStroke(KeyEvent.VK_PAGE_UP, 0),
+                new SelectAction("candidate-previous-page", -VISIBLE_ROWS));
+        installAction(KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0), new AcceptAction());
+        installAction(KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), new HideAction());
+    }
+
+    /**
+     * Removes this completer from its text component. Stops all pending
+     * queries and restores the key bindings of the text component.
+     */
+    public void uninstall() {
+        if (getInstalled(textComponent) != this) {
+            return;
+        }
+        cancelQuery();
+        hidePopup();
+        textComponent.putClientProperty(CLIENT_PROPERTY, null);
+        textComponent.getDocument().removeDocumentListener(handler);
+        textComponent.removePropertyChangeListener("document", handler);
+        textComponent.removeFocusListener(handler);
+        InputMap inputMap = textComponent.getInputMap();
+        for (Map.Entry<KeyStroke, Object> entry : replacedBindings.entrySet()) {
+            CandidateAction action = (CandidateAction) textComponent.getActionMap().get(
+                    inputMap.get(entry.getKey()));
+            if (action != null) {
+                textComponent.getActionMap().remove(action.getValue(Action.NAME));
+            }
+            if (entry.getValue() == null) {
+                inputMap.remove(entry.getKey());
+            } else {
+                inputMap.put(entry.getKey(), entry.getValue());
+            }
+        }
+        replacedBindings.clear();
+    }
+
+    /**
+     * Binds the given action to the given key stroke. The action delegates to
+     * the action bound before while the popup is hidden.
+     */
+    private void installAction(KeyStroke keyStroke, CandidateAction action) {
+        InputMap inputMap = textComponent.getInputMap();
+        Object localBinding = null;
+        KeyStroke[] keys = inputMap.keys();
+        if (keys != null) {
+            for (KeyStroke key : keys) {
+                if (key.equals(keyStroke)) {
+                    localBinding = inputMap.get(key);
+                }
+            }
+        }
+        replacedBindings.put(keyStroke, localBinding);
+        action.delegateBinding = inputMap.get(keyStroke);
+        inputMap.put(keyStroke, action.getValue(Action.NAME));
+        textComponent.getActionMap().put(action.getValue(Action.NAME), action);
+    }
+
+    /**
+     * Returns the text component completed by this completer.
+     *
+     * @return the text component
+     */
+    public JTextComponent getTextComponent() {
+        return textComponent;
+    }
+
+    /**
+     * Returns the provider of the candidates.
+     *
+     * @return the candidate provider
+     */
+    public CandidateProvider getCandidateProvider() {
+        return provider;
+    }
+
+    /**
+     * Returns the delay in milliseconds between the last change of the text
+     * and the query of the provider.
+     *
+     * @return the delay in milliseconds
+     */
+    public int getDelay() {
+        return timer.getInitialDelay();
+    }
+
+    /**
+     * Sets the delay in milliseconds between the last change of the text and
+     * the query of the provider. Cached results are shown without delay.
+     *
+     * @param delay the delay in milliseconds
+     * @throws IllegalArgumentException if <code>delay</code> is negative
+     */
+    public void setDelay(int delay) {
+        if (delay < 0) {
+            throw new IllegalArgumentException("delay must be >= 0 but was: " + delay);
+        }
+        timer.setInitialDelay(delay);
+        timer.setDelay(delay);
+    }
+
+    /**
+     * Returns the maximal number of candidates queried and shown.
+     *
+     * @return the maximal number of candidates
+     */
+    public int getMaxCandidates() {
+        return maxCandidates;
+    }
+
+    /**
+     * Sets the maximal number of candidates queried and shown. Clears the
+     * cache.
+     *
+     * @param maxCandidates the maximal number of candidates
+     * @throws IllegalArgumentException if <code>maxCandidates</code> is &lt; 1
+     */
+    public void setMaxCandidates(int maxCandidates) {
+        if (maxCandidates < 1) {
+            throw new IllegalArgumentException("maxCandidates must be > 0 but was: " + maxCandidates);
+        }
+        this.maxCandidates = maxCandidates;
+        clearCache();
+    }
+
+    /**
+     * Returns the number of query results cached.
+     *
+     * @return the number of query results cached
+     */
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    /**
+     * Sets the number of query results cached. The least recently used
+     * results are evicted first. A size of 0 disables caching.
+     *
+     * @param cacheSize the number of query results to cache
+     * @throws IllegalArgumentException if <code>cacheSize</code> is negative
+     */
+    public void setCacheSize(int cacheSize) {
+        if (cacheSize < 0) {
+            throw new IllegalArgumentException("cacheSize must be >= 0 but was: " + cacheSize);
+        }
+        this.cacheSize = cacheSize;
+        while (cache.size() > cacheSize) {
+            cache.remove(cache.keySet().iterator().next());
+        }
+    }
+
+    /**
+     * Evicts all cached query results. Must be called if the candidates of the
+     * provider change.
+     */
+    public void clearCache() {
+        cache.clear();
+    }
+
+    /**
+     * Returns the minimal length of the text for which the provider is
+     * queried.
+     *
+     * @return the minimal length of the text
+     */
+    public int getMinimumLength() {
+        return minimumLength;
+    }
+
+    /**
+     * Sets the minimal length of the text for which the provider is queried.
+     * Shorter texts hide the popup. The default is 1.
+     *
+     * @param minimumLength the minimal length of the text
+     * @throws IllegalArgumentException if <code>minimumLength</code> is negative
+     */
+    public void setMinimumLength(int minimumLength) {
+        if (minimumLength < 0) {
+            throw new IllegalArgumentException("minimumLength must be >= 0 but was: " + minimumLength);
+        }
+        this.minimumLength = minimumLength;
+    }
+
+    /**
+     * Returns the candidates of the current text, best matches first. The
+     * list is empty while a query is pending.
+     *
+     * @return the current candidates
+     */
+    public List<?> getCandidates() {
+        return Collections.unmodifiableList(Collections.list(model.elements()));
+    }
+
+    /**
+     * Returns true while the provider is queried.
+     *
+     * @return true if a query is pending
+     */
+    public boolean isQueryPending() {
+        return timer.isRunning() || worker != null;
+    }
+
+    //------- querying
+
+    private void textChanged() {
+        if (accepting) {
+            return;
+        }
+        cancelQuery();
+        model.clear();
+        String text = textComponent.getText();
+        if (text.length() < minimumLength) {
+            hidePopup();
+            return;
+        }
+        List<?> cached = cache.get(text);
+        if (cached != null) {
+            showCandidates(cached);
+        } else {
+            timer.restart();
+        }
+    }
+
+    private void cancelQuery() {
+        generation++;
+        timer.stop();
+        if (worker != null) {
+            worker.cancel(true);
+            worker = null;
+        }
+    }
+
+    private void query() {
+        final String text = textComponent.getText();
+        final int maxCount = maxCandidates;
+        final int queried = generation;
+        worker = new SwingWorker<List<?>, Void>() {
+            @Override
+            protected List<?> doInBackground() throws Exception {
+                List<?> candidates = provider.getCandidates(text, maxCount);
+                if (candidates == null) {
+                    return Collections.emptyList();
+                }
+                if (candidates.size() > maxCount) {
+                    candidates = candidates.subList(0, maxCount);
+                }
+                return Collections.unmodifiableList(new ArrayList<Object>(candidates));
+            }
+
+            @Override
+            protected void done() {
+                if (queried != generation) {
+                    return;
+                }
+                worker = null;
+                try {
+                    List<?> candidates = get();
+                    if (cacheSize > 0) {
+                        cache.put(text, candidates);
+                    }
+                    showCandidates(candidates);
+                } catch (CancellationException e) {
+                    // outdated
+                } catch (InterruptedException e) {
+                    // outdated
+                } catch (ExecutionException e) {
+                    LOG.log(Level.WARNING, "candidates of \"" + text + "\" not available", e.getCause());
+                    hidePopup();
+                }
+            }
+        };
+        worker.execute();
+    }
+
+    //------- popup
+
+    private void showCandidates(List<?> candidates) {
+        model.clear();
+        for (Object candidate : candidates) {
+            model.addElement(candidate);
+        }
+        if (model.isEmpty() || !textComponent.isShowing()) {
+            hidePopup();
+            return;
+        }
+        list.setVisibleRowCount(Math.min(model.size(), VISIBLE_ROWS));
+        list.clearSelection();
+        scrollPane.setPreferredSize(null);
+        Dimension size = scrollPane.getPreferredSize();
+        size.width = Math.max(size.width, textComponent.getWidth());
+        scrollPane.setPreferredSize(size);
+        popup.pack();
+        popup.show(textComponent, 0, textComponent.getHeight());
+    }
+
+    private void hidePopup() {
+        popup.setVisible(false);
+    }
+
+    private void select(int offset) {
+        int index = list.getSelectedIndex();
+        if (index < 0) {
+            index = offset > 0 ? 0 : model.size() - 1;
+        } else {
+            index = Math.max(0, Math.min(model.size() - 1, index + offset));
+        }
+        list.setSelectedIndex(index);
+        list.ensureIndexIsVisible(index);
+    }
+
+    private void accept(Object candidate) {
+        cancelQuery();
+        hidePopup();
+        accepting = true;
+        try {
+            textComponent.setText(stringConverter.getPreferredStringForItem(candidate));
+        } finally {
+            accepting = false;
+        }
+    }
+
+    //------- actions
+
+    /**
+     * An action of the popup which delegates to the action bound before while
+     * the popup is hidden.
+     */
+    private abstract class CandidateAction extends AbstractAction {
+        Object delegateBinding;
+
+        CandidateAction(String name) {
+            super(name);
+        }
+
+        private Action getDelegate() {
+            return delegateBinding == null ? null
+                    : textComponent.getActionMap().get(delegateBinding);
+        }
+
+        @Override
+        public boolean isEnabled() {
+            if (popup.isVisible()) {
+                return true;
+            }
+            Action delegate = getDelegate();
+            return delegate != null && delegate.isEnabled();
+        }
+
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            if (popup.isVisible()) {
+                popupActionPerformed(e);
+            } else {
+                Action delegate = getDelegate();
+                if (delegate != null) {
+                    delegate.actionPerformed(e);
+                }
+            }
+        }
+
+        abstract void popupActionPerformed(ActionEvent e);
+    }
+
+    private class SelectAction extends CandidateAction {
+        private final int offset;
+
+        SelectAction(String name, int offset) {
+            super(name);
+            this.offset = offset;
+        }
+
+        @Override
+        void popupActionPerformed(ActionEvent e) {
+            select(offset);
+        }
+    }
+
+    private class AcceptAction extends CandidateAction {
+        AcceptAction() {
+            super("candidate-accept");
+        }
+
+        @Override
+        void popupActionPerformed(ActionEvent e) {
+            Object candidate = list.getSelectedValue();
+            if (candidate != null) {
+                accept(candidate);
+            } else {
+                hidePopup();
+            }
+        }
+    }
+
+    private class HideAction extends CandidateAction {
+        HideAction() {
+            super("candidate-hide");
+        }
+
+        @Override
+        void popupActionPerformed(ActionEvent e) {
+            cancelQuery();
+            hidePopup();
+        }
+    }
+
+    /**
+     * Listens to the text component, its document, the list and the timer.
+     */
+    private class Handler extends MouseAdapter implements DocumentListener,
+            PropertyChangeListener, FocusListener, ActionListener {
+        @Override
+        public void insertUpdate(DocumentEvent e) {
+            textChanged();
+        }
+
+        @Override
+        public void removeUpdate(DocumentEvent e) {
+            textChanged();
+        }
+
+        @Override
+        public void changedUpdate(DocumentEvent e) {
+            // attributes only
+        }
+
+        @Override
+        public void propertyChange(PropertyChangeEvent evt) {
+            if (evt.getOldValue() instanceof Document) {
+                ((Document) evt.getOldValue()).removeDocumentListener(this);
+            }
+            if (evt.getNewValue() instanceof Document) {
+                ((Document) evt.getNewValue()).addDocumentListener(this);
+            }
+            textChanged();
+        }
+
+        @Override
+        public void focusGained(FocusEvent e) {
+            // nothing to do
+        }
+
+        @Override
+        public void focusLost(FocusEvent e) {
+            if (!e.isTemporary()) {
+                cancelQuery();
+                hidePopup();
+            }
+        }
+
+        /**
+         * Queries the provider when the delay expired.
+         */
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            query();
+        }
+
+        @Override
+        public void mouseClicked(MouseEvent e) {
+            int index = list.locationToIndex(e.getPoint());
+            if (index >= 0) {
+                accept(model.getElementAt(index));
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * $Id$
+ *
+ * Copyright 2009 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx.autocomplete;
+
+import java.util.List;
+
+/**
+ * A source of completion candidates for text typed into a text component.
+ * Unlike an AbstractAutoCompleteAdaptor, a provider does not need to hold all
+ * items in memory: it is queried with the typed text and returns the best
+ * matching candidates only, f.i. from a database or a remote service.
+ * <p>
+ * Providers are called by a {@link CandidateCompleter} on a background thread,
+ * one query at a time per completer. A query which is outdated because the user
+ * kept on typing is cancelled by interrupting the calling thread. Long running
+ * implementations should check {@link Thread#isInterrupted()} and give up early.
+ *
+ * @see AutoCompleteDecorator#decorate(javax.swing.text.JTextComponent, CandidateProvider)
+ * @see RankedCandidateProvider
+ */
+public interface CandidateProvider {
+
+    /**
+     * Returns the candidates matching the given text, best matches first.
+     * Called on a background thread.
+     *
+     * @param text the text typed by the user, never null
+     * @param maxCount the maximal number of candidates to return
+     * @return the matching candidates, best matches first. May be empty but not null.
+     * @throws Exception if the candidates can't be retrieved. An
+     *   InterruptedException signals that the query has been cancelled.
+     */
+    List<?> getCandidates(String text, int maxCount) throws Exception;
+
+}
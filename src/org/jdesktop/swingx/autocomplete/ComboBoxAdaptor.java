@@ -27,6 +27,7 @@ import java.awt.event.ActionListener;
 import javax.accessibility.Accessible;
 import javax.swing.JComboBox;
 import javax.swing.JList;
+import javax.swing.ListModel;
 import javax.swing.plaf.basic.ComboPopup;
 import javax.swing.text.JTextComponent;
 
@@ -111,6 +112,11 @@ public class ComboBoxAdaptor extends AbstractAutoCompleteAdaptor implements Acti
         return comboBox.getModel().getSelectedItem();
     }
     
+    @Override
+    protected ListModel<?> getListModel() {
+        return comboBox.getModel();
+    }
+    
     @Override
     public JTextComponent getTextComponent() {
         // returning the component of the combobox's editor
@@ -0,0 +1,255 @@
+/*
+ * $Id$
+ *
+ * Copyright 2009 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx.autocomplete;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.jdesktop.swingx.util.Contract;
+
+/**
+ * A CandidateProvider which ranks the items of a fixed collection against the
+ * typed text. Matching ignores case. Depending on the {@link Ranking}, the
+ * text must be a prefix, a substring or a subsequence of the preferred string
+ * of an item.
+ * <p>
+ * Prefix queries are answered by a binary search over the sorted strings, the
+ * other rankings scan all strings and keep the best matches only. Scans check
+ * for interruption regularly, so a cancelled query stops early. The provider
+ * is immutable and can be shared by several completers.
+ *
+ * @see CandidateCompleter
+ */
+public class RankedCandidateProvider implements CandidateProvider {
+
+    /**
+     * How the typed text is matched against the strings of the items.
+     */
+    public enum Ranking {
+        /**
+         * The string must start with the text. Matches are ordered
+         * alphabetically.
+         */
+        PREFIX,
+        /**
+         * The string must contain the text. Earlier and shorter matches
+         * rank first.
+         */
+        SUBSTRING,
+        /**
+         * The string must contain the characters of the text in order, not
+         * necessarily adjacent. Matches with fewer and smaller gaps rank first.
+         */
+        FUZZY
+    }
+
+    /** the number of strings scanned between checks for interruption */
+    private static final int CHECK_INTERVAL = 1 << 14;
+
+    private static final int MAX_SCORE = 0x7FFF;
+
+    private final Ranking ranking;
+    private final Object[] items;
+    private final String[] keys;
+    /** the item indices in order of their keys, for prefix queries only */
+    private final int[] order;
+
+    /**
+     * Creates a provider with prefix ranking of the given items, using the
+     * default string converter.
+     *
+     * @param items the items to complete
+     */
+    public RankedCandidateProvider(Collection<?> items) {
+        this(items, null, Ranking.PREFIX);
+    }
+
+    /**
+     * Creates a provider of the given items.
+     *
+     * @param items the items to complete
+     * @param stringConverter the converter used to transform items to strings,
+     *   or null to use the default converter
+     * @param ranking how to match and rank the items
+     */
+    public RankedCandidateProvider(Collection<?> items, ObjectToStringConverter stringConverter,
+            Ranking ranking) {
+        Contract.asNotNull(items, "items cannot be null");
+        this.ranking = Contract.asNotNull(ranking, "ranking cannot be null");
+        if (stringConverter == null) {
+            stringConverter = ObjectToStringConverter.DEFAULT_IMPLEMENTATION;
+        }
+        this.items = items.toArray();
+        keys = new String[this.items.length];
+        for (int i = 0; i < keys.length; i++) {
+            String s = stringConverter.getPreferredStringForItem(this.items[i]);
+            keys[i] = AutoCompleteIndex.fold(s == null ? "" : s);
+        }
+        order = ranking == Ranking.PREFIX ? sortedOrder(keys) : null;
+    }
+
+    /**
+     * Returns how the typed text is matched against the items.
+     *
+     * @return the ranking of this provider
+     */
+    public Ranking getRanking() {
+        return ranking;
+    }
+
+    /**
+     * Returns the number of items of this provider.
+     *
+     * @return the number of items
+     */
+    public int getItemCount() {
+        return items.length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<?> getCandidates(String text, int maxCount) throws InterruptedException {
+        if (maxCount <= 0) {
+            return Collections.emptyList();
+        }
+        String pattern = AutoCompleteIndex.fold(text);
+        if (ranking == Ranking.PREFIX) {
+            return findPrefixed(pattern, maxCount);
+        }
+        return findRanked(pattern, maxCount);
+    }
+
+    private List<Object> findPrefixed(String pattern, int maxCount) {
+        int low = 0;
+        int high = order.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[order[mid]].compareTo(pattern) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        List<Object> result = new ArrayList<Object>();
+        for (int i = low; i < order.length && result.size() < maxCount
+                && keys[order[i]].startsWith(pattern); i++) {
+            result.add(items[order[i]]);
+        }
+        return result;
+    }
+
+    private List<Object> findRanked(String pattern, int maxCount) throws InterruptedException {
+        // the best matches, worst one on top; a rank packs score, key length
+        // and item index, so smaller ranks are better
+        PriorityQueue<Long> best = new PriorityQueue<Long>(Math.min(maxCount, 256) + 1,
+                Collections.reverseOrder());
+        long worst = Long.MAX_VALUE;
+        for (int i = 0; i < keys.length; i++) {
+            if ((i & (CHECK_INTERVAL - 1)) == 0 && Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            int score = ranking == Ranking.SUBSTRING
+                    ? keys[i].indexOf(pattern) : fuzzyScore(keys[i], pattern);
+            if (score < 0) {
+                continue;
+            }
+            long rank = ((long) Math.min(score, MAX_SCORE) << 48)
+                    | ((long) Math.min(keys[i].length(), 0xFFFF) << 32) | i;
+            if (best.size() < maxCount) {
+                best.add(rank);
+                worst = best.peek();
+            } else if (rank < worst) {
+                best.poll();
+                best.add(rank);
+                worst = best.peek();
+            }
+        }
+        Object[] result = new Object[best.size()];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = items[(int) (best.poll() & 0xFFFFFFFFL)];
+        }
+        List<Object> list = new ArrayList<Object>(result.length);
+        Collections.addAll(list, result);
+        return list;
+    }
+
+    /**
+     * Returns the score of the key if it contains the characters of the
+     * pattern in order, -1 otherwise. The score sums the number of characters
+     * skipped before and between the matched characters.
+     */
+    private static int fuzzyScore(String key, String pattern) {
+        int score = 0;
+        int from = 0;
+        for (int i = 0, n = pattern.length(); i < n; i++) {
+            int found = key.indexOf(pattern.charAt(i), from);
+            if (found < 0) {
+                return -1;
+            }
+            score += found - from;
+            from = found + 1;
+        }
+        return score;
+    }
+
+    /**
+     * Returns the indices of the keys in order of the keys, equal keys in
+     * order of their indices.
+     */
+    private static int[] sortedOrder(String[] keys) {
+        int[] order = new int[keys.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        mergeSort(keys, order.clone(), order, 0, order.length);
+        return order;
+    }
+
+    private static void mergeSort(String[] keys, int[] src, int[] dest, int low, int high) {
+        if (high - low < 8) {
+            for (int i = low + 1; i < high; i++) {
+                int index = dest[i];
+                int j = i;
+                while (j > low && keys[dest[j - 1]].compareTo(keys[index]) > 0) {
+                    dest[j] = dest[j - 1];
+                    j--;
+                }
+                dest[j] = index;
+            }
+            return;
+        }
+        int mid = (low + high) >>> 1;
+        mergeSort(keys, dest, src, low, mid);
+        mergeSort(keys, dest, src, mid, high);
+        for (int i = low, p = low, q = mid; i < high; i++) {
+            if (q >= high || p < mid && keys[src[p]].compareTo(keys[src[q]]) <= 0) {
+                dest[i] = src[p++];
+            } else {
+                dest[i] = src[q++];
+            }
+        }
+    }
+}
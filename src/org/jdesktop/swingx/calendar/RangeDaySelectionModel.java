@@ -0,0 +1,673 @@
+/*
+ * $Id$
+ *
+ * Copyright 2009 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx.calendar;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.SortedSet;
+import java.util.TimeZone;
+
+import org.jdesktop.swingx.event.DateSelectionEvent.EventType;
+import org.jdesktop.swingx.util.Contract;
+
+/**
+ * A DateSelectionModel which selects whole days, like DaySelectionModel, but
+ * stores the selected and the unselectable days as sorted ranges of day
+ * numbers instead of one Date per day. Selecting a range of years is as
+ * cheap as selecting a single day, and checking whether a day is selected is
+ * a binary search over the ranges. <p>
+ *
+ * The sets returned by <code>getSelection</code> and
+ * <code>getUnselectableDates</code> are read-only snapshots which share the
+ * ranges of the model instead of copying all dates: their Dates are created
+ * while iterating. Changes to the model are not reflected in snapshots taken
+ * before. <p>
+ *
+ * The days are counted in the time zone of the model's calendar. Changing the
+ * time zone clears the selection, the bounds and the unselectable dates.
+ *
+ * @see DaySelectionModel
+ */
+public class RangeDaySelectionModel extends AbstractDateSelectionModel {
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+    private SelectionMode selectionMode;
+    private DayRanges selectedDays;
+    private DayRanges unselectableDays;
+
+    /**
+     * Instantiates a RangeDaySelectionModel with default locale.
+     */
+    public RangeDaySelectionModel() {
+        this(null);
+    }
+
+    /**
+     * Instantiates a RangeDaySelectionModel with the given locale. The
+     * selection mode defaults to SINGLE_SELECTION.
+     *
+     * @param locale the Locale to use with this model, defaults to
+     *    Locale.default() if null.
+     */
+    public RangeDaySelectionModel(Locale locale) {
+        super(locale);
+        this.selectionMode = SelectionMode.SINGLE_SELECTION;
+        this.selectedDays = DayRanges.EMPTY;
+        this.unselectableDays = DayRanges.EMPTY;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SelectionMode getSelectionMode() {
+        return selectionMode;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setSelectionMode(final SelectionMode selectionMode) {
+        this.selectionMode = selectionMode;
+        clearSelection();
+    }
+
+    //---------------------- selection ops
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addSelectionInterval(Date startDate, Date endDate) {
+        if (startDate.after(endDate)) {
+            return;
+        }
+        long startDay = dayOf(startDate);
+        long endDay = dayOf(endDate);
+        boolean added = false;
+        switch (selectionMode) {
+            case SINGLE_SELECTION:
+                if (selectedDays.contains(startDay)) return;
+                clearSelectionImpl();
+                added = addSelectionImpl(startDay, startDay);
+                break;
+            case SINGLE_INTERVAL_SELECTION:
+                if (isIntervalSelected(startDay, endDay)) return;
+                clearSelectionImpl();
+                added = addSelectionImpl(startDay, endDay);
+                break;
+            case MULTIPLE_INTERVAL_SELECTION:
+                if (isIntervalSelected(startDay, endDay)) return;
+                added = addSelectionImpl(startDay, endDay);
+                break;
+            default:
+                break;
+        }
+        if (added) {
+            fireValueChanged(EventType.DATES_ADDED);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setSelectionInterval(Date startDate, Date endDate) {
+        long startDay = dayOf(startDate);
+        long endDay = dayOf(endDate);
+        if (SelectionMode.SINGLE_SELECTION.equals(selectionMode)) {
+           if (selectedDays.contains(startDay)) return;
+           endDay = startDay;
+        } else {
+            if (isIntervalSelected(startDay, endDay)) return;
+        }
+        clearSelectionImpl();
+        if (addSelectionImpl(startDay, endDay)) {
+            fireValueChanged(EventType.DATES_SET);
+        }
+    }
+
+    /**
+     * Checks and returns if the single day interval bounded by startDay and
+     * endDay is selected. This is useful only for SingleInterval mode.
+     */
+    private boolean isIntervalSelected(long startDay, long endDay) {
+        if (isSelectionEmpty()) return false;
+        return selectedDays.firstDay() == startDay
+           && selectedDays.lastDay() == endDay;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeSelectionInterval(Date startDate, Date endDate) {
+        if (startDate.after(endDate)) {
+            return;
+        }
+        DayRanges remaining = selectedDays.subtract(
+                DayRanges.of(dayOf(startDate), dayOf(endDate)));
+        if (remaining.dayCount() != selectedDays.dayCount()) {
+            selectedDays = remaining;
+            fireValueChanged(EventType.DATES_REMOVED);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clearSelection() {
+        if (isSelectionEmpty()) return;
+        clearSelectionImpl();
+        fireValueChanged(EventType.SELECTION_CLEARED);
+    }
+
+    private void clearSelectionImpl() {
+        selectedDays = DayRanges.EMPTY;
+    }
+
+    /**
+     * {@inheritDoc} <p>
+     *
+     * Implemented to return a read-only snapshot which shares the ranges of
+     * this model.
+     */
+    @Override
+    public SortedSet<Date> getSelection() {
+        return new DaySet(selectedDays, (Calendar) calendar.clone());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Date getFirstSelectionDate() {
+        return isSelectionEmpty() ? null : dateOf(calendar, selectedDays.firstDay());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Date getLastSelectionDate() {
+        return isSelectionEmpty() ? null : dateOf(calendar, selectedDays.lastDay());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isSelected(Date date) {
+        // dayOf will throw NPE if null
+        return selectedDays.contains(dayOf(date));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isSelectionEmpty() {
+        return selectedDays.isEmpty();
+    }
+
+    /**
+     * Returns the number of disjoint ranges of consecutive selected days.
+     *
+     * @return the number of selected ranges of days
+     */
+    public int getSelectionRangeCount() {
+        return selectedDays.size();
+    }
+
+    /**
+     * {@inheritDoc} <p>
+     *
+     * Implemented to return a read-only snapshot which shares the ranges of
+     * this model.
+     */
+    @Override
+    public SortedSet<Date> getUnselectableDates() {
+        return new DaySet(unselectableDays, (Calendar) calendar.clone());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setUnselectableDates(SortedSet<Date> unselectables) {
+        long[] days = new long[unselectables.size()];
+        int count = 0;
+        for (Date date : unselectables) {
+            days[count++] = dayOf(date);
+        }
+        Arrays.sort(days, 0, count);
+        // the builder merges runs of days into ranges
+        DayRanges.Builder builder = new DayRanges.Builder(count);
+        for (int i = 0; i < count; i++) {
+            builder.add(days[i], days[i]);
+        }
+        unselectableDays = builder.build();
+        DayRanges remaining = selectedDays.subtract(unselectableDays);
+        if (remaining.dayCount() != selectedDays.dayCount()) {
+            selectedDays = remaining;
+            fireValueChanged(EventType.DATES_REMOVED);
+        }
+        fireValueChanged(EventType.UNSELECTED_DATES_CHANGED);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isUnselectableDate(Date date) {
+        long day = dayOf(date);
+        return upperBound != null && dayOf(upperBound) < day ||
+                lowerBound != null && dayOf(lowerBound) > day ||
+                unselectableDays.contains(day);
+    }
+
+    private boolean addSelectionImpl(long startDay, long endDay) {
+        if (lowerBound != null) {
+            startDay = Math.max(startDay, dayOf(lowerBound));
+        }
+        if (upperBound != null) {
+            endDay = Math.min(endDay, dayOf(upperBound));
+        }
+        if (startDay > endDay) {
+            return false;
+        }
+        DayRanges added = DayRanges.of(startDay, endDay).subtract(unselectableDays);
+        if (added.isEmpty()) {
+            return false;
+        }
+        selectedDays = selectedDays.union(added);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc} <p>
+     *
+     * Implemented to return the start of the day which contains the date.
+     */
+    @Override
+    public Date getNormalizedDate(Date date) {
+        Contract.asNotNull(date, "date must not be null");
+        return startOfDay(date);
+    }
+
+    /**
+     * Returns the number of the day containing the given date, counted from
+     * the epoch in the time zone of this model's calendar.
+     */
+    private long dayOf(Date date) {
+        return dayOf(calendar.getTimeZone(), date);
+    }
+
+    private static long dayOf(TimeZone timeZone, Date date) {
+        long millis = date.getTime();
+        return Math.floorDiv(millis + timeZone.getOffset(millis), DAY_MILLIS);
+    }
+
+    /**
+     * Returns the start of the given day in the given calendar.
+     * NOTE: the calendar is changed by this operation.
+     */
+    private static Date dateOf(Calendar calendar, long day) {
+        // noon is inside the day whatever the daylight saving shifts
+        long noon = day * DAY_MILLIS + DAY_MILLIS / 2;
+        noon -= calendar.getTimeZone().getOffset(noon);
+        return CalendarUtils.startOfDay(calendar, new Date(noon));
+    }
+
+    /**
+     * Immutable set of days, stored as sorted, disjoint and non-adjacent
+     * ranges of day numbers.
+     */
+    private static final class DayRanges {
+        static final DayRanges EMPTY = new DayRanges(new long[0], new long[0], 0);
+
+        private final long[] starts;
+        private final long[] ends;
+        private final int size;
+        // the number of days in the ranges up to and including i
+        private final long[] cumulative;
+
+        private DayRanges(long[] starts, long[] ends, int size) {
+            this.starts = starts;
+            this.ends = ends;
+            this.size = size;
+            this.cumulative = new long[size];
+            long days = 0;
+            for (int i = 0; i < size; i++) {
+                days += ends[i] - starts[i] + 1;
+                cumulative[i] = days;
+            }
+        }
+
+        static DayRanges of(long startDay, long endDay) {
+            if (startDay > endDay) {
+                return EMPTY;
+            }
+            return new DayRanges(new long[] {startDay}, new long[] {endDay}, 1);
+        }
+
+        int size() {
+            return size;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        long dayCount() {
+            return size == 0 ? 0 : cumulative[size - 1];
+        }
+
+        long firstDay() {
+            return starts[0];
+        }
+
+        long lastDay() {
+            return ends[size - 1];
+        }
+
+        /**
+         * Returns the index of the last range starting at or before the
+         * given day, -1 if none.
+         */
+        int floorIndex(long day) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (starts[mid] <= day) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return high;
+        }
+
+        boolean contains(long day) {
+            int index = floorIndex(day);
+            return index >= 0 && ends[index] >= day;
+        }
+
+        /**
+         * Returns the first day of this set at or after the given day,
+         * Long.MAX_VALUE if none.
+         */
+        long ceiling(long day) {
+            int index = floorIndex(day);
+            if (index >= 0 && ends[index] >= day) {
+                return day;
+            }
+            return index + 1 < size ? starts[index + 1] : Long.MAX_VALUE;
+        }
+
+        /**
+         * Returns the last day of this set at or before the given day,
+         * Long.MIN_VALUE if none.
+         */
+        long floor(long day) {
+            int index = floorIndex(day);
+            if (index < 0) {
+                return Long.MIN_VALUE;
+            }
+            return Math.min(ends[index], day);
+        }
+
+        /**
+         * Returns the number of days of this set from the first to the last
+         * given day, both inclusive.
+         */
+        long countDays(long firstDay, long lastDay) {
+            if (firstDay > lastDay) {
+                return 0;
+            }
+            return countUpTo(lastDay) - countUpTo(firstDay - 1);
+        }
+
+        private long countUpTo(long day) {
+            int index = floorIndex(day);
+            if (index < 0) {
+                return 0;
+            }
+            long days = cumulative[index];
+            if (ends[index] > day) {
+                days -= ends[index] - day;
+            }
+            return days;
+        }
+
+        DayRanges union(DayRanges other) {
+            if (other.isEmpty()) return this;
+            if (isEmpty()) return other;
+            Builder builder = new Builder(size + other.size);
+            int i = 0;
+            int j = 0;
+            while (i < size || j < other.size) {
+                if (j >= other.size || i < size && starts[i] <= other.starts[j]) {
+                    builder.add(starts[i], ends[i]);
+                    i++;
+                } else {
+                    builder.add(other.starts[j], other.ends[j]);
+                    j++;
+                }
+            }
+            return builder.build();
+        }
+
+        DayRanges subtract(DayRanges other) {
+            if (isEmpty() || other.isEmpty()) return this;
+            Builder builder = new Builder(size + other.size);
+            int j = 0;
+            for (int i = 0; i < size; i++) {
+                long start = starts[i];
+                long end = ends[i];
+                while (j < other.size && other.ends[j] < start) {
+                    j++;
+                }
+                long next = start;
+                for (int k = j; k < other.size && other.starts[k] <= end; k++) {
+                    if (other.starts[k] > next) {
+                        builder.add(next, other.starts[k] - 1);
+                    }
+                    next = Math.max(next, other.ends[k] + 1);
+                }
+                if (next <= end) {
+                    builder.add(next, end);
+                }
+            }
+            return builder.build();
+        }
+
+        /**
+         * Collects ranges in order of their start, merging overlapping and
+         * adjacent ones.
+         */
+        private static final class Builder {
+            private final long[] starts;
+            private final long[] ends;
+            private int size;
+
+            Builder(int capacity) {
+                starts = new long[capacity];
+                ends = new long[capacity];
+            }
+
+            void add(long start, long end) {
+                if (size > 0 && start <= ends[size - 1] + 1) {
+                    ends[size - 1] = Math.max(ends[size - 1], end);
+                } else {
+                    starts[size] = start;
+                    ends[size] = end;
+                    size++;
+                }
+            }
+
+            DayRanges build() {
+                if (size == 0) {
+                    return EMPTY;
+                }
+                return new DayRanges(Arrays.copyOf(starts, size), Arrays.copyOf(ends, size), size);
+            }
+        }
+    }
+
+    /**
+     * Read-only SortedSet of the starts of the days of a DayRanges, limited
+     * to the days from firstDay to lastDay, which are within the first and the
+     * last day of the ranges. The Dates are created on demand.
+     */
+    private static final class DaySet extends AbstractSet<Date> implements SortedSet<Date> {
+        private final DayRanges ranges;
+        private final Calendar calendar;
+        private final long firstDay;
+        private final long lastDay;
+
+        DaySet(DayRanges ranges, Calendar calendar) {
+            this(ranges, calendar, ranges.isEmpty() ? 0 : ranges.firstDay(),
+                    ranges.isEmpty() ? -1 : ranges.lastDay());
+        }
+
+        private DaySet(DayRanges ranges, Calendar calendar, long firstDay, long lastDay) {
+            this.ranges = ranges;
+            this.calendar = calendar;
+            this.firstDay = firstDay;
+            this.lastDay = lastDay;
+        }
+
+        @Override
+        public Comparator<? super Date> comparator() {
+            return null;
+        }
+
+        @Override
+        public int size() {
+            return (int) Math.min(Integer.MAX_VALUE, ranges.countDays(firstDay, lastDay));
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return firstSelectedDay() > lastDay;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Date)) {
+                return false;
+            }
+            Date date = (Date) o;
+            long day = dayOf(calendar.getTimeZone(), date);
+            return day >= firstDay && day <= lastDay && ranges.contains(day)
+                    && dateOf(calendar, day).getTime() == date.getTime();
+        }
+
+        @Override
+        public Date first() {
+            long day = firstSelectedDay();
+            if (day > lastDay) {
+                throw new NoSuchElementException();
+            }
+            return dateOf(calendar, day);
+        }
+
+        @Override
+        public Date last() {
+            long day = ranges.floor(lastDay);
+            if (day < firstDay) {
+                throw new NoSuchElementException();
+            }
+            return dateOf(calendar, day);
+        }
+
+        private long firstSelectedDay() {
+            return ranges.ceiling(firstDay);
+        }
+
+        @Override
+        public Iterator<Date> iterator() {
+            return new Iterator<Date>() {
+                private long next = firstSelectedDay();
+
+                @Override
+                public boolean hasNext() {
+                    return next <= lastDay;
+                }
+
+                @Override
+                public Date next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    Date date = dateOf(calendar, next);
+                    next = next == lastDay ? Long.MAX_VALUE : ranges.ceiling(next + 1);
+                    return date;
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException("read-only snapshot");
+                }
+            };
+        }
+
+        @Override
+        public SortedSet<Date> subSet(Date fromElement, Date toElement) {
+            if (fromElement.after(toElement)) {
+                throw new IllegalArgumentException("fromElement > toElement");
+            }
+            return limit(ceilingDay(fromElement), ceilingDay(toElement) - 1);
+        }
+
+        @Override
+        public SortedSet<Date> headSet(Date toElement) {
+            return limit(firstDay, ceilingDay(toElement) - 1);
+        }
+
+        @Override
+        public SortedSet<Date> tailSet(Date fromElement) {
+            return limit(ceilingDay(fromElement), lastDay);
+        }
+
+        private SortedSet<Date> limit(long first, long last) {
+            return new DaySet(ranges, (Calendar) calendar.clone(),
+                    Math.max(first, firstDay), Math.min(last, lastDay));
+        }
+
+        /**
+         * Returns the first day whose start is at or after the given date.
+         */
+        private long ceilingDay(Date date) {
+            long day = dayOf(calendar.getTimeZone(), date);
+            return dateOf(calendar, day).before(date) ? day + 1 : day;
+        }
+    }
+}
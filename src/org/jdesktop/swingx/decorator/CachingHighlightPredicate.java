@@ -0,0 +1,329 @@
+/*
+ * $Id$
+ *
+ * Copyright 2009 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx.decorator;
+
+import java.awt.Component;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+
+import javax.swing.JComponent;
+import javax.swing.JList;
+import javax.swing.JTable;
+import javax.swing.ListModel;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+import javax.swing.event.ListSelectionEvent;
+import javax.swing.event.TableColumnModelEvent;
+import javax.swing.event.TableColumnModelListener;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+import javax.swing.table.TableColumnModel;
+import javax.swing.table.TableModel;
+
+import org.jdesktop.swingx.util.Contract;
+
+/**
+ * A HighlightPredicate which memoizes the outcome of a delegate predicate per
+ * cell. Intended to wrap expensive predicates which depend on the cell's
+ * content only, like <code>PatternPredicate</code>, <code>SearchPredicate</code>
+ * or <code>And</code>/<code>Or</code> combinations of those. Predicates which
+ * depend on visual state (like rollover, selection or focus) must not be
+ * wrapped. <p>
+ *
+ * The outcome is cached by model row/column in a bounded, direct-mapped
+ * table, so it survives sorting, filtering and column re-ordering. The
+ * cache is kept in synch with the component's data by listening to the
+ * model: updated rows are evicted, all other changes flush the complete cache.
+ * For a JTable, changes in the column model which affect the column
+ * widths flush the cache as well, so a predicate like
+ * <code>IS_TEXT_TRUNCATED</code> can be wrapped as long as the font is
+ * not changed by other highlighters.
+ * Caching is supported for JTable and JList, for other components the
+ * delegate is evaluated on each call. <p>
+ *
+ * The delegate's outcome might change due to other reasons, f.i. a changed
+ * state of the delegate. To keep in synch, this predicate is a ChangeListener which
+ * flushes the cache on every notification. Typically, it is registered to
+ * the Highlighter using it:
+ *
+ * <pre><code>
+ * HighlightPredicate predicate = new CachingHighlightPredicate(
+ *      new PatternPredicate(pattern, 0));
+ * Highlighter highlighter = new ColorHighlighter(predicate, Color.YELLOW, null);
+ * highlighter.addChangeListener(predicate);
+ * table.addHighlighter(highlighter);
+ * </code></pre>
+ *
+ * Note: an instance of this is meant to be used by a single component. Using it
+ * across different components is supported but flushes the cache whenever
+ * the component changes.
+ */
+public class CachingHighlightPredicate implements HighlightPredicate, ChangeListener {
+
+    /** The default number of cached cells. */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private static final byte UNKNOWN = 0;
+    private static final byte FALSE = 1;
+    private static final byte TRUE = 2;
+
+    private final HighlightPredicate predicate;
+
+    private final long[] keys;
+    private final byte[] results;
+
+    private WeakReference<JComponent> component;
+    private Object model;
+    private TableColumnModel columnModel;
+    private ModelListener modelListener;
+
+    /**
+     * Instantiates a caching predicate for the given delegate with
+     * default capacity.
+     *
+     * @param predicate the predicate to memoize, must not be null.
+     * @throws NullPointerException if the predicate is null
+     */
+    public CachingHighlightPredicate(HighlightPredicate predicate) {
+        this(predicate, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Instantiates a caching predicate for the given delegate with
+     * the given capacity.
+     *
+     * @param predicate the predicate to memoize, must not be null.
+     * @param capacity the maximal number of cached cells, is rounded up to
+     *   the next power of two.
+     * @throws NullPointerException if the predicate is null
+     * @throws IllegalArgumentException if the capacity is &lt; 1
+     */
+    public CachingHighlightPredicate(HighlightPredicate predicate, int capacity) {
+        this.predicate = Contract.asNotNull(predicate, "predicate must not be null");
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be > 0 but was: " + capacity);
+        }
+        int size = 1;
+        while (size < capacity && size < (1 << 30)) {
+            size <<= 1;
+        }
+        keys = new long[size];
+        results = new byte[size];
+    }
+
+    /**
+     * {@inheritDoc} <p>
+     *
+     * Implemented to return the cached outcome of the delegate, if available.
+     * Otherwise the delegate is evaluated and the outcome cached.
+     */
+    @Override
+    public boolean isHighlighted(Component renderer, ComponentAdapter adapter) {
+        if (!isCaching(adapter.getComponent())) {
+            return predicate.isHighlighted(renderer, adapter);
+        }
+        int row = adapter.convertRowIndexToModel(adapter.row);
+        int column = adapter.convertColumnIndexToModel(adapter.column);
+        long key = ((long) row << 32) | (column & 0xFFFFFFFFL);
+        int slot = slot(key);
+        if (results[slot] != UNKNOWN && keys[slot] == key) {
+            return results[slot] == TRUE;
+        }
+        boolean highlighted = predicate.isHighlighted(renderer, adapter);
+        keys[slot] = key;
+        results[slot] = highlighted ? TRUE : FALSE;
+        return highlighted;
+    }
+
+    /**
+     * Returns the memoized predicate.
+     *
+     * @return the contained HighlightPredicate.
+     */
+    public HighlightPredicate getHighlightPredicate() {
+        return predicate;
+    }
+
+    /**
+     * Flushes all cached outcomes.
+     */
+    public void invalidate() {
+        Arrays.fill(results, UNKNOWN);
+    }
+
+    /**
+     * {@inheritDoc} <p>
+     *
+     * Implemented to flush the cache.
+     */
+    @Override
+    public void stateChanged(ChangeEvent e) {
+        invalidate();
+    }
+
+    /**
+     * Returns a boolean indicating whether the outcome for the given component
+     * can be cached. Updates the listeners to the component's models
+     * as needed.
+     *
+     * @param comp the component to highlight
+     * @return true if outcomes can be cached, false otherwise.
+     */
+    private boolean isCaching(JComponent comp) {
+        if (!(comp instanceof JTable) && !(comp instanceof JList)) {
+            return false;
+        }
+        if (component == null || component.get() != comp
+                || model != getModel(comp) || columnModel != getColumnModel(comp)) {
+            install(comp);
+        }
+        return true;
+    }
+
+    private void install(JComponent comp) {
+        uninstall();
+        component = new WeakReference<JComponent>(comp);
+        model = getModel(comp);
+        columnModel = getColumnModel(comp);
+        if (modelListener == null) {
+            modelListener = new ModelListener();
+        }
+        if (model instanceof TableModel) {
+            ((TableModel) model).addTableModelListener(modelListener);
+        } else if (model instanceof ListModel) {
+            ((ListModel<?>) model).addListDataListener(modelListener);
+        }
+        if (columnModel != null) {
+            columnModel.addColumnModelListener(modelListener);
+        }
+        invalidate();
+    }
+
+    private void uninstall() {
+        if (model instanceof TableModel) {
+            ((TableModel) model).removeTableModelListener(modelListener);
+        } else if (model instanceof ListModel) {
+            ((ListModel<?>) model).removeListDataListener(modelListener);
+        }
+        if (columnModel != null) {
+            columnModel.removeColumnModelListener(modelListener);
+        }
+        model = null;
+        columnModel = null;
+        component = null;
+    }
+
+    private Object getModel(JComponent comp) {
+        if (comp instanceof JTable) {
+            return ((JTable) comp).getModel();
+        }
+        return ((JList<?>) comp).getModel();
+    }
+
+    private TableColumnModel getColumnModel(JComponent comp) {
+        if (comp instanceof JTable) {
+            return ((JTable) comp).getColumnModel();
+        }
+        return null;
+    }
+
+    /**
+     * Evicts the cached outcomes of all cells in the given range of model rows.
+     *
+     * @param first the first row to evict
+     * @param last the last row to evict
+     */
+    private void evictRows(int first, int last) {
+        for (int i = 0; i < keys.length; i++) {
+            if (results[i] == UNKNOWN) continue;
+            int row = (int) (keys[i] >> 32);
+            if (row >= first && row <= last) {
+                results[i] = UNKNOWN;
+            }
+        }
+    }
+
+    private int slot(long key) {
+        int hash = (int) (key ^ (key >>> 32)) * 31 + (int) key;
+        hash *= 0x9E3779B9;
+        return (hash ^ (hash >>> 15)) & (keys.length - 1);
+    }
+
+    /**
+     * Listener to the component's models.
+     */
+    private class ModelListener implements TableModelListener,
+        TableColumnModelListener, ListDataListener {
+
+        @Override
+        public void tableChanged(TableModelEvent e) {
+            if (e.getType() == TableModelEvent.UPDATE
+                    && e.getFirstRow() != TableModelEvent.HEADER_ROW
+                    && e.getLastRow() != Integer.MAX_VALUE) {
+                evictRows(e.getFirstRow(), e.getLastRow());
+            } else {
+                invalidate();
+            }
+        }
+
+        @Override
+        public void contentsChanged(ListDataEvent e) {
+            evictRows(Math.min(e.getIndex0(), e.getIndex1()),
+                    Math.max(e.getIndex0(), e.getIndex1()));
+        }
+
+        @Override
+        public void intervalAdded(ListDataEvent e) {
+            invalidate();
+        }
+
+        @Override
+        public void intervalRemoved(ListDataEvent e) {
+            invalidate();
+        }
+
+        @Override
+        public void columnAdded(TableColumnModelEvent e) {
+            invalidate();
+        }
+
+        @Override
+        public void columnRemoved(TableColumnModelEvent e) {
+            invalidate();
+        }
+
+        @Override
+        public void columnMarginChanged(ChangeEvent e) {
+            invalidate();
+        }
+
+        @Override
+        public void columnMoved(TableColumnModelEvent e) {
+        }
+
+        @Override
+        public void columnSelectionChanged(ListSelectionEvent e) {
+        }
+
+    }
+}
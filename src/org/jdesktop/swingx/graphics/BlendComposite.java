@@ -43,6 +43,8 @@ import java.awt.image.DirectColorModel;
 import java.awt.image.Raster;
 import java.awt.image.RasterFormatException;
 import java.awt.image.WritableRaster;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * <p>A blend composite defines the rule according to which a drawing primitive
@@ -118,6 +120,22 @@ public final class BlendComposite implements Composite {
                 result[2] = (src[2] + dst[2]) >> 1;
                 result[3] = Math.min(255, src[3] + dst[3] - (src[3] * dst[3]) / 255);
             }
+
+            @Override
+            void blendRow(int[] src, int srcPos, int[] dst, int dstPos,
+                    int[] out, int outPos, int length, float alpha, byte[] mixTable, boolean rgb) {
+                for (int i = 0; i < length; i++) {
+                    int s = src[srcPos + i];
+                    int d = dst[dstPos + i];
+                    int s0 = s & 0xFF, s1 = (s >> 8) & 0xFF, s2 = (s >> 16) & 0xFF;
+                    int d0 = d & 0xFF, d1 = (d >> 8) & 0xFF, d2 = (d >> 16) & 0xFF;
+                    int result = blendAlpha(s >>> 24, d >>> 24) << 24
+                            | (((s2 + d2) >> 1) & 0xFF) << 16
+                            | (((s1 + d1) >> 1) & 0xFF) << 8
+                            | (((s0 + d0) >> 1) & 0xFF);
+                    out[outPos + i] = mixTable == null ? result : mix(d, result, mixTable);
+                }
+            }
         },
         
         /**
@@ -147,6 +165,22 @@ public final class BlendComposite implements Composite {
                 result[2] = Math.min(src[2], dst[2]);
                 result[3] = Math.min(255, src[3] + dst[3] - (src[3] * dst[3]) / 255);
             }
+
+            @Override
+            void blendRow(int[] src, int srcPos, int[] dst, int dstPos,
+                    int[] out, int outPos, int length, float alpha, byte[] mixTable, boolean rgb) {
+                for (int i = 0; i < length; i++) {
+                    int s = src[srcPos + i];
+                    int d = dst[dstPos + i];
+                    int s0 = s & 0xFF, s1 = (s >> 8) & 0xFF, s2 = (s >> 16) & 0xFF;
+                    int d0 = d & 0xFF, d1 = (d >> 8) & 0xFF, d2 = (d >> 16) & 0xFF;
+                    int result = blendAlpha(s >>> 24, d >>> 24) << 24
+                            | ((Math.min(s2, d2)) & 0xFF) << 16
+                            | ((Math.min(s1, d1)) & 0xFF) << 8
+                            | ((Math.min(s0, d0)) & 0xFF);
+                    out[outPos + i] = mixTable == null ? result : mix(d, result, mixTable);
+                }
+            }
         },
 
         /**
@@ -164,6 +198,22 @@ public final class BlendComposite implements Composite {
                 result[2] = (src[2] * dst[2] + 2) >> 8;
                 result[3] = Math.min(255, src[3] + dst[3] - (src[3] * dst[3]) / 255);
             }
+
+            @Override
+            void blendRow(int[] src, int srcPos, int[] dst, int dstPos,
+                    int[] out, int outPos, int length, float alpha, byte[] mixTable, boolean rgb) {
+                for (int i = 0; i < length; i++) {
+                    int s = src[srcPos + i];
+                    int d = dst[dstPos + i];
+                    int s0 = s & 0xFF, s1 = (s >> 8) & 0xFF, s2 = (s >> 16) & 0xFF;
+                    int d0 = d & 0xFF, d1 = (d >> 8) & 0xFF, d2 = (d >> 16) & 0xFF;
+                    int result = blendAlpha(s >>> 24, d >>> 24) << 24
+                            | (((s2 * d2 + 2) >> 8) & 0xFF) << 16
+                            | (((s1 * d1 + 2) >> 8) & 0xFF) << 8
+                            | (((s0 * d0 + 2) >> 8) & 0xFF);
+                    out[outPos + i] = mixTable == null ? result : mix(d, result, mixTable);
+                }
+            }
         },
 
         /**
@@ -227,6 +277,22 @@ public final class BlendComposite implements Composite {
                 result[2] = Math.max(0, src[2] + dst[2] - 256);
                 result[3] = Math.min(255, src[3] + dst[3] - (src[3] * dst[3]) / 255);
             }
+
+            @Override
+            void blendRow(int[] src, int srcPos, int[] dst, int dstPos,
+                    int[] out, int outPos, int length, float alpha, byte[] mixTable, boolean rgb) {
+                for (int i = 0; i < length; i++) {
+                    int s = src[srcPos + i];
+                    int d = dst[dstPos + i];
+                    int s0 = s & 0xFF, s1 = (s >> 8) & 0xFF, s2 = (s >> 16) & 0xFF;
+                    int d0 = d & 0xFF, d1 = (d >> 8) & 0xFF, d2 = (d >> 16) & 0xFF;
+                    int result = blendAlpha(s >>> 24, d >>> 24) << 24
+                            | ((Math.max(0, s2 + d2 - 256)) & 0xFF) << 16
+                            | ((Math.max(0, s1 + d1 - 256)) & 0xFF) << 8
+                            | ((Math.max(0, s0 + d0 - 256)) & 0xFF);
+                    out[outPos + i] = mixTable == null ? result : mix(d, result, mixTable);
+                }
+            }
         },
 
         /**
@@ -243,6 +309,22 @@ public final class BlendComposite implements Composite {
                 result[2] = Math.max(src[2], dst[2]);
                 result[3] = Math.min(255, src[3] + dst[3] - (src[3] * dst[3]) / 255);
             }
+
+            @Override
+            void blendRow(int[] src, int srcPos, int[] dst, int dstPos,
+                    int[] out, int outPos, int length, float alpha, byte[] mixTable, boolean rgb) {
+                for (int i = 0; i < length; i++) {
+                    int s = src[srcPos + i];
+                    int d = dst[dstPos + i];
+                    int s0 = s & 0xFF, s1 = (s >> 8) & 0xFF, s2 = (s >> 16) & 0xFF;
+                    int d0 = d & 0xFF, d1 = (d >> 8) & 0xFF, d2 = (d >> 16) & 0xFF;
+                    int result = blendAlpha(s >>> 24, d >>> 24) << 24
+                            | ((Math.max(s2, d2)) & 0xFF) << 16
+                            | ((Math.max(s1, d1)) & 0xFF) << 8
+                            | ((Math.max(s0, d0)) & 0xFF);
+                    out[outPos + i] = mixTable == null ? result : mix(d, result, mixTable);
+                }
+            }
         },
 
         /**
@@ -261,6 +343,22 @@ public final class BlendComposite implements Composite {
                 result[2] = 255 - ((255 - src[2]) * (255 - dst[2]) >> 8);
                 result[3] = Math.min(255, src[3] + dst[3] - (src[3] * dst[3]) / 255);
             }
+
+            @Override
+            void blendRow(int[] src, int srcPos, int[] dst, int dstPos,
+                    int[] out, int outPos, int length, float alpha, byte[] mixTable, boolean rgb) {
+                for (int i = 0; i < length; i++) {
+                    int s = src[srcPos + i];
+                    int d = dst[dstPos + i];
+                    int s0 = s & 0xFF, s1 = (s >> 8) & 0xFF, s2 = (s >> 16) & 0xFF;
+                    int d0 = d & 0xFF, d1 = (d >> 8) & 0xFF, d2 = (d >> 16) & 0xFF;
+                    int result = blendAlpha(s >>> 24, d >>> 24) << 24
+                            | ((255 - ((255 - s2) * (255 - d2) >> 8)) & 0xFF) << 16
+                            | ((255 - ((255 - s1) * (255 - d1) >> 8)) & 0xFF) << 8
+                            | ((255 - ((255 - s0) * (255 - d0) >> 8)) & 0xFF);
+                    out[outPos + i] = mixTable == null ? result : mix(d, result, mixTable);
+                }
+            }
         },
 
         /**
@@ -326,6 +424,22 @@ public final class BlendComposite implements Composite {
                 result[2] = Math.min(255, src[2] + dst[2]);
                 result[3] = Math.min(255, src[3] + dst[3]);
             }
+
+            @Override
+            void blendRow(int[] src, int srcPos, int[] dst, int dstPos,
+                    int[] out, int outPos, int length, float alpha, byte[] mixTable, boolean rgb) {
+                for (int i = 0; i < length; i++) {
+                    int s = src[srcPos + i];
+                    int d = dst[dstPos + i];
+                    int s0 = s & 0xFF, s1 = (s >> 8) & 0xFF, s2 = (s >> 16) & 0xFF;
+                    int d0 = d & 0xFF, d1 = (d >> 8) & 0xFF, d2 = (d >> 16) & 0xFF;
+                    int result = Math.min(255, (s >>> 24) + (d >>> 24)) << 24
+                            | ((Math.min(255, s2 + d2)) & 0xFF) << 16
+                            | ((Math.min(255, s1 + d1)) & 0xFF) << 8
+                            | ((Math.min(255, s0 + d0)) & 0xFF);
+                    out[outPos + i] = mixTable == null ? result : mix(d, result, mixTable);
+                }
+            }
         },
         
         /**
@@ -346,6 +460,22 @@ public final class BlendComposite implements Composite {
                         : 255 - ((255 - dst[2]) * (255 - src[2]) >> 7);
                 result[3] = Math.min(255, src[3] + dst[3] - (src[3] * dst[3]) / 255);
             }
+
+            @Override
+            void blendRow(int[] src, int srcPos, int[] dst, int dstPos,
+                    int[] out, int outPos, int length, float alpha, byte[] mixTable, boolean rgb) {
+                for (int i = 0; i < length; i++) {
+                    int s = src[srcPos + i];
+                    int d = dst[dstPos + i];
+                    int s0 = s & 0xFF, s1 = (s >> 8) & 0xFF, s2 = (s >> 16) & 0xFF;
+                    int d0 = d & 0xFF, d1 = (d >> 8) & 0xFF, d2 = (d >> 16) & 0xFF;
+                    int result = blendAlpha(s >>> 24, d >>> 24) << 24
+                            | ((d2 < 128 ? d2 * s2 >> 7 : 255 - ((255 - d2) * (255 - s2) >> 7)) & 0xFF) << 16
+                            | ((d1 < 128 ? d1 * s1 >> 7 : 255 - ((255 - d1) * (255 - s1) >> 7)) & 0xFF) << 8
+                            | ((d0 < 128 ? d0 * s0 >> 7 : 255 - ((255 - d0) * (255 - s0) >> 7)) & 0xFF);
+                    out[outPos + i] = mixTable == null ? result : mix(d, result, mixTable);
+                }
+            }
         },
 
         /**
@@ -388,6 +518,22 @@ public final class BlendComposite implements Composite {
                         : 255 - ((255 - src[2]) * (255 - dst[2]) >> 7);
                 result[3] = Math.min(255, src[3] + dst[3] - (src[3] * dst[3]) / 255);
             }
+
+            @Override
+            void blendRow(int[] src, int srcPos, int[] dst, int dstPos,
+                    int[] out, int outPos, int length, float alpha, byte[] mixTable, boolean rgb) {
+                for (int i = 0; i < length; i++) {
+                    int s = src[srcPos + i];
+                    int d = dst[dstPos + i];
+                    int s0 = s & 0xFF, s1 = (s >> 8) & 0xFF, s2 = (s >> 16) & 0xFF;
+                    int d0 = d & 0xFF, d1 = (d >> 8) & 0xFF, d2 = (d >> 16) & 0xFF;
+                    int result = blendAlpha(s >>> 24, d >>> 24) << 24
+                            | ((s2 < 128 ? d2 * s2 >> 7 : 255 - ((255 - s2) * (255 - d2) >> 7)) & 0xFF) << 16
+                            | ((s1 < 128 ? d1 * s1 >> 7 : 255 - ((255 - s1) * (255 - d1) >> 7)) & 0xFF) << 8
+                            | ((s0 < 128 ? d0 * s0 >> 7 : 255 - ((255 - s0) * (255 - d0) >> 7)) & 0xFF);
+                    out[outPos + i] = mixTable == null ? result : mix(d, result, mixTable);
+                }
+            }
         },
 
         /**
@@ -509,6 +655,22 @@ public final class BlendComposite implements Composite {
                 result[2] = Math.abs(dst[2] - src[2]);
                 result[3] = Math.min(255, src[3] + dst[3] - (src[3] * dst[3]) / 255);
             }
+
+            @Override
+            void blendRow(int[] src, int srcPos, int[] dst, int dstPos,
+                    int[] out, int outPos, int length, float alpha, byte[] mixTable, boolean rgb) {
+                for (int i = 0; i < length; i++) {
+                    int s = src[srcPos + i];
+                    int d = dst[dstPos + i];
+                    int s0 = s & 0xFF, s1 = (s >> 8) & 0xFF, s2 = (s >> 16) & 0xFF;
+                    int d0 = d & 0xFF, d1 = (d >> 8) & 0xFF, d2 = (d >> 16) & 0xFF;
+                    int result = blendAlpha(s >>> 24, d >>> 24) << 24
+                            | ((Math.abs(d2 - s2)) & 0xFF) << 16
+                            | ((Math.abs(d1 - s1)) & 0xFF) << 8
+                            | ((Math.abs(d0 - s0)) & 0xFF);
+                    out[outPos + i] = mixTable == null ? result : mix(d, result, mixTable);
+                }
+            }
         },
 
         /**
@@ -524,6 +686,22 @@ public final class BlendComposite implements Composite {
                 result[2] = dst[2] + src[2] - (dst[2] * src[2] >> 7);
                 result[3] = Math.min(255, src[3] + dst[3] - (src[3] * dst[3]) / 255);
             }
+
+            @Override
+            void blendRow(int[] src, int srcPos, int[] dst, int dstPos,
+                    int[] out, int outPos, int length, float alpha, byte[] mixTable, boolean rgb) {
+                for (int i = 0; i < length; i++) {
+                    int s = src[srcPos + i];
+                    int d = dst[dstPos + i];
+                    int s0 = s & 0xFF, s1 = (s >> 8) & 0xFF, s2 = (s >> 16) & 0xFF;
+                    int d0 = d & 0xFF, d1 = (d >> 8) & 0xFF, d2 = (d >> 16) & 0xFF;
+                    int result = blendAlpha(s >>> 24, d >>> 24) << 24
+                            | ((d2 + s2 - (d2 * s2 >> 7)) & 0xFF) << 16
+                            | ((d1 + s1 - (d1 * s1 >> 7)) & 0xFF) << 8
+                            | ((d0 + s0 - (d0 * s0 >> 7)) & 0xFF);
+                    out[outPos + i] = mixTable == null ? result : mix(d, result, mixTable);
+                }
+            }
         },
 
         /**
@@ -673,6 +851,88 @@ public final class BlendComposite implements Composite {
          *             if any argument is {@code null}
          */
         abstract void blend(int[] src, int[] dst, int[] result);
+
+        /**
+         * Blends a row of packed pixels and mixes the result with the opacity.
+         * <p>
+         * The default implementation unpacks each pixel and delegates to
+         * {@link #blend(int[], int[], int[])}. Modes which treat all color
+         * channels alike override this to work on the packed pixels directly,
+         * independent of the channel order.
+         * 
+         * @param src
+         *            the source pixels
+         * @param srcPos
+         *            the index of the first source pixel
+         * @param dst
+         *            the destination pixels
+         * @param dstPos
+         *            the index of the first destination pixel
+         * @param out
+         *            the array to store the blended pixels, may be {@code dst}
+         * @param outPos
+         *            the index of the first blended pixel
+         * @param length
+         *            the number of pixels to blend
+         * @param alpha
+         *            the opacity of the composite
+         * @param mixTable
+         *            the opacity mixing table of the composite, {@code null}
+         *            if fully opaque
+         * @param rgb
+         *            {@code true} if the pixels are stored as INT_ARGB,
+         *            {@code false} if stored as INT_ABGR
+         */
+        void blendRow(int[] src, int srcPos, int[] dst, int dstPos,
+                int[] out, int outPos, int length, float alpha, byte[] mixTable, boolean rgb) {
+            int redShift = rgb ? 16 : 0;
+            int blueShift = rgb ? 0 : 16;
+
+            int[] result = new int[4];
+            int[] srcPixel = new int[4];
+            int[] dstPixel = new int[4];
+
+            for (int i = 0; i < length; i++) {
+                // our arrays are [R, G, B, A]
+                int pixel = src[srcPos + i];
+                srcPixel[0] = (pixel >> redShift) & 0xFF;
+                srcPixel[1] = (pixel >>  8) & 0xFF;
+                srcPixel[2] = (pixel >> blueShift) & 0xFF;
+                srcPixel[3] = (pixel >> 24) & 0xFF;
+
+                pixel = dst[dstPos + i];
+                dstPixel[0] = (pixel >> redShift) & 0xFF;
+                dstPixel[1] = (pixel >>  8) & 0xFF;
+                dstPixel[2] = (pixel >> blueShift) & 0xFF;
+                dstPixel[3] = (pixel >> 24) & 0xFF;
+
+                blend(srcPixel, dstPixel, result);
+
+                // mixes the result with the opacity
+                out[outPos + i] = ((int) (dstPixel[3] + (result[3] - dstPixel[3]) * alpha) & 0xFF) << 24 |
+                                  ((int) (dstPixel[0] + (result[0] - dstPixel[0]) * alpha) & 0xFF) << redShift |
+                                  ((int) (dstPixel[1] + (result[1] - dstPixel[1]) * alpha) & 0xFF) <<  8 |
+                                  ((int) (dstPixel[2] + (result[2] - dstPixel[2]) * alpha) & 0xFF) << blueShift;
+            }
+        }
+
+        /**
+         * The alpha of a blended pixel, shared by most modes.
+         */
+        private static int blendAlpha(int srcAlpha, int dstAlpha) {
+            return Math.min(255, srcAlpha + dstAlpha - (srcAlpha * dstAlpha) / 255);
+        }
+
+        /**
+         * Mixes the packed result with the packed destination by the opacity,
+         * looked up in the composite's mixing table.
+         */
+        private static int mix(int dst, int result, byte[] mixTable) {
+            return (mixTable[(dst >>> 24) << 8 | (result >>> 24)] & 0xFF) << 24 |
+                   (mixTable[(dst >> 8) & 0xFF00 | (result >> 16) & 0xFF] & 0xFF) << 16 |
+                   (mixTable[dst & 0xFF00 | (result >> 8) & 0xFF] & 0xFF) << 8 |
+                   (mixTable[(dst & 0xFF) << 8 | result & 0xFF] & 0xFF);
+        }
     }
 
     public static final BlendComposite Average = new BlendComposite(BlendingMode.AVERAGE);
@@ -714,6 +974,12 @@ public final class BlendComposite implements Composite {
     private final float alpha;
     private final BlendingMode mode;
 
+    /**
+     * The lazily created results of mixing a destination with a blended
+     * channel value by the opacity, indexed by <code>dst &lt;&lt; 8 | result</code>.
+     */
+    private volatile byte[] mixTable;
+
     private BlendComposite(BlendingMode mode) {
         this(mode, 1.0f);
     }
@@ -825,6 +1091,28 @@ public final class BlendComposite implements Composite {
         return mode == bc.mode && alpha == bc.alpha;
     }
 
+    /**
+     * Returns the table to mix blended channel values with the opacity, null
+     * if fully opaque. The table gives the same results as mixing the values
+     * in floating point.
+     */
+    private byte[] getMixTable() {
+        if (alpha == 1.0f) {
+            return null;
+        }
+        byte[] table = mixTable;
+        if (table == null) {
+            table = new byte[256 * 256];
+            for (int d = 0; d < 256; d++) {
+                for (int r = 0; r < 256; r++) {
+                    table[d << 8 | r] = (byte) (int) (d + (r - d) * alpha);
+                }
+            }
+            mixTable = table;
+        }
+        return table;
+    }
+
     private static boolean isRgbColorModel(ColorModel cm) {
         if (cm instanceof DirectColorModel &&
                 cm.getTransferType() == DataBuffer.TYPE_INT) {
@@ -872,10 +1160,46 @@ public final class BlendComposite implements Composite {
     }
 
     private static abstract class BlendingContext implements CompositeContext {
+        /**
+         * The number of pixels above which the rows are blended in parallel.
+         */
+        private static final int PARALLEL_THRESHOLD = 1 << 16;
+
+        /**
+         * The minimal number of rows blended by a single task.
+         */
+        private static final int MIN_ROWS_PER_TASK = 16;
+
         protected final BlendComposite composite;
 
-        private BlendingContext(BlendComposite composite) {
+        private final boolean rgb;
+
+        private BlendingContext(BlendComposite composite, boolean rgb) {
             this.composite = composite;
+            this.rgb = rgb;
+        }
+
+        /**
+         * {@inheritDoc} <p>
+         * Overridden to blend bands of rows in parallel for large areas. The
+         * rows are copied with getDataElements/setDataElements instead of 
+         * accessing the backing arrays, which would keep the images from 
+         * being accelerated.
+         */
+        @Override
+        public void compose(Raster src, Raster dstIn, WritableRaster dstOut) {
+            int width = Math.min(src.getWidth(), dstIn.getWidth());
+            int height = Math.min(src.getHeight(), dstIn.getHeight());
+
+            BlendTask task = new BlendTask(composite.getMode(), composite.getAlpha(),
+                    composite.getMixTable(), rgb, src, dstIn, dstOut, width, 0, height);
+            if ((long) width * height >= PARALLEL_THRESHOLD
+                    && height >= 2 * MIN_ROWS_PER_TASK
+                    && Runtime.getRuntime().availableProcessors() > 1) {
+                ForkJoinPool.commonPool().invoke(task);
+            } else {
+                task.compute();
+            }
         }
 
         @Override
@@ -883,101 +1207,69 @@ public final class BlendComposite implements Composite {
         }
     }
 
-    private static class BlendingRgbContext extends BlendingContext {
-        private BlendingRgbContext(BlendComposite composite) {
-            super(composite);
+    /**
+     * Blends a band of rows, splits itself if the band is large.
+     */
+    @SuppressWarnings("serial")
+    private static class BlendTask extends RecursiveAction {
+        private final BlendingMode mode;
+        private final float alpha;
+        private final byte[] mixTable;
+        private final boolean rgb;
+        private final Raster src;
+        private final Raster dstIn;
+        private final WritableRaster dstOut;
+        private final int width;
+        private final int firstRow;
+        private final int endRow;
+
+        BlendTask(BlendingMode mode, float alpha, byte[] mixTable, boolean rgb, Raster src,
+                Raster dstIn, WritableRaster dstOut, int width, int firstRow, int endRow) {
+            this.mode = mode;
+            this.alpha = alpha;
+            this.mixTable = mixTable;
+            this.rgb = rgb;
+            this.src = src;
+            this.dstIn = dstIn;
+            this.dstOut = dstOut;
+            this.width = width;
+            this.firstRow = firstRow;
+            this.endRow = endRow;
         }
 
         @Override
-        public void compose(Raster src, Raster dstIn, WritableRaster dstOut) {
-            int width = Math.min(src.getWidth(), dstIn.getWidth());
-            int height = Math.min(src.getHeight(), dstIn.getHeight());
-
-            float alpha = composite.getAlpha();
-
-            int[] result = new int[4];
-            int[] srcPixel = new int[4];
-            int[] dstPixel = new int[4];
+        protected void compute() {
+            int rows = endRow - firstRow;
+            if (getPool() != null && rows >= 2 * BlendingContext.MIN_ROWS_PER_TASK
+                    && (long) rows * width >= BlendingContext.PARALLEL_THRESHOLD / 4) {
+                int middle = firstRow + rows / 2;
+                invokeAll(new BlendTask(mode, alpha, mixTable, rgb, src, dstIn, dstOut, width, firstRow, middle),
+                          new BlendTask(mode, alpha, mixTable, rgb, src, dstIn, dstOut, width, middle, endRow));
+                return;
+            }
             int[] srcPixels = new int[width];
             int[] dstPixels = new int[width];
 
-            for (int y = 0; y < height; y++) {
+            for (int y = firstRow; y < endRow; y++) {
                 src.getDataElements(0, y, width, 1, srcPixels);
                 dstIn.getDataElements(0, y, width, 1, dstPixels);
-                for (int x = 0; x < width; x++) {
-                    // pixels are stored as INT_ARGB
-                    // our arrays are [R, G, B, A]
-                    int pixel = srcPixels[x];
-                    srcPixel[0] = (pixel >> 16) & 0xFF;
-                    srcPixel[1] = (pixel >>  8) & 0xFF;
-                    srcPixel[2] = (pixel      ) & 0xFF;
-                    srcPixel[3] = (pixel >> 24) & 0xFF;
-
-                    pixel = dstPixels[x];
-                    dstPixel[0] = (pixel >> 16) & 0xFF;
-                    dstPixel[1] = (pixel >>  8) & 0xFF;
-                    dstPixel[2] = (pixel      ) & 0xFF;
-                    dstPixel[3] = (pixel >> 24) & 0xFF;
-
-                    composite.getMode().blend(srcPixel, dstPixel, result);
-
-                    // mixes the result with the opacity
-                    dstPixels[x] = ((int) (dstPixel[3] + (result[3] - dstPixel[3]) * alpha) & 0xFF) << 24 |
-                                   ((int) (dstPixel[0] + (result[0] - dstPixel[0]) * alpha) & 0xFF) << 16 |
-                                   ((int) (dstPixel[1] + (result[1] - dstPixel[1]) * alpha) & 0xFF) <<  8 |
-                                    (int) (dstPixel[2] + (result[2] - dstPixel[2]) * alpha) & 0xFF;
-                }
+                mode.blendRow(srcPixels, 0, dstPixels, 0, dstPixels, 0, width, alpha, mixTable, rgb);
                 dstOut.setDataElements(0, y, width, 1, dstPixels);
             }
         }
     }
 
-    private static class BlendingBgrContext extends BlendingContext {
-        private BlendingBgrContext(BlendComposite composite) {
-            super(composite);
+    private static class BlendingRgbContext extends BlendingContext {
+        // pixels are stored as INT_ARGB
+        private BlendingRgbContext(BlendComposite composite) {
+            super(composite, true);
         }
+    }
 
-        @Override
-        public void compose(Raster src, Raster dstIn, WritableRaster dstOut) {
-            int width = Math.min(src.getWidth(), dstIn.getWidth());
-            int height = Math.min(src.getHeight(), dstIn.getHeight());
-
-            float alpha = composite.getAlpha();
-
-            int[] result = new int[4];
-            int[] srcPixel = new int[4];
-            int[] dstPixel = new int[4];
-            int[] srcPixels = new int[width];
-            int[] dstPixels = new int[width];
-
-            for (int y = 0; y < height; y++) {
-                src.getDataElements(0, y, width, 1, srcPixels);
-                dstIn.getDataElements(0, y, width, 1, dstPixels);
-                for (int x = 0; x < width; x++) {
-                    // pixels are stored as INT_ABGR
-                    // our arrays are [R, G, B, A]
-                    int pixel = srcPixels[x];
-                    srcPixel[0] = (pixel      ) & 0xFF;
-                    srcPixel[1] = (pixel >>  8) & 0xFF;
-                    srcPixel[2] = (pixel >> 16) & 0xFF;
-                    srcPixel[3] = (pixel >> 24) & 0xFF;
-
-                    pixel = dstPixels[x];
-                    dstPixel[0] = (pixel      ) & 0xFF;
-                    dstPixel[1] = (pixel >>  8) & 0xFF;
-                    dstPixel[2] = (pixel >> 16) & 0xFF;
-                    dstPixel[3] = (pixel >> 24) & 0xFF;
-
-                    composite.getMode().blend(srcPixel, dstPixel, result);
-
-                    // mixes the result with the opacity
-                    dstPixels[x] = ((int) (dstPixel[3] + (result[3] - dstPixel[3]) * alpha) & 0xFF) << 24 |
-                                   ((int) (dstPixel[0] + (result[0] - dstPixel[0]) * alpha) & 0xFF)       |
-                                   ((int) (dstPixel[1] + (result[1] - dstPixel[1]) * alpha) & 0xFF) <<  8 |
-                                   ((int) (dstPixel[2] + (result[2] - dstPixel[2]) * alpha) & 0xFF) << 16;
-                }
-                dstOut.setDataElements(0, y, width, 1, dstPixels);
-            }
+    private static class BlendingBgrContext extends BlendingContext {
+        // pixels are stored as INT_ABGR
+        private BlendingBgrContext(BlendComposite composite) {
+            super(composite, false);
         }
     }
 }
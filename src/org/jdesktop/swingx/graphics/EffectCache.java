@@ -0,0 +1,382 @@
+/*
+ * $Id$
+ *
+ * Copyright 2009 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx.graphics;
+
+import java.awt.Shape;
+import java.awt.geom.PathIterator;
+import java.awt.image.BufferedImage;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>A bounded cache of rendered effect images, like the shadows of a
+ * {@link ShadowRenderer} or the reflections of a {@link ReflectionRenderer}.
+ * The least recently used images are evicted when the maximal number of
+ * entries is exceeded. The images are softly referenced, so the garbage
+ * collector may clear them when memory gets low.</p>
+ * <p>An effect is keyed by its source and all properties of the renderer
+ * which affect the result. Sources are either images, which are compared
+ * by identity and weakly referenced, or shapes, which are compared by their
+ * outline. Keying by image identity assumes that the content of a source
+ * image does not change while it is cached. An image whose content is
+ * changed must be {@link #invalidate(Object) invalidated}.</p>
+ * <p>Renderers use a cache only if one is set explicitly. Typically, all
+ * renderers share the same cache:
+ * <pre>
+ * ShadowRenderer renderer = new ShadowRenderer(10, 0.5f, Color.BLACK);
+ * renderer.setCache(EffectCache.getSharedInstance());
+ * </pre></p>
+ * <p>The cached images are shared between all callers and must not be
+ * modified.</p>
+ * <h2>Threading Issues</h2>
+ * <p><code>EffectCache</code> is thread-safe.</p>
+ */
+public class EffectCache {
+    /**
+     * <p>The default maximal number of cached images.</p>
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 64;
+
+    private static EffectCache sharedInstance;
+
+    private final Map<Key, SoftReference<BufferedImage>> entries;
+
+    private int maxEntries;
+
+    private long hitCount;
+    private long missCount;
+
+    /**
+     * <p>Creates a cache with the default maximal number of entries.</p>
+     */
+    public EffectCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * <p>Creates a cache with the given maximal number of entries.</p>
+     *
+     * @param maxEntries the maximal number of cached images
+     * @throws IllegalArgumentException if <code>maxEntries</code> is &lt; 1
+     */
+    public EffectCache(int maxEntries) {
+        this.entries = new LinkedHashMap<Key, SoftReference<BufferedImage>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, SoftReference<BufferedImage>> eldest) {
+                return size() > EffectCache.this.maxEntries;
+            }
+        };
+        setMaxEntries(maxEntries);
+    }
+
+    /**
+     * <p>Returns the cache shared by all renderers of the application.</p>
+     *
+     * @return the shared cache
+     */
+    public static synchronized EffectCache getSharedInstance() {
+        if (sharedInstance == null) {
+            sharedInstance = new EffectCache();
+        }
+        return sharedInstance;
+    }
+
+    /**
+     * <p>Returns the maximal number of cached images.</p>
+     *
+     * @return the maximal number of cached images
+     */
+    public synchronized int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * <p>Sets the maximal number of cached images. If the cache holds more
+     * images, the least recently used ones are evicted.</p>
+     *
+     * @param maxEntries the maximal number of cached images
+     * @throws IllegalArgumentException if <code>maxEntries</code> is &lt; 1
+     */
+    public synchronized void setMaxEntries(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be > 0 but was: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        Iterator<Key> keys = entries.keySet().iterator();
+        while (entries.size() > maxEntries && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    /**
+     * <p>Returns the number of cached images. Images which are cleared by the
+     * garbage collector are counted until they are looked up.</p>
+     *
+     * @return the number of cached images
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * <p>Evicts all cached images. The statistics are not reset.</p>
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * <p>Evicts all images rendered from the given source, an image or a
+     * shape.</p>
+     *
+     * @param source the source of the images to evict
+     */
+    public synchronized void invalidate(Object source) {
+        if (source == null) return;
+        Object value = source instanceof Shape ? new ShapeOutline((Shape) source) : null;
+        Iterator<Key> keys = entries.keySet().iterator();
+        while (keys.hasNext()) {
+            Key key = keys.next();
+            if (value != null ? value.equals(key.source) : key.getSource() == source) {
+                keys.remove();
+            }
+        }
+    }
+
+    /**
+     * <p>Returns the number of lookups which found a cached image.</p>
+     *
+     * @return the number of cache hits
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * <p>Returns the number of lookups which did not find a cached image.</p>
+     *
+     * @return the number of cache misses
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * <p>Returns the ratio of lookups which found a cached image, between 0.0
+     * and 1.0. Returns 0.0 if there has not been any lookup.</p>
+     *
+     * @return the hit rate of this cache
+     */
+    public synchronized double getHitRate() {
+        long lookups = hitCount + missCount;
+        return lookups == 0 ? 0.0 : (double) hitCount / lookups;
+    }
+
+    /**
+     * <p>Resets the hit and miss counts to 0.</p>
+     */
+    public synchronized void resetStatistics() {
+        hitCount = 0;
+        missCount = 0;
+    }
+
+    /**
+     * <p>Returns the image cached for the given key, or null if none.
+     * Counts the lookup as hit or miss.</p>
+     */
+    synchronized BufferedImage get(Key key) {
+        SoftReference<BufferedImage> reference = entries.get(key);
+        BufferedImage image = reference != null ? reference.get() : null;
+        if (image == null) {
+            if (reference != null) {
+                entries.remove(key);
+            }
+            missCount++;
+        } else {
+            hitCount++;
+        }
+        return image;
+    }
+
+    /**
+     * <p>Caches the given image for the given key. Evicts the entries whose
+     * source image or cached image has been garbage collected.</p>
+     */
+    synchronized void put(Key key, BufferedImage image) {
+        Iterator<Map.Entry<Key, SoftReference<BufferedImage>>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, SoftReference<BufferedImage>> entry = it.next();
+            if (entry.getKey().isStale() || entry.getValue().get() == null) {
+                it.remove();
+            }
+        }
+        entries.put(key, new SoftReference<BufferedImage>(image));
+    }
+
+    /**
+     * <p>Creates the key of an effect of the given image, compared by
+     * identity.</p>
+     *
+     * @param kind the kind of effect, distinguishes the renderers
+     * @param image the source image
+     * @param properties the properties of the renderer which affect the result
+     */
+    static Key createKey(String kind, BufferedImage image, int... properties) {
+        return new Key(kind, new WeakReference<Object>(image), image, properties);
+    }
+
+    /**
+     * <p>Creates the key of an effect of the given shape, compared by
+     * outline.</p>
+     *
+     * @param kind the kind of effect, distinguishes the renderers
+     * @param shape the source shape
+     * @param properties the properties of the renderer which affect the result
+     */
+    static Key createKey(String kind, Shape shape, int... properties) {
+        ShapeOutline outline = new ShapeOutline(shape);
+        return new Key(kind, outline, outline, properties);
+    }
+
+    /**
+     * The key of a cached image.
+     */
+    static final class Key {
+        private final String kind;
+        // either a WeakReference to an image or a ShapeOutline
+        private final Object source;
+        private final int[] properties;
+        private final int hash;
+
+        private Key(String kind, Object source, Object referent, int[] properties) {
+            this.kind = kind;
+            this.source = source;
+            this.properties = properties;
+            int h = kind.hashCode();
+            h = 31 * h + (source instanceof WeakReference<?>
+                    ? System.identityHashCode(referent) : source.hashCode());
+            h = 31 * h + Arrays.hashCode(properties);
+            this.hash = h;
+        }
+
+        Object getSource() {
+            return source instanceof WeakReference<?>
+                    ? ((WeakReference<?>) source).get() : source;
+        }
+
+        boolean isStale() {
+            return getSource() == null;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof Key)) return false;
+            Key other = (Key) obj;
+            if (hash != other.hash || !kind.equals(other.kind)
+                    || !Arrays.equals(properties, other.properties)) {
+                return false;
+            }
+            if (source instanceof WeakReference<?>) {
+                Object referent = getSource();
+                return referent != null && other.source instanceof WeakReference<?>
+                        && referent == other.getSource();
+            }
+            return source.equals(other.source);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * The outline of a shape, copied so later changes of the shape don't
+     * affect it.
+     */
+    private static final class ShapeOutline {
+        private final int windingRule;
+        private final byte[] types;
+        private final float[] coords;
+        private final int hash;
+
+        ShapeOutline(Shape shape) {
+            PathIterator it = shape.getPathIterator(null);
+            windingRule = it.getWindingRule();
+            byte[] segmentTypes = new byte[16];
+            float[] segmentCoords = new float[64];
+            float[] segment = new float[6];
+            int segments = 0;
+            int length = 0;
+            for (; !it.isDone(); it.next()) {
+                int type = it.currentSegment(segment);
+                if (segments == segmentTypes.length) {
+                    segmentTypes = Arrays.copyOf(segmentTypes, segments * 2);
+                }
+                segmentTypes[segments++] = (byte) type;
+                int count = coordCount(type);
+                if (length + count > segmentCoords.length) {
+                    segmentCoords = Arrays.copyOf(segmentCoords, segmentCoords.length * 2);
+                }
+                System.arraycopy(segment, 0, segmentCoords, length, count);
+                length += count;
+            }
+            types = Arrays.copyOf(segmentTypes, segments);
+            coords = Arrays.copyOf(segmentCoords, length);
+            hash = 31 * (31 * windingRule + Arrays.hashCode(types)) + Arrays.hashCode(coords);
+        }
+
+        private static int coordCount(int type) {
+            switch (type) {
+            case PathIterator.SEG_MOVETO:
+            case PathIterator.SEG_LINETO:
+                return 2;
+            case PathIterator.SEG_QUADTO:
+                return 4;
+            case PathIterator.SEG_CUBICTO:
+                return 6;
+            default:
+                return 0;
+            }
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof ShapeOutline)) return false;
+            ShapeOutline other = (ShapeOutline) obj;
+            return hash == other.hash && windingRule == other.windingRule
+                    && Arrays.equals(types, other.types)
+                    && Arrays.equals(coords, other.coords);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
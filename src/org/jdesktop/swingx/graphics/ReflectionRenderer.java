@@ -100,6 +100,11 @@ import org.jdesktop.swingx.util.GraphicsUtilities;
  * useful when you embed the renderer in a graphical component and give the API
  * user the ability to access the renderer. By listening to properties changes,
  * you can easily repaint the component when needed.</p>
+ * <h2>Caching</h2>
+ * <p>When an {@link EffectCache} is set with {@link #setCache}, the
+ * reflections created by {@link #createReflection(java.awt.image.BufferedImage)}
+ * are cached by source image and properties. The source images must not
+ * change while cached.</p>
  * <h2>Threading Issues</h2>
  * <p><code>ReflectionRenderer</code> is not guaranteed to be thread-safe.</p>
  *
@@ -121,6 +126,14 @@ public class ReflectionRenderer {
      */
     public static final String BLUR_ENABLED_CHANGED_PROPERTY = "reflection_blur";
 
+    /**
+     * <p>Identifies a change to the cache used to store rendered reflections.</p>
+     */
+    public static final String CACHE_CHANGED_PROPERTY = "reflection_cache";
+
+    // identifies the reflections in the cache
+    private static final String CACHE_KIND = "reflection";
+
     // opacity of the reflection
     private float opacity;
 
@@ -130,6 +143,9 @@ public class ReflectionRenderer {
     // should the reflection be blurred?
     private boolean blurEnabled;
 
+    // caches the rendered reflections, may be null
+    private EffectCache cache;
+
     // notifies listeners of properties changes
     private PropertyChangeSupport changeSupport;
     private StackBlurFilter stackBlurFilter;
@@ -410,6 +426,33 @@ public class ReflectionRenderer {
         this.stackBlurFilter = new StackBlurFilter(radius);
     }
 
+    /**
+     * <p>Gets the cache used by the renderer to store rendered reflections.</p>
+     *
+     * @return this renderer's cache, may be null
+     */
+    public EffectCache getCache() {
+        return cache;
+    }
+
+    /**
+     * <p>Sets the cache used by the renderer to store rendered reflections.
+     * Consecutive calls to {@link #createReflection} for the same source image
+     * and properties return the cached reflection instead of rendering it
+     * again.</p>
+     * <p>Images are cached by identity, so their content must not change
+     * while cached. A null cache, the default, disables the caching.</p>
+     *
+     * @param cache the cache to store rendered reflections, may be null
+     */
+    public void setCache(EffectCache cache) {
+        EffectCache oldCache = this.cache;
+        this.cache = cache;
+        changeSupport.firePropertyChange(CACHE_CHANGED_PROPERTY,
+                                         oldCache,
+                                         this.cache);
+    }
+
     /**
      * <p>Returns the source image and its reflection. The appearance of the
      * reflection is defined by the opacity, the length and the blur
@@ -447,7 +490,9 @@ public class ReflectionRenderer {
             g2.dispose();
         }
         
-        reflection.flush();
+        if (cache == null) {
+            reflection.flush();
+        }
 
         return buffer;
     }
@@ -471,12 +516,30 @@ public class ReflectionRenderer {
      * the illusion of a reflective environment. The method
      * {@link #appendReflection(java.awt.image.BufferedImage)} provides an easy
      * way to create an image containing both the source and the reflection.</p>
+     * <p>If this renderer has a cache, the returned reflection may be shared
+     * and must not be modified.</p>
      *
      * @param image the source image
      * @return the reflection of the source image
      * @see #appendReflection(java.awt.image.BufferedImage)
      */
     public BufferedImage createReflection(BufferedImage image) {
+        if (cache == null) {
+            return renderReflection(image);
+        }
+        EffectCache.Key key = EffectCache.createKey(CACHE_KIND, image,
+                image.getWidth(), image.getHeight(),
+                Float.floatToIntBits(opacity), Float.floatToIntBits(length),
+                isBlurEnabled() ? stackBlurFilter.getRadius() : -1);
+        BufferedImage reflection = cache.get(key);
+        if (reflection == null) {
+            reflection = renderReflection(image);
+            cache.put(key, reflection);
+        }
+        return reflection;
+    }
+
+    private BufferedImage renderReflection(BufferedImage image) {
         if (length == 0.0f) {
             return GraphicsUtilities.createCompatibleTranslucentImage(1, 1);
         }
@@ -509,7 +572,8 @@ public class ReflectionRenderer {
             g2.dispose();
         }
         
-        return isBlurEnabled() ? stackBlurFilter.filter(buffer, null) :
+        // the blur reads all pixels before writing, so it can filter in place
+        return isBlurEnabled() ? stackBlurFilter.filter(buffer, buffer) :
                 buffer;
     }
 }
@@ -22,10 +22,16 @@ package org.jdesktop.swingx.graphics;
 
 import static org.jdesktop.swingx.util.GraphicsUtilities.createCompatibleTranslucentImage;
 
+import java.awt.AlphaComposite;
 import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
+import java.util.Arrays;
 
 import org.jdesktop.swingx.util.GraphicsUtilities;
 
@@ -80,6 +86,18 @@ import org.jdesktop.swingx.util.GraphicsUtilities;
  * useful when you embed the renderer in a graphical component and give the API
  * user the ability to access the renderer. By listening to properties changes,
  * you can easily repaint the component when needed.</p>
+ * <h2>Caching</h2>
+ * <p>When an {@link EffectCache} is set with {@link #setCache}, the shadows
+ * created by {@link #createShadow(BufferedImage)} and
+ * {@link #createShadow(Shape)} are cached. Drawing the shadows of many
+ * components of the same shape then renders each shadow only once:
+ * <pre>
+ * renderer.setCache(EffectCache.getSharedInstance());
+ * BufferedImage shadow = renderer.createShadow(
+ *         new RoundRectangle2D.Float(0, 0, width, height, 12, 12));
+ * </pre></p>
+ * <p>Repeated shadows of images of the same size can be rendered without
+ * allocations with {@link #createShadow(BufferedImage, BufferedImage)}.</p>
  * <h2>Threading Issues</h2>
  * <p><code>ShadowRenderer</code> is not guaranteed to be thread-safe.</p>
  * 
@@ -106,6 +124,14 @@ public class ShadowRenderer {
      */
     public static final String COLOR_CHANGED_PROPERTY = "shadow_color";
 
+    /**
+     * <p>Identifies a change to the cache used to store rendered shadows.</p>
+     */
+    public static final String CACHE_CHANGED_PROPERTY = "shadow_cache";
+
+    // identifies the shadows in the cache
+    private static final String CACHE_KIND = "shadow";
+
     // size of the shadow in pixels (defines the fuzziness)
     private int size = 5;
     
@@ -115,9 +141,22 @@ public class ShadowRenderer {
     // color of the shadow
     private Color color = Color.BLACK;
     
+    // caches the rendered shadows, may be null
+    private EffectCache cache;
+
     // notifies listeners of properties changes
     private PropertyChangeSupport changeSupport;
 
+    // scratch buffers, re-used by consecutive calls
+    private int[] srcBuffer;
+    private int[] dstBuffer;
+    private int[] aHistory;
+    private int[] hSumLookup;
+    private int[] vSumLookup;
+    private int lookupSize = -1;
+    private float lookupOpacity = -1.0f;
+    private BufferedImage maskBuffer;
+
     /**
      * <p>Creates a default good looking shadow generator.
      * The default shadow renderer provides the following default values:
@@ -270,6 +309,31 @@ public class ShadowRenderer {
                                          new Integer(this.size));
     }
 
+    /**
+     * <p>Gets the cache used by the renderer to store rendered shadows.</p>
+     * @return this renderer's cache, may be null
+     */
+    public EffectCache getCache() {
+        return cache;
+    }
+
+    /**
+     * <p>Sets the cache used by the renderer to store rendered shadows.
+     * Consecutive calls to {@link #createShadow(BufferedImage)} and
+     * {@link #createShadow(Shape)} for the same source and properties return
+     * the cached shadow instead of rendering it again.</p>
+     * <p>Images are cached by identity, so their content must not change
+     * while cached. A null cache, the default, disables the caching.</p>
+     * @param cache the cache to store rendered shadows, may be null
+     */
+    public void setCache(final EffectCache cache) {
+        EffectCache oldCache = this.cache;
+        this.cache = cache;
+        changeSupport.firePropertyChange(CACHE_CHANGED_PROPERTY,
+                                         oldCache,
+                                         this.cache);
+    }
+
     /**
      * <p>Generates the shadow for a given picture and the current properties
      * of the renderer.</p>
@@ -278,10 +342,100 @@ public class ShadowRenderer {
      * width  = imageWidth  + 2 * shadowSize
      * height = imageHeight + 2 * shadowSize
      * </pre>
+     * <p>If this renderer has a cache, the returned shadow may be shared and
+     * must not be modified.</p>
      * @param image the picture from which the shadow must be cast
      * @return the picture containing the shadow of <code>image</code> 
      */
     public BufferedImage createShadow(final BufferedImage image) {
+        if (cache == null) {
+            return createShadow(image, null);
+        }
+        EffectCache.Key key = EffectCache.createKey(CACHE_KIND, image,
+                image.getWidth(), image.getHeight(), size,
+                Float.floatToIntBits(opacity), color.getRGB());
+        BufferedImage shadow = cache.get(key);
+        if (shadow == null) {
+            shadow = createShadow(image, null);
+            cache.put(key, shadow);
+        }
+        return shadow;
+    }
+
+    /**
+     * <p>Generates the shadow for a given shape and the current properties
+     * of the renderer. The shape is filled, anti-aliased, at the origin of its
+     * bounds and the shadow is cast from the filled area.</p>
+     * <p>The generated image dimensions are computed as following:</p>
+     * <pre>
+     * width  = ceil(shapeWidth)  + 2 * shadowSize
+     * height = ceil(shapeHeight) + 2 * shadowSize
+     * </pre>
+     * <p>If this renderer has a cache, the returned shadow may be shared and
+     * must not be modified.</p>
+     * @param shape the shape from which the shadow must be cast
+     * @return the picture containing the shadow of <code>shape</code>
+     */
+    public BufferedImage createShadow(final Shape shape) {
+        EffectCache.Key key = null;
+        if (cache != null) {
+            key = EffectCache.createKey(CACHE_KIND, shape, size,
+                    Float.floatToIntBits(opacity), color.getRGB());
+            BufferedImage shadow = cache.get(key);
+            if (shadow != null) {
+                return shadow;
+            }
+        }
+        BufferedImage shadow = createShadow(createMask(shape), null);
+        if (key != null) {
+            cache.put(key, shadow);
+        }
+        return shadow;
+    }
+
+    /**
+     * <p>Returns an image containing the given shape filled at the origin of
+     * its bounds. The image is re-used by consecutive calls.</p>
+     */
+    private BufferedImage createMask(final Shape shape) {
+        Rectangle2D bounds = shape.getBounds2D();
+        int width = Math.max(1, (int) Math.ceil(bounds.getWidth()));
+        int height = Math.max(1, (int) Math.ceil(bounds.getHeight()));
+        if (maskBuffer == null || maskBuffer.getWidth() != width
+                || maskBuffer.getHeight() != height) {
+            maskBuffer = createCompatibleTranslucentImage(width, height);
+        }
+        Graphics2D g2 = maskBuffer.createGraphics();
+        try {
+            g2.setComposite(AlphaComposite.Clear);
+            g2.fillRect(0, 0, width, height);
+            g2.setComposite(AlphaComposite.SrcOver);
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                                RenderingHints.VALUE_ANTIALIAS_ON);
+            g2.setColor(Color.BLACK);
+            g2.translate(-bounds.getX(), -bounds.getY());
+            g2.fill(shape);
+        } finally {
+            g2.dispose();
+        }
+        return maskBuffer;
+    }
+
+    /**
+     * <p>Generates the shadow for a given picture and the current properties
+     * of the renderer into the given destination. The cache is not used.</p>
+     * <p>The pixel buffers used for rendering are kept and re-used by
+     * consecutive calls. Together with a re-used destination, rendering
+     * shadows of images of the same size does not allocate memory.</p>
+     * @param image the picture from which the shadow must be cast
+     * @param dst the picture to render the shadow into, or null to create a
+     *   new one. Must have the dimensions of the shadow.
+     * @return the picture containing the shadow of <code>image</code>
+     * @throws IllegalArgumentException if <code>dst</code> has other
+     *   dimensions than the shadow
+     * @see #createShadow(BufferedImage)
+     */
+    public BufferedImage createShadow(final BufferedImage image, BufferedImage dst) {
         // Written by Sesbastien Petrucci
         int shadowSize = size * 2;
 
@@ -297,31 +451,31 @@ public class ShadowRenderer {
         int yStop = dstHeight - right;
 
         int shadowRgb = color.getRGB() & 0x00FFFFFF;
-        int[] aHistory = new int[shadowSize];
         int historyIdx;
 
         int aSum;
 
-        BufferedImage dst = createCompatibleTranslucentImage(dstWidth, dstHeight);
+        if (dst == null) {
+            dst = createCompatibleTranslucentImage(dstWidth, dstHeight);
+        } else if (dst.getWidth() != dstWidth || dst.getHeight() != dstHeight) {
+            throw new IllegalArgumentException("dst must be " + dstWidth + "x"
+                    + dstHeight + " but was " + dst.getWidth() + "x" + dst.getHeight());
+        }
+
+        prepareBuffers(srcWidth * srcHeight, dstWidth * dstHeight, shadowSize);
+        int[] aHistory = this.aHistory;
+        int[] dstBuffer = this.dstBuffer;
+        int[] srcBuffer = this.srcBuffer;
+        int[] hSumLookup = this.hSumLookup;
+        int[] vSumLookup = this.vSumLookup;
 
-        int[] dstBuffer = new int[dstWidth * dstHeight];
-        int[] srcBuffer = new int[srcWidth * srcHeight];
+        // the rows above and below the source are read as empty
+        Arrays.fill(dstBuffer, 0, left * dstWidth, 0);
+        Arrays.fill(dstBuffer, (left + srcHeight) * dstWidth, dstWidth * dstHeight, 0);
 
         GraphicsUtilities.getPixels(image, 0, 0, srcWidth, srcHeight, srcBuffer);
 
         int lastPixelOffset = right * dstWidth;
-        float hSumDivider = 1.0f / shadowSize;
-        float vSumDivider = opacity / shadowSize;
-
-        int[] hSumLookup = new int[256 * shadowSize];
-        for (int i = 0; i < hSumLookup.length; i++) {
-            hSumLookup[i] = (int) (i * hSumDivider);
-        }
-
-        int[] vSumLookup = new int[256 * shadowSize];
-        for (int i = 0; i < vSumLookup.length; i++) {
-            vSumLookup[i] = (int) (i * vSumDivider);
-        }
 
         int srcOffset;
 
@@ -426,4 +580,35 @@ public class ShadowRenderer {
         GraphicsUtilities.setPixels(dst, 0, 0, dstWidth, dstHeight, dstBuffer);
         return dst;
     }
+
+    /**
+     * <p>Ensures the scratch buffers are big enough and the lookup tables
+     * match the current size and opacity.</p>
+     */
+    private void prepareBuffers(int srcLength, int dstLength, int shadowSize) {
+        if (srcBuffer == null || srcBuffer.length < srcLength) {
+            srcBuffer = new int[srcLength];
+        }
+        if (dstBuffer == null || dstBuffer.length < dstLength) {
+            dstBuffer = new int[dstLength];
+        }
+        if (lookupSize != shadowSize) {
+            aHistory = new int[shadowSize];
+            float hSumDivider = 1.0f / shadowSize;
+            hSumLookup = new int[256 * shadowSize];
+            for (int i = 0; i < hSumLookup.length; i++) {
+                hSumLookup[i] = (int) (i * hSumDivider);
+            }
+            vSumLookup = new int[256 * shadowSize];
+            lookupOpacity = -1.0f;
+            lookupSize = shadowSize;
+        }
+        if (lookupOpacity != opacity) {
+            float vSumDivider = opacity / shadowSize;
+            for (int i = 0; i < vSumLookup.length; i++) {
+                vSumLookup[i] = (int) (i * vSumDivider);
+            }
+            lookupOpacity = opacity;
+        }
+    }
 }
@@ -41,6 +41,9 @@ import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.awt.image.BufferedImageOp;
 import java.awt.image.ColorModel;
+import java.lang.ref.SoftReference;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import org.jdesktop.beans.AbstractBean;
 
@@ -53,9 +56,149 @@ import org.jdesktop.beans.AbstractBean;
  */
 
 public abstract class AbstractFilter extends AbstractBean implements BufferedImageOp {
+    /**
+     * The number of pixels above which the rows are processed in parallel.
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    /**
+     * The minimal number of rows processed by a single task.
+     */
+    private static final int MIN_ROWS_PER_TASK = 8;
+
+    /**
+     * The number of scratch buffers per thread.
+     */
+    private static final int SCRATCH_BUFFERS = 2;
+
+    /**
+     * The scratch buffers of the filtering thread, softly referenced to not
+     * pin the memory of big images.
+     */
+    private static final ThreadLocal<SoftReference<int[][]>> scratchBuffers =
+            new ThreadLocal<SoftReference<int[][]>>();
+
+    private boolean parallel;
+
     @Override
     public abstract BufferedImage filter(BufferedImage src, BufferedImage dest);
 
+    /**
+     * <p>Sets whether this filter splits its work across the common
+     * <code>ForkJoinPool</code>. Only large images are filtered in parallel,
+     * the result is the same as filtering sequentially.</p>
+     *
+     * @param parallel true to filter large images in parallel, false to filter
+     *   on the calling thread only
+     */
+    public void setParallel(boolean parallel) {
+        boolean old = isParallel();
+        this.parallel = parallel;
+        firePropertyChange("parallel", old, isParallel());
+    }
+
+    /**
+     * <p>Returns whether this filter splits its work across the common
+     * <code>ForkJoinPool</code>. The default is false.</p>
+     *
+     * @return true if large images are filtered in parallel
+     */
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    /**
+     * <p>Processes the rows 0 to <code>rowCount</code> by the given processor.
+     * If this filter is parallel and the number of pixels is big enough, the
+     * rows are split into bands which are processed concurrently. Otherwise
+     * all rows are processed on the calling thread.</p>
+     *
+     * <p>The processor must not write to pixels of other rows than the ones
+     * passed into it.</p>
+     *
+     * @param rowCount the number of rows to process
+     * @param rowLength the number of pixels per row
+     * @param processor the processor to apply to the rows
+     */
+    protected void processRows(int rowCount, int rowLength, RowProcessor processor) {
+        if (isParallel() && (long) rowCount * rowLength >= PARALLEL_THRESHOLD
+                && rowCount >= 2 * MIN_ROWS_PER_TASK
+                && Runtime.getRuntime().availableProcessors() > 1) {
+            int parallelism = ForkJoinPool.getCommonPoolParallelism();
+            int bandSize = Math.max(MIN_ROWS_PER_TASK, rowCount / (4 * parallelism));
+            ForkJoinPool.commonPool().invoke(new RowTask(processor, 0, rowCount, bandSize));
+        } else {
+            processor.processRows(0, rowCount);
+        }
+    }
+
+    /**
+     * <p>Returns a scratch buffer of at least the given size. The buffers are
+     * kept per thread and re-used by all filters called on it, so the
+     * content is valid until the next call with the same index only.</p>
+     *
+     * @param index the index of the buffer, 0 or 1
+     * @param size the minimal length of the buffer
+     * @return an int array of at least the given length, with undefined content
+     */
+    protected static int[] getScratchBuffer(int index, int size) {
+        SoftReference<int[][]> reference = scratchBuffers.get();
+        int[][] buffers = reference != null ? reference.get() : null;
+        if (buffers == null) {
+            buffers = new int[SCRATCH_BUFFERS][];
+            scratchBuffers.set(new SoftReference<int[][]>(buffers));
+        }
+        if (buffers[index] == null || buffers[index].length < size) {
+            buffers[index] = new int[size];
+        }
+        return buffers[index];
+    }
+
+    /**
+     * <p>Processes a band of rows of an image.</p>
+     *
+     * @see AbstractFilter#processRows(int, int, RowProcessor)
+     */
+    protected interface RowProcessor {
+        /**
+         * <p>Processes the rows from <code>firstRow</code> (inclusive) to
+         * <code>endRow</code> (exclusive).</p>
+         *
+         * @param firstRow the first row to process
+         * @param endRow the row after the last row to process
+         */
+        void processRows(int firstRow, int endRow);
+    }
+
+    /**
+     * Splits the rows into bands until they are small enough.
+     */
+    @SuppressWarnings("serial")
+    private static class RowTask extends RecursiveAction {
+        private final RowProcessor processor;
+        private final int firstRow;
+        private final int endRow;
+        private final int bandSize;
+
+        RowTask(RowProcessor processor, int firstRow, int endRow, int bandSize) {
+            this.processor = processor;
+            this.firstRow = firstRow;
+            this.endRow = endRow;
+            this.bandSize = bandSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (endRow - firstRow <= bandSize) {
+                processor.processRows(firstRow, endRow);
+                return;
+            }
+            int middle = (firstRow + endRow) >>> 1;
+            invokeAll(new RowTask(processor, firstRow, middle, bandSize),
+                      new RowTask(processor, middle, endRow, bandSize));
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
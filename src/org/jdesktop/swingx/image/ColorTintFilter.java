@@ -140,16 +140,22 @@ public class ColorTintFilter extends AbstractFilter {
         int width = src.getWidth();
         int height = src.getHeight();
 
-        int[] pixels = new int[width * height];
+        final int[] pixels = getScratchBuffer(0, width * height);
         GraphicsUtilities.getPixels(src, 0, 0, width, height, pixels);
-        mixColor(pixels);
+        final int rowLength = width;
+        processRows(height, width, new RowProcessor() {
+            @Override
+            public void processRows(int firstRow, int endRow) {
+                mixColor(pixels, firstRow * rowLength, endRow * rowLength);
+            }
+        });
         GraphicsUtilities.setPixels(dst, 0, 0, width, height, pixels);
 
         return dst;
     }
 
-    private void mixColor(int[] pixels) {
-        for (int i = 0; i < pixels.length; i++) {
+    private void mixColor(int[] pixels, int first, int end) {
+        for (int i = first; i < end; i++) {
             int argb = pixels[i];
             pixels[i] = (argb & 0xFF000000) |
                         preMultipliedRed[(argb >> 16)   & 0xFF] << 16 |
@@ -97,15 +97,15 @@ public class FastBlurFilter extends AbstractFilter {
             dst = createCompatibleDestImage(src, null);
         }
 
-        int[] srcPixels = new int[width * height];
-        int[] dstPixels = new int[width * height];
+        int[] srcPixels = getScratchBuffer(0, width * height);
+        int[] dstPixels = getScratchBuffer(1, width * height);
 
         GraphicsUtilities.getPixels(src, 0, 0, width, height, srcPixels);
         // horizontal pass
-        blur(srcPixels, dstPixels, width, height, radius);
+        blur(this, srcPixels, dstPixels, width, height, radius);
         // vertical pass
         //noinspection SuspiciousNameCombination
-        blur(dstPixels, srcPixels, height, width, radius);
+        blur(this, dstPixels, srcPixels, height, width, radius);
         // the result is now stored in srcPixels due to the 2nd pass
         GraphicsUtilities.setPixels(dst, 0, 0, width, height, srcPixels);
 
@@ -128,6 +128,39 @@ public class FastBlurFilter extends AbstractFilter {
      */
     static void blur(int[] srcPixels, int[] dstPixels,
                      int width, int height, int radius) {
+        blur(srcPixels, dstPixels, width, height, radius, 0, height);
+    }
+
+    /**
+     * <p>Blurs the source pixels into the destination pixels, as
+     * {@link #blur(int[], int[], int, int, int)} does. The rows are processed
+     * by the given filter's {@link AbstractFilter#processRows}, that is
+     * possibly in parallel.</p>
+     *
+     * @param filter the filter to process the rows
+     * @param srcPixels the source pixels
+     * @param dstPixels the destination pixels
+     * @param width the width of the source picture
+     * @param height the height of the source picture
+     * @param radius the radius of the blur effect
+     */
+    static void blur(AbstractFilter filter, final int[] srcPixels, final int[] dstPixels,
+                     final int width, final int height, final int radius) {
+        filter.processRows(height, width, new RowProcessor() {
+            @Override
+            public void processRows(int firstRow, int endRow) {
+                blur(srcPixels, dstPixels, width, height, radius, firstRow, endRow);
+            }
+        });
+    }
+
+    /**
+     * <p>Blurs the rows from <code>firstRow</code> (inclusive) to
+     * <code>endRow</code> (exclusive) of the source pixels into the
+     * destination pixels. Writes the transposed columns of these rows only.</p>
+     */
+    private static void blur(int[] srcPixels, int[] dstPixels,
+                     int width, int height, int radius, int firstRow, int endRow) {
         final int windowSize = radius * 2 + 1;
         final int radiusPlusOne = radius + 1;
 
@@ -136,7 +169,7 @@ public class FastBlurFilter extends AbstractFilter {
         int sumGreen;
         int sumBlue;
 
-        int srcIndex = 0;
+        int srcIndex = firstRow * width;
         int dstIndex;
         int pixel;
 
@@ -159,7 +192,7 @@ public class FastBlurFilter extends AbstractFilter {
             }
         }
 
-        for (int y = 0; y < height; y++) {
+        for (int y = firstRow; y < endRow; y++) {
             sumAlpha = sumRed = sumGreen = sumBlue = 0;
             dstIndex = y;
 
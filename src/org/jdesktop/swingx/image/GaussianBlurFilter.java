@@ -83,16 +83,16 @@ public class GaussianBlurFilter extends AbstractFilter {
             dst = createCompatibleDestImage(src, null);
         }
 
-        int[] srcPixels = new int[width * height];
-        int[] dstPixels = new int[width * height];
+        int[] srcPixels = getScratchBuffer(0, width * height);
+        int[] dstPixels = getScratchBuffer(1, width * height);
 
         float[] kernel = createGaussianKernel(radius);
 
         GraphicsUtilities.getPixels(src, 0, 0, width, height, srcPixels);
         // horizontal pass
-        blur(srcPixels, dstPixels, width, height, kernel, radius);
+        blur(this, srcPixels, dstPixels, width, height, kernel, radius);
         // vertical pass
-        blur(dstPixels, srcPixels, height, width, kernel, radius);
+        blur(this, dstPixels, srcPixels, height, width, kernel, radius);
         // the result is now stored in srcPixels due to the 2nd pass
         GraphicsUtilities.setPixels(dst, 0, 0, width, height, srcPixels);
 
@@ -117,6 +117,42 @@ public class GaussianBlurFilter extends AbstractFilter {
     static void blur(int[] srcPixels, int[] dstPixels,
                      int width, int height,
                      float[] kernel, int radius) {
+        blur(srcPixels, dstPixels, width, height, kernel, radius, 0, height);
+    }
+
+    /**
+     * <p>Blurs the source pixels into the destination pixels, as
+     * {@link #blur(int[], int[], int, int, float[], int)} does. The rows are
+     * processed by the given filter's {@link AbstractFilter#processRows}, that
+     * is possibly in parallel.</p>
+     *
+     * @param filter the filter to process the rows
+     * @param srcPixels the source pixels
+     * @param dstPixels the destination pixels
+     * @param width the width of the source picture
+     * @param height the height of the source picture
+     * @param kernel the kernel of the blur effect
+     * @param radius the radius of the blur effect
+     */
+    static void blur(AbstractFilter filter, final int[] srcPixels, final int[] dstPixels,
+                     final int width, final int height,
+                     final float[] kernel, final int radius) {
+        filter.processRows(height, width, new RowProcessor() {
+            @Override
+            public void processRows(int firstRow, int endRow) {
+                blur(srcPixels, dstPixels, width, height, kernel, radius, firstRow, endRow);
+            }
+        });
+    }
+
+    /**
+     * <p>Blurs the rows from <code>firstRow</code> (inclusive) to
+     * <code>endRow</code> (exclusive) of the source pixels into the
+     * destination pixels. Writes the transposed columns of these rows only.</p>
+     */
+    private static void blur(int[] srcPixels, int[] dstPixels,
+                     int width, int height,
+                     float[] kernel, int radius, int firstRow, int endRow) {
         float a;
         float r;
         float g;
@@ -127,7 +163,7 @@ public class GaussianBlurFilter extends AbstractFilter {
         int cg;
         int cb;
 
-        for (int y = 0; y < height; y++) {
+        for (int y = firstRow; y < endRow; y++) {
             int index = y;
             int offset = y * width;
 
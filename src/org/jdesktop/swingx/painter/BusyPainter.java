@@ -24,21 +24,32 @@ package org.jdesktop.swingx.painter;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.Rectangle;
+import java.awt.RenderingHints;
 import java.awt.Shape;
+import java.awt.geom.AffineTransform;
 import java.awt.geom.Ellipse2D;
 import java.awt.geom.PathIterator;
 import java.awt.geom.Point2D;
 import java.awt.geom.Point2D.Float;
+import java.awt.geom.Rectangle2D;
 import java.awt.geom.RoundRectangle2D;
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
 
 import org.jdesktop.beans.JavaBean;
+import org.jdesktop.swingx.util.GraphicsUtilities;
 import org.jdesktop.swingx.util.PaintUtils;
 
 /**
  * A specific painter that paints an "infinite progress" like animation.
+ * <p>
+ * The placement of the points along the trajectory is computed once and reused for all frames
+ * until the trajectory, the point shape, the number of points or the painted size changes.
+ * Shapes are expected not to be modified after they have been set; a modification which keeps
+ * the bounds of the shape is not noticed. Optionally, each frame is rendered to an image once,
+ * see {@link #setFrameImagesCached(boolean)}.
  */
 @JavaBean
 @SuppressWarnings("nls")
@@ -77,6 +88,13 @@ public class BusyPainter extends AbstractPainter<Object> {
 
     private boolean paintCentered;
 
+    private boolean frameImagesCached;
+
+    /**
+     * The points placed along the trajectory for the last painted size.
+     */
+    private transient Geometry geometry;
+
     /**
      * Creates new busy painter initialized to the shape of circle and bounds size 26x26 points.
      */
@@ -135,6 +153,48 @@ public class BusyPainter extends AbstractPainter<Object> {
             g.translate(tw/2, th/2);
         }
 
+        Geometry geom = getGeometry(width, height);
+        if (geom.placedPoints == null) {
+            // invalid object definition - one of the bounds is zero or less
+            return;
+        }
+
+        // draw the stuff
+        BufferedImage image = isFrameImagesCached() ? getFrameImage(g, geom) : null;
+        if (image != null) {
+            g.drawImage(image, geom.bounds.x, geom.bounds.y, null);
+        } else {
+            for (int i = 0; i < geom.placedPoints.length; i++) {
+                g.setColor(calcFrameColor(i));
+                g.fill(geom.placedPoints[i]);
+            }
+        }
+
+        if (isPaintCentered()) {
+            g.translate(-tw/2, -th/2);
+        }
+    }
+
+    /**
+     * Returns the geometry for the given size, computing it if the cached one does not match.
+     */
+    private Geometry getGeometry(int width, int height) {
+        Geometry geom = geometry;
+        if (geom == null || !geom.matches(getTrajectory(), getPointShape(), getPoints(), width, height)) {
+            geom = new Geometry(getTrajectory(), getPointShape(), getPoints(), width, height,
+                    calcPlacedPoints(width, height));
+            geometry = geom;
+        }
+        return geom;
+    }
+
+    /**
+     * Walks the trajectory and places the points along it.
+     * 
+     * @return the point shapes transformed to their places, or {@code null} if the trajectory is
+     *         invalid
+     */
+    private Shape[] calcPlacedPoints(int width, int height) {
         PathIterator pi = trajectory.getPathIterator(null);
         float[] coords = new float[6];
         Float cp = new Point2D.Float();
@@ -147,7 +207,7 @@ public class BusyPainter extends AbstractPainter<Object> {
                 ret = pi.currentSegment(coords);
             } catch (NoSuchElementException e) {
                 // invalid object definition - one of the bounds is zero or less
-                return;
+                return null;
             }
             if (ret == PathIterator.SEG_LINETO || (ret == PathIterator.SEG_CLOSE && (sp.x != cp.x || sp.y != cp.y))) {
                 //close by line
@@ -189,7 +249,6 @@ public class BusyPainter extends AbstractPainter<Object> {
         float[] sgmt = segStack.get(sgIdx);
         float len = sgmt[0];
         float travDist = nxtP;
-        Float center = new Float(sp.x, sp.y);
         for (int i = 1; i < getPoints(); i++) {
             while (len < nxtP) {
                 sgIdx++;
@@ -203,25 +262,58 @@ public class BusyPainter extends AbstractPainter<Object> {
             len -= nxtP;
             Float p = calcPoint(travDist, sp, sgmt, width, height);
             pList.add(p);
-            center.x += p.x;
-            center.y += p.y;
             travDist += nxtP;
         }
         // calculate center
-        center.x = ((float) width) / 2;
-        center.y = ((float) height) / 2;
+        Float center = new Float(((float) width) / 2, ((float) height) / 2);
 
-        // draw the stuff
-        int i = 0;
-        g.translate(center.x, center.y);
-        for (Point2D.Float p : pList) {
-            drawAt(g, i++, p, center);
+        Shape[] placed = new Shape[pList.size()];
+        for (int i = 0; i < placed.length; i++) {
+            placed[i] = placeRotatedCenteredShapeAtPoint(pList.get(i), center);
         }
-        g.translate(-center.x, -center.y);
+        return placed;
+    }
 
-        if (isPaintCentered()) {
-            g.translate(-tw/2, -th/2);
+    /**
+     * Returns the image of the current frame, rendering it if needed, or {@code null} if the
+     * frame cannot be painted from an image.
+     */
+    private BufferedImage getFrameImage(Graphics2D g, Geometry geom) {
+        // an image would be blurred by any transform other than a translation
+        if ((g.getTransform().getType() & ~AffineTransform.TYPE_TRANSLATION) != 0
+                || geom.bounds.isEmpty() || frame < -1 || frame >= geom.placedPoints.length) {
+            return null;
         }
+
+        Object antialiasing = g.getRenderingHint(RenderingHints.KEY_ANTIALIASING);
+        if (geom.frameImages == null || !geom.frameImagesMatch(getBaseColor(), getHighlightColor(),
+                getTrailLength(), getDirection(), antialiasing)) {
+            geom.frameImages = new BufferedImage[geom.placedPoints.length + 1];
+            geom.baseColor = getBaseColor();
+            geom.highlightColor = getHighlightColor();
+            geom.trailLength = getTrailLength();
+            geom.direction = getDirection();
+            geom.antialiasing = antialiasing;
+        }
+
+        BufferedImage image = geom.frameImages[frame + 1];
+        if (image == null) {
+            image = GraphicsUtilities.createCompatibleTranslucentImage(geom.bounds.width,
+                    geom.bounds.height);
+            Graphics2D gfx = image.createGraphics();
+            try {
+                gfx.setRenderingHints(g.getRenderingHints());
+                gfx.translate(-geom.bounds.x, -geom.bounds.y);
+                for (int i = 0; i < geom.placedPoints.length; i++) {
+                    gfx.setColor(calcFrameColor(i));
+                    gfx.fill(geom.placedPoints[i]);
+                }
+            } finally {
+                gfx.dispose();
+            }
+            geom.frameImages[frame + 1] = image;
+        }
+        return image;
     }
 
     /**
@@ -242,12 +334,34 @@ public class BusyPainter extends AbstractPainter<Object> {
         firePropertyChange("paintCentered", old, isPaintCentered());
     }
 
-    private void drawAt(Graphics2D g, int i, Point2D.Float p, Float c) {
-        g.setColor(calcFrameColor(i));
-        paintRotatedCenteredShapeAtPoint(p, c, g);
+    /**
+     * Gets whether each frame is rendered to an image once and painted from that image later on.
+     * @return Whether frame images are cached.
+     */
+    public boolean isFrameImagesCached() {
+        return frameImagesCached;
+    }
+
+    /**
+     * Sets whether each frame is rendered to an image once and painted from that image later on.
+     * This saves filling the point shapes on each frame at the cost of an image per frame. Frames
+     * painted with a scaling or rotating transform are always filled directly. Bound property.
+     * @param frameImagesCached Whether frame images are cached.
+     */
+    public void setFrameImagesCached(boolean frameImagesCached) {
+        boolean old = isFrameImagesCached();
+        this.frameImagesCached = frameImagesCached;
+        if (!frameImagesCached && geometry != null) {
+            geometry.frameImages = null;
+        }
+        firePropertyChange("frameImagesCached", old, isFrameImagesCached());
     }
 
-    private void paintRotatedCenteredShapeAtPoint(Float p, Float c, Graphics2D g) {
+    /**
+     * Returns the point shape rotated towards the center and moved to the point, relative to the
+     * painted area.
+     */
+    private Shape placeRotatedCenteredShapeAtPoint(Float p, Float c) {
         Shape s = getPointShape();
         double hh = s.getBounds().getHeight() / 2;
         double wh = s.getBounds().getWidth() / 2;
@@ -264,12 +378,10 @@ public class BusyPainter extends AbstractPainter<Object> {
         t = sa > 0 ? sb > 0 ? -t : -Math.PI + t : sb > 0 ? t : Math.PI - t;
         x = Math.sqrt(a * a + b * b) - wh;
         y = -hh;
-        g.rotate(t);
-        g.translate(x, y);
-        g.fill(s);
-        g.translate(-x, -y);
-        g.rotate(-t);
-
+        AffineTransform at = AffineTransform.getTranslateInstance(c.x, c.y);
+        at.rotate(t);
+        at.translate(x, y);
+        return at.createTransformedShape(s);
     }
 
     private Point2D.Float calcPoint(float dist2go, Point2D.Float startPoint,
@@ -623,4 +735,68 @@ public class BusyPainter extends AbstractPainter<Object> {
         this.direction = dir;
         firePropertyChange("direction", old, getDirection());
     }
+
+    /**
+     * The points placed along a trajectory for a size, and the images of the frames painted from
+     * them.
+     */
+    private static final class Geometry {
+        private final Shape trajectory;
+        private final Rectangle2D trajectoryBounds;
+        private final Shape pointShape;
+        private final Rectangle2D pointBounds;
+        private final int points;
+        private final int width;
+        private final int height;
+
+        /** the point shapes at their places, {@code null} if the trajectory is invalid */
+        final Shape[] placedPoints;
+        /** the bounds of all placed points */
+        final Rectangle bounds;
+
+        /** the frame images indexed by frame + 1, created lazily */
+        BufferedImage[] frameImages;
+        Color baseColor;
+        Color highlightColor;
+        int trailLength;
+        Direction direction;
+        Object antialiasing;
+
+        Geometry(Shape trajectory, Shape pointShape, int points, int width, int height,
+                Shape[] placedPoints) {
+            this.trajectory = trajectory;
+            this.trajectoryBounds = trajectory.getBounds2D();
+            this.pointShape = pointShape;
+            this.pointBounds = pointShape.getBounds2D();
+            this.points = points;
+            this.width = width;
+            this.height = height;
+            this.placedPoints = placedPoints;
+            Rectangle union = null;
+            if (placedPoints != null) {
+                for (Shape placed : placedPoints) {
+                    union = union == null ? placed.getBounds() : union.union(placed.getBounds());
+                }
+            }
+            bounds = union == null ? new Rectangle() : union;
+        }
+
+        boolean matches(Shape trajectory, Shape pointShape, int points, int width, int height) {
+            return this.trajectory == trajectory && this.pointShape == pointShape
+                    && this.points == points && this.width == width && this.height == height
+                    && trajectoryBounds.equals(trajectory.getBounds2D())
+                    && pointBounds.equals(pointShape.getBounds2D());
+        }
+
+        boolean frameImagesMatch(Color baseColor, Color highlightColor, int trailLength,
+                Direction direction, Object antialiasing) {
+            return equals(this.baseColor, baseColor) && equals(this.highlightColor, highlightColor)
+                    && this.trailLength == trailLength && this.direction == direction
+                    && equals(this.antialiasing, antialiasing);
+        }
+
+        private static boolean equals(Object a, Object b) {
+            return a == null ? b == null : a.equals(b);
+        }
+    }
 }
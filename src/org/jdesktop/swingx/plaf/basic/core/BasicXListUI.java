@@ -117,6 +117,12 @@ import org.jdesktop.swingx.plaf.basic.core.DragRecognitionSupport.BeforeDrag;
  * <li> changed ListDataHandler to check if event handled by SortUI and delegate
  *    to handler only if not
  * <li> changed createListDataListener to return a ListDataHandler
+ * <li> keep the variable row heights of a vertical list in a tree of their
+ *   prefix sums (VariableRowHeights), to map between rows and locations in
+ *   O(log n), and update them for the changed interval of ListDataEvents 
+ *   instead of measuring all cells again. If the cell width is fixed, only
+ *   the rows which are shown are measured, the others have an estimated 
+ *   height.
  * <li> changed ListSelectionHandler to check if event handled by SortUI and 
  *   delegate to handler only if not
  * </ul> changed createListSelectionListener to return a ListSelectionHandler
@@ -159,6 +165,16 @@ public class BasicXListUI  extends BasicListUI
     protected int cellHeight = -1;
     protected int cellWidth = -1;
     protected int updateLayoutStateNeeded = modelChanged;
+    /**
+     * The row heights of a vertical list with variable cell heights, null 
+     * otherwise. The cellHeights are the heights of this. 
+     */
+    private VariableRowHeights rowHeights;
+    /**
+     * Whether rows are measured only when they are shown. The rows which are
+     * not measured yet have an estimated height.
+     */
+    private boolean measureRowsLazily;
     /**
      * Height of the list. When asked to paint, if the current size of
      * the list differs, this will update the layout state.
@@ -228,6 +244,12 @@ public class BasicXListUI  extends BasicListUI
     private final static int widthChanged = 1 << 9;
     private final static int componentOrientationChanged = 1 << 10;
 
+    /**
+     * The number of rows measured to estimate the height of the rows
+     * which are not measured yet.
+     */
+    private final static int ESTIMATE_SAMPLE_SIZE = 16;
+
     private static final int DROP_LINE_THICKNESS = 2;
 
     // FIXME - JW LazyActionMap copy is in different package ... move here?
@@ -1154,6 +1176,7 @@ public class BasicXListUI  extends BasicListUI
 
         cellWidth = cellHeight = -1;
         cellHeights = null;
+        rowHeights = null;
 
         listWidth = listHeight = -1;
 
@@ -1280,9 +1303,7 @@ public class BasicXListUI  extends BasicListUI
                 y = 0;
             }
             else {
-                for(int i = 0; i < row; i++) {
-                    y += cellHeights[i];
-                }
+                y += rowHeights.getY(row);
             }
             w = list.getWidth() - (insets.left + insets.right);
             h = getRowHeight(index);
@@ -1351,7 +1372,23 @@ public class BasicXListUI  extends BasicListUI
             return -1;
         }
         return (cellHeights == null) ? cellHeight :
-                           ((row < cellHeights.length) ? cellHeights[row] : -1);
+                           ((row < cellHeights.length) ? getVariableHeight(row) : -1);
+    }
+
+    /**
+     * Returns the height of the given row of a vertical list with variable
+     * cell heights, measuring the row if it isn't yet.
+     */
+    private int getVariableHeight(int row) {
+        if (!rowHeights.isMeasured(row)) {
+            int estimate = rowHeights.getHeight(row);
+            measureRows(row, row);
+            if (rowHeights.getHeight(row) != estimate) {
+                // the rows below have moved
+                redrawList();
+            }
+        }
+        return rowHeights.getHeight(row);
     }
 
     /**
@@ -1384,21 +1421,12 @@ public class BasicXListUI  extends BasicListUI
             return -1;
         }
         else {
-            int y = insets.top;
-            int row = 0;
+            int y = y0 - insets.top;
 
-            if (closest && y0 < y) {
-                return 0;
+            if (y < 0) {
+                return closest ? 0 : size - 1;
             }
-            int i;
-            for (i = 0; i < size; i++) {
-                if ((y0 >= y) && (y0 < y + cellHeights[i])) {
-                    return row;
-                }
-                y += cellHeights[i];
-                row += 1;
-            }
-            return i - 1;
+            return Math.min(rowHeights.getRow(y), size - 1);
         }
     }
 
@@ -1571,6 +1599,10 @@ public class BasicXListUI  extends BasicListUI
      * Recompute the value of cellHeight or cellHeights based
      * and cellWidth, based on the current font and the current
      * values of fixedCellWidth, fixedCellHeight, and prototypeCellValue.
+     * <p>
+     * If the list is layed out vertically with variable cell heights and a
+     * fixed cell width, only a sample of rows is measured and the others 
+     * get the average height of the sample until they are shown.
      *
      * @see #maybeUpdateLayoutState
      */
@@ -1585,11 +1617,16 @@ public class BasicXListUI  extends BasicListUI
         int fixedCellWidth = list.getFixedCellWidth();
 
         cellWidth = (fixedCellWidth != -1) ? fixedCellWidth : -1;
+        rowHeights = null;
 
         if (fixedCellHeight != -1) {
             cellHeight = fixedCellHeight;
             cellHeights = null;
         }
+        else if (layoutOrientation == JList.VERTICAL) {
+            cellHeight = -1;
+            createRowHeights();
+        }
         else {
             cellHeight = -1;
             cellHeights = new int[getElementCount()];
@@ -1602,7 +1639,8 @@ public class BasicXListUI  extends BasicListUI
          * if they're not set already.
          */
 
-        if ((fixedCellWidth == -1) || (fixedCellHeight == -1)) {
+        if ((rowHeights == null) && 
+                ((fixedCellWidth == -1) || (fixedCellHeight == -1))) {
 
             ListModel dataModel = getViewModel();
             int dataModelSize = dataModel.getSize();
@@ -1641,6 +1679,117 @@ public class BasicXListUI  extends BasicListUI
         }
     }
 
+    /**
+     * Creates the row heights of a vertical list with variable cell heights
+     * and measures the rows, or a sample of them if the cell width is fixed.
+     */
+    private void createRowHeights() {
+        int size = getElementCount();
+
+        measureRowsLazily = (list.getFixedCellWidth() != -1) && 
+            (list.getCellRenderer() != null);
+        rowHeights = new VariableRowHeights(size, 
+                list.getFixedCellWidth() == -1);
+        if (measureRowsLazily) {
+            int sampleSize = Math.min(size, ESTIMATE_SAMPLE_SIZE);
+            measureRows(0, sampleSize - 1);
+            if (sampleSize > 0) {
+                rowHeights.setEstimate(rowHeights.getY(sampleSize) / sampleSize);
+            }
+        }
+        else {
+            measureRows(0, size - 1);
+        }
+        cellHeights = rowHeights.getHeights();
+        updateCellWidth();
+    }
+
+    /**
+     * Measures the cells of the given interval with the list's renderer and 
+     * updates their row heights.
+     */
+    private void measureRows(int index0, int index1) {
+        ListModel dataModel = getViewModel();
+        ListCellRenderer renderer = list.getCellRenderer();
+
+        for (int index = index0; index <= index1; index++) {
+            if (renderer == null) {
+                rowHeights.setMeasured(index, 0, 0);
+                continue;
+            }
+            Object value = dataModel.getElementAt(index);
+            Component c = renderer.getListCellRendererComponent(list, value, index, false, false);
+            rendererPane.add(c);
+            Dimension cellSize = c.getPreferredSize();
+            rowHeights.setMeasured(index, cellSize.height, cellSize.width);
+        }
+    }
+
+    /**
+     * Updates the cellWidth to the widest measured cell if the cell width 
+     * isn't fixed.
+     */
+    private void updateCellWidth() {
+        if (list.getFixedCellWidth() == -1) {
+            cellWidth = rowHeights.getMaxWidth();
+            if (list.getCellRenderer() == null) {
+                cellWidth = Math.max(cellWidth, 0);
+            }
+        }
+    }
+
+    /**
+     * Updates the row heights for the interval of the given event. The 
+     * layout state is marked as in need of a full update instead if there
+     * are no up-to-date row heights or the event has no valid interval.
+     * 
+     * @param e the ListDataEvent received from the list's model
+     */
+    private void updateRowHeights(ListDataEvent e) {
+        int minIndex = Math.min(e.getIndex0(), e.getIndex1());
+        int maxIndex = Math.max(e.getIndex0(), e.getIndex1());
+        int count = maxIndex - minIndex + 1;
+        boolean valid = (updateLayoutStateNeeded == 0) && (rowHeights != null) 
+            && (minIndex >= 0);
+
+        if (valid) {
+            int size = rowHeights.getSize();
+            switch (e.getType()) {
+            case ListDataEvent.INTERVAL_ADDED:
+                valid = (minIndex <= size) && (size + count == getElementCount());
+                break;
+            case ListDataEvent.INTERVAL_REMOVED:
+                valid = (maxIndex < size) && (size - count == getElementCount());
+                break;
+            default:
+                valid = (maxIndex < size) && (size == getElementCount());
+                break;
+            }
+        }
+        if (!valid) {
+            updateLayoutStateNeeded = modelChanged;
+            return;
+        }
+
+        switch (e.getType()) {
+        case ListDataEvent.INTERVAL_ADDED:
+            rowHeights.insert(minIndex, count);
+            break;
+        case ListDataEvent.INTERVAL_REMOVED:
+            rowHeights.remove(minIndex, maxIndex);
+            break;
+        default:
+            rowHeights.invalidate(minIndex, maxIndex);
+            break;
+        }
+        // the cell width may depend on the changed rows
+        if (!measureRowsLazily && (e.getType() != ListDataEvent.INTERVAL_REMOVED)) {
+            measureRows(minIndex, maxIndex);
+        }
+        cellHeights = rowHeights.getHeights();
+        updateCellWidth();
+    }
+
     /**
      * Invoked when the list is layed out horizontally to determine how
      * many columns to create.
@@ -2838,7 +2987,7 @@ public class BasicXListUI  extends BasicListUI
         // ListDataListener
         //
         public void intervalAdded(ListDataEvent e) {
-            updateLayoutStateNeeded = modelChanged;
+            updateRowHeights(e);
 
             int minIndex = Math.min(e.getIndex0(), e.getIndex1());
             int maxIndex = Math.max(e.getIndex0(), e.getIndex1());
@@ -2861,7 +3010,7 @@ public class BasicXListUI  extends BasicListUI
 
         public void intervalRemoved(ListDataEvent e)
         {
-            updateLayoutStateNeeded = modelChanged;
+            updateRowHeights(e);
 
             /* Sync the SelectionModel with the DataModel.
              */
@@ -2881,7 +3030,7 @@ public class BasicXListUI  extends BasicListUI
 
 
         public void contentsChanged(ListDataEvent e) {
-            updateLayoutStateNeeded = modelChanged;
+            updateRowHeights(e);
             redrawList();
         }
 
@@ -0,0 +1,281 @@
+/*
+ * $Id$
+ *
+ * Copyright 2009 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ */
+package org.jdesktop.swingx.plaf.basic.core;
+
+import java.util.Arrays;
+
+/**
+ * The heights of the rows of a vertical list with variable row heights. The
+ * heights are backed by a Fenwick tree of their prefix sums, so that the
+ * location of a row and the row at a location are found in O(log n).<p>
+ *
+ * Rows may be unmeasured, their height is an estimate until the ui-delegate
+ * measures them. Optionally, the preferred widths of the measured rows are
+ * kept to track their maximum.<p>
+ *
+ * Inserting and removing rows moves the arrays and rebuilds the tree in O(n),
+ * without measuring any of the other rows. The tree is rebuilt lazily, so 
+ * that measuring all rows after a change is O(n) as well.
+ */
+final class VariableRowHeights {
+
+    /** the height per row, the estimate for unmeasured rows. */
+    private int[] heights;
+    /** 
+     * the Fenwick tree, element i sums the heights of the (i & -i) rows up 
+     * to row i - 1. Null if it needs to be built, which is cheaper than 
+     * updating it while many rows are measured in a row. 
+     */
+    private int[] sums;
+    private boolean[] measured;
+    /** the preferred width per row, null if not tracked. */
+    private int[] widths;
+    private int maxWidth = -1;
+    private boolean maxWidthValid = true;
+    private int estimate;
+
+    /**
+     * Creates the heights of the given number of unmeasured rows, with an
+     * estimated height of 0.
+     *
+     * @param size the number of rows
+     * @param trackWidths true to keep the widths of the measured rows
+     */
+    VariableRowHeights(int size, boolean trackWidths) {
+        heights = new int[size];
+        measured = new boolean[size];
+        if (trackWidths) {
+            widths = new int[size];
+        }
+    }
+
+    /**
+     * Sets the height of the rows which are not measured.
+     *
+     * @param estimate the estimated row height
+     */
+    void setEstimate(int estimate) {
+        this.estimate = estimate;
+        for (int i = 0; i < heights.length; i++) {
+            if (!measured[i]) {
+                heights[i] = estimate;
+            }
+        }
+        sums = null;
+    }
+
+    /**
+     * Returns the number of rows.
+     */
+    int getSize() {
+        return heights.length;
+    }
+
+    /**
+     * Returns the heights of all rows. The array is replaced if rows are
+     * inserted or removed.
+     */
+    int[] getHeights() {
+        return heights;
+    }
+
+    /**
+     * Returns the height of the given row, an estimate if it is not measured.
+     */
+    int getHeight(int row) {
+        return heights[row];
+    }
+
+    /**
+     * Returns whether the given row is measured.
+     */
+    boolean isMeasured(int row) {
+        return measured[row];
+    }
+
+    /**
+     * Sets the measured size of the given row.
+     *
+     * @param row the row
+     * @param height the preferred height of the row's cell
+     * @param width the preferred width of the row's cell, ignored if
+     *   widths are not tracked
+     */
+    void setMeasured(int row, int height, int width) {
+        measured[row] = true;
+        if (widths != null) {
+            if (width >= maxWidth) {
+                maxWidth = width;
+            } else if (widths[row] == maxWidth) {
+                maxWidthValid = false;
+            }
+            widths[row] = width;
+        }
+        int delta = height - heights[row];
+        if (delta == 0) return;
+        heights[row] = height;
+        if (sums == null) return;
+        for (int i = row + 1; i < sums.length; i += i & -i) {
+            sums[i] += delta;
+        }
+    }
+
+    /**
+     * Marks the rows of the given interval as unmeasured. Their current
+     * height is kept as estimate.
+     */
+    void invalidate(int index0, int index1) {
+        Arrays.fill(measured, index0, index1 + 1, false);
+    }
+
+    /**
+     * Inserts unmeasured rows, moving the rows from index on.
+     *
+     * @param index the index of the first inserted row
+     * @param count the number of inserted rows
+     */
+    void insert(int index, int count) {
+        heights = insert(heights, index, count);
+        Arrays.fill(heights, index, index + count, estimate);
+        measured = insert(measured, index, count);
+        if (widths != null) {
+            widths = insert(widths, index, count);
+        }
+        sums = null;
+    }
+
+    /**
+     * Removes the rows of the given interval.
+     */
+    void remove(int index0, int index1) {
+        if (widths != null) {
+            for (int i = index0; i <= index1; i++) {
+                if (widths[i] == maxWidth) {
+                    maxWidthValid = false;
+                }
+            }
+            widths = remove(widths, index0, index1);
+        }
+        heights = remove(heights, index0, index1);
+        measured = remove(measured, index0, index1);
+        sums = null;
+    }
+
+    /**
+     * Returns the maximum width of the measured rows, or -1 if there are
+     * none or widths are not tracked.
+     */
+    int getMaxWidth() {
+        if (!maxWidthValid) {
+            maxWidth = -1;
+            for (int i = 0; i < widths.length; i++) {
+                if (measured[i]) {
+                    maxWidth = Math.max(maxWidth, widths[i]);
+                }
+            }
+            maxWidthValid = true;
+        }
+        return maxWidth;
+    }
+
+    /**
+     * Returns the location of the given row relative to the first row, which
+     * is the total height if row is the number of rows.
+     */
+    int getY(int row) {
+        buildSums();
+        int y = 0;
+        for (int i = row; i > 0; i -= i & -i) {
+            y += sums[i];
+        }
+        return y;
+    }
+
+    /**
+     * Returns the total height of all rows.
+     */
+    int getTotalHeight() {
+        return getY(heights.length);
+    }
+
+    /**
+     * Returns the row containing the given location relative to the first
+     * row. Rows of height 0 don't contain any location.
+     *
+     * @param y the location
+     * @return the row containing y, -1 if y is negative, or the number of
+     *   rows if y is not less than the total height
+     */
+    int getRow(int y) {
+        if (y < 0) return -1;
+        buildSums();
+        int row = 0;
+        for (int step = Integer.highestOneBit(heights.length); step > 0; step >>= 1) {
+            int next = row + step;
+            if (next < sums.length && sums[next] <= y) {
+                row = next;
+                y -= sums[next];
+            }
+        }
+        return row;
+    }
+
+    private void buildSums() {
+        if (sums != null) return;
+        sums = new int[heights.length + 1];
+        for (int i = 1; i < sums.length; i++) {
+            sums[i] += heights[i - 1];
+            int parent = i + (i & -i);
+            if (parent < sums.length) {
+                sums[parent] += sums[i];
+            }
+        }
+    }
+
+    private static int[] insert(int[] array, int index, int count) {
+        int[] result = new int[array.length + count];
+        System.arraycopy(array, 0, result, 0, index);
+        System.arraycopy(array, index, result, index + count, array.length - index);
+        return result;
+    }
+
+    private static boolean[] insert(boolean[] array, int index, int count) {
+        boolean[] result = new boolean[array.length + count];
+        System.arraycopy(array, 0, result, 0, index);
+        System.arraycopy(array, index, result, index + count, array.length - index);
+        return result;
+    }
+
+    private static int[] remove(int[] array, int index0, int index1) {
+        int[] result = new int[array.length - (index1 - index0 + 1)];
+        System.arraycopy(array, 0, result, 0, index0);
+        System.arraycopy(array, index1 + 1, result, index0, array.length - index1 - 1);
+        return result;
+    }
+
+    private static boolean[] remove(boolean[] array, int index0, int index1) {
+        boolean[] result = new boolean[array.length - (index1 - index0 + 1)];
+        System.arraycopy(array, 0, result, 0, index0);
+        System.arraycopy(array, index1 + 1, result, index0, array.length - index1 - 1);
+        return result;
+    }
+}
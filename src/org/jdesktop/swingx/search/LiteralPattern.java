@@ -0,0 +1,256 @@
+/*
+ * $Id$
+ *
+ * Copyright 2009 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx.search;
+
+import java.util.regex.MatchResult;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A literal (optionally anchored) search string extracted from a Pattern. Used
+ * as a fast path which by-passes the regex engine for the simple patterns
+ * created by the PatternModel's match rules, that is the quoted search string
+ * optionally preceded by "^" and/or followed by "$".
+ * <p>
+ *
+ * Matching results are the same as those of <code>Matcher.find()</code> on the
+ * original Pattern. Patterns which can't be guaranteed to behave the same are
+ * not parsed, clients should fall back to regex matching if {@link #parse(Pattern)}
+ * returns null.
+ */
+final class LiteralPattern {
+
+    private static final String REGEX_META = "\\^$.|?*+()[]{}";
+
+    private final Pattern pattern;
+    private final String literal;
+    private final boolean startAnchored;
+    private final boolean endAnchored;
+    private final boolean ignoreCase;
+
+    private LiteralPattern(Pattern pattern, String literal,
+            boolean startAnchored, boolean endAnchored, boolean ignoreCase) {
+        this.pattern = pattern;
+        this.literal = literal;
+        this.startAnchored = startAnchored;
+        this.endAnchored = endAnchored;
+        this.ignoreCase = ignoreCase;
+    }
+
+    /**
+     * Returns a LiteralPattern equivalent to the given Pattern or null if the
+     * pattern is not a literal.
+     *
+     * @param pattern the Pattern to parse, must not be null.
+     * @return a LiteralPattern with the same matching behaviour or null if
+     *   the pattern is not a literal.
+     */
+    public static LiteralPattern parse(Pattern pattern) {
+        int flags = pattern.flags();
+        boolean ignoreCase = false;
+        if (flags == (Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE)) {
+            ignoreCase = true;
+        } else if (flags != 0) {
+            return null;
+        }
+        String regex = pattern.pattern();
+        int start = 0;
+        int end = regex.length();
+        boolean startAnchored = regex.startsWith("^");
+        if (startAnchored) {
+            start++;
+        }
+        boolean endAnchored = end > start && regex.charAt(end - 1) == '$'
+            && (end - 1 == start || regex.charAt(end - 2) != '\\');
+        if (endAnchored) {
+            end--;
+        }
+        String literal = regex.substring(start, end);
+        if (literal.startsWith("\\Q") && literal.endsWith("\\E")
+                && literal.length() >= 4) {
+            literal = literal.substring(2, literal.length() - 2);
+            // Pattern.quote splits literals containing \E
+            if (literal.contains("\\E")) {
+                return null;
+            }
+        } else if (!isPlain(literal)) {
+            return null;
+        }
+        if (literal.length() == 0 || hasSurrogates(literal)) {
+            return null;
+        }
+        return new LiteralPattern(pattern, literal, startAnchored, endAnchored, ignoreCase);
+    }
+
+    /**
+     * @param text the literal to check.
+     * @return a boolean indicating whether the text contains no regex meta characters.
+     */
+    private static boolean isPlain(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (REGEX_META.indexOf(text.charAt(i)) >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasSurrogates(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.isSurrogate(text.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the Pattern this literal was parsed from.
+     *
+     * @return the original pattern.
+     */
+    public Pattern getPattern() {
+        return pattern;
+    }
+
+    /**
+     * Returns the start index of the first match in the given text or -1 if
+     * there is no match.
+     *
+     * @param text the text to match against, must not be null.
+     * @return the start index of the first match or -1 if not found.
+     */
+    public int find(String text) {
+        int length = literal.length();
+        if (length > text.length()) {
+            return -1;
+        }
+        if (endAnchored) {
+            // "$" matches before a final line terminator as well
+            // - let the regex engine handle those
+            if (text.length() > 0 && isLineTerminator(text.charAt(text.length() - 1))) {
+                return findByRegex(text);
+            }
+            int offset = text.length() - length;
+            if (startAnchored && offset != 0) {
+                return -1;
+            }
+            return matchesAt(text, offset) ? offset : -1;
+        }
+        if (startAnchored) {
+            return matchesAt(text, 0) ? 0 : -1;
+        }
+        if (!ignoreCase) {
+            return text.indexOf(literal);
+        }
+        int last = text.length() - length;
+        for (int i = 0; i <= last; i++) {
+            if (matchesAt(text, i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int findByRegex(String text) {
+        Matcher matcher = pattern.matcher(text);
+        return matcher.find() ? matcher.start() : -1;
+    }
+
+    private boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085'
+            || c == '\u2028' || c == '\u2029';
+    }
+
+    private boolean matchesAt(String text, int offset) {
+        return text.regionMatches(ignoreCase, offset, literal, 0, literal.length());
+    }
+
+    /**
+     * Returns the result of a successful find as MatchResult.
+     *
+     * @param text the text which was matched
+     * @param start the start index of the match as returned by find
+     * @return a MatchResult describing the match
+     */
+    public MatchResult toMatchResult(String text, int start) {
+        return new LiteralMatchResult(text, start, start + literal.length());
+    }
+
+    /**
+     * A MatchResult without groups.
+     */
+    private static class LiteralMatchResult implements MatchResult {
+        private final String text;
+        private final int start;
+        private final int end;
+
+        public LiteralMatchResult(String text, int start, int end) {
+            this.text = text;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int start() {
+            return start;
+        }
+
+        @Override
+        public int start(int group) {
+            checkGroup(group);
+            return start;
+        }
+
+        @Override
+        public int end() {
+            return end;
+        }
+
+        @Override
+        public int end(int group) {
+            checkGroup(group);
+            return end;
+        }
+
+        @Override
+        public String group() {
+            return text.substring(start, end);
+        }
+
+        @Override
+        public String group(int group) {
+            checkGroup(group);
+            return group();
+        }
+
+        @Override
+        public int groupCount() {
+            return 0;
+        }
+
+        private void checkGroup(int group) {
+            if (group != 0) {
+                throw new IndexOutOfBoundsException("No group " + group);
+            }
+        }
+    }
+}
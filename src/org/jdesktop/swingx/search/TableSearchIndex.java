@@ -0,0 +1,105 @@
+/*
+ * $Id$
+ *
+ * Copyright 2009 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx.search;
+
+import org.jdesktop.swingx.JXTable;
+import org.jdesktop.swingx.sort.StringValueCache;
+
+/**
+ * The string representation of a JXTable's cells as used by a TableSearchable, 
+ * to not re-convert the cell values on every search.
+ * <p>
+ *
+ * The index is backed by the table's <code>StringValueCache</code>, which
+ * is shared with sorting, filtering and highlighting and kept in synch with 
+ * the table's model and renderers by the table. If the table isn't caching 
+ * strings, caching is enabled on creation and disabled again on release. 
+ * <p>
+ *
+ * <b>Note</b>: the cache cannot detect changes of the string representation
+ * by other means than changing a renderer, f.i. a registered StringValue 
+ * changed in-place. Client code which changes the conversion that way must 
+ * call {@link #invalidate()}.
+ * <p>
+ *
+ * Like all Swing related classes, this must be accessed on the EDT only.
+ *
+ * @see TableSearchable#setSearchIndex(TableSearchIndex)
+ * @see JXTable#setCachingStrings(boolean)
+ */
+public class TableSearchIndex {
+
+    /** The target JXTable. */
+    protected JXTable table;
+
+    /** flag to indicate that caching had been enabled by this index. */
+    private boolean enabledCaching;
+
+    /**
+     * Instantiates a TableSearchIndex for the given table. Enables caching
+     * of strings in the table, if not yet enabled.
+     *
+     * @param table the JXTable to index, must not be null.
+     */
+    public TableSearchIndex(JXTable table) {
+        this.table = table;
+        if (!table.isCachingStrings()) {
+            table.setCachingStrings(true);
+            enabledCaching = true;
+        }
+    }
+
+    /**
+     * Returns the string representation of the cell value at the given
+     * position. Looked up in the table's cache, converted if not yet cached.
+     *
+     * @param row the row index of the cell in view coordinates
+     * @param column the column index of the cell in view coordinates.
+     * @return the string representation of the cell value as it will appear in
+     *         the table.
+     * @see JXTable#getStringAt(int, int)
+     */
+    public String getStringAt(int row, int column) {
+        return table.getStringAt(row, column);
+    }
+
+    /**
+     * Flushes all cached strings.
+     */
+    public void invalidate() {
+        StringValueCache cache = table.getStringValueCache();
+        if (cache != null) {
+            cache.invalidate();
+        }
+    }
+
+    /**
+     * Disables caching of strings in the table, if enabled by this index. 
+     * The index must not be used after calling this method.
+     */
+    public void release() {
+        if (enabledCaching) {
+            table.setCachingStrings(false);
+            enabledCaching = false;
+        }
+    }
+
+}
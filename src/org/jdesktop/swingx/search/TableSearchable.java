@@ -38,6 +38,18 @@ public class TableSearchable extends AbstractSearchable {
     /** The target JXTable. */
     protected JXTable table;
 
+    /** The optional cache of cell strings. */
+    private TableSearchIndex searchIndex;
+
+    /** The matcher re-used across cells while searching for the same pattern. */
+    private Matcher matcher;
+
+    /** The literal fast path for the current pattern, if any. */
+    private LiteralPattern literalPattern;
+
+    /** The pattern the matcher/literal were last configured for. */
+    private Pattern lastPattern;
+
     /**
      * Instantiates a TableSearchable with the given table as target.
      * 
@@ -150,9 +162,18 @@ public class TableSearchable extends AbstractSearchable {
      * @return an appropriate <code>SearchResult</code> if matching or null
      */
     protected SearchResult findMatchAt(Pattern pattern, int row, int column) {
-        String text = table.getStringAt(row, column);
+        String text = getStringAt(row, column);
         if ((text != null) && (text.length() > 0)) {
-            Matcher matcher = pattern.matcher(text);
+            updateMatcher(pattern);
+            if (literalPattern != null) {
+                int start = literalPattern.find(text);
+                if (start >= 0) {
+                    return new SearchResult(pattern, 
+                            literalPattern.toMatchResult(text, start), row, column);
+                }
+                return null;
+            }
+            matcher.reset(text);
             if (matcher.find()) {
                 return createSearchResult(matcher, row, column);
             }
@@ -160,6 +181,64 @@ public class TableSearchable extends AbstractSearchable {
         return null;
     }
 
+    /**
+     * Returns the string representation of the cell at row/column as used for
+     * matching. This implementation queries the search index, if available,
+     * or the table otherwise.
+     * 
+     * @param row a valid row index in view coordinates
+     * @param column a valid column index in view coordinates
+     * @return the string representation of the cell value.
+     */
+    protected String getStringAt(int row, int column) {
+        if (searchIndex != null) {
+            return searchIndex.getStringAt(row, column);
+        }
+        return table.getStringAt(row, column);
+    }
+
+    /**
+     * Prepares the matching for the given pattern: re-uses the matcher and
+     * the literal fast path, if the pattern is unchanged since the last call.
+     * 
+     * @param pattern the pattern to match, must not be null.
+     */
+    private void updateMatcher(Pattern pattern) {
+        if (pattern == lastPattern) return;
+        lastPattern = pattern;
+        literalPattern = LiteralPattern.parse(pattern);
+        matcher = literalPattern == null ? pattern.matcher("") : null;
+    }
+
+    /**
+     * Sets the index to use for looking up the cells' string representation.
+     * A null value reverts to converting the cell values on each search. A 
+     * previously set index is released.
+     * <p>
+     * 
+     * Using an index is recommended for big tables, it is backed by the 
+     * table's string cache which is kept in synch with the table's model 
+     * and renderers. 
+     * 
+     * @param index the index to use, may be null.
+     * @see TableSearchIndex
+     */
+    public void setSearchIndex(TableSearchIndex index) {
+        if (searchIndex != null && searchIndex != index) {
+            searchIndex.release();
+        }
+        this.searchIndex = index;
+    }
+
+    /**
+     * Returns the index used for looking up the cells' string representation.
+     * 
+     * @return the search index or null if none is set. 
+     */
+    public TableSearchIndex getSearchIndex() {
+        return searchIndex;
+    }
+
     /**
      * 
      * {@inheritDoc}
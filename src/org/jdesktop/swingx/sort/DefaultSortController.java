@@ -21,12 +21,16 @@
  */
 package org.jdesktop.swingx.sort;
 
+import java.text.Collator;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import javax.swing.DefaultRowSorter;
+import javax.swing.RowFilter;
 import javax.swing.SortOrder;
 
 import org.jdesktop.swingx.renderer.StringValue;
@@ -59,6 +63,16 @@ public abstract class DefaultSortController<M> extends DefaultRowSorter<M, Integ
 
     private final static SortOrder[] DEFAULT_CYCLE = new SortOrder[] {SortOrder.ASCENDING, SortOrder.DESCENDING};
 
+    /**
+     * The minimal number of model rows to evaluate the row filter in parallel.
+     */
+    protected static final int PARALLEL_FILTER_THRESHOLD = 10000;
+
+    /**
+     * The number of rows below which a parallel filter task isn't split any further.
+     */
+    private static final int FILTER_CHUNK_SIZE = 2048;
+
     private List<SortOrder> sortCycle;
     
     private boolean sortable;
@@ -67,6 +81,27 @@ public abstract class DefaultSortController<M> extends DefaultRowSorter<M, Integ
 
     protected int cachedModelRowCount;
     
+    private boolean parallelFiltering;
+
+    /**
+     * The filter result evaluated in parallel, set only while sorting.
+     */
+    private RowFilter<M, Integer> evaluatedFilter;
+
+    /**
+     * The string representation of the model cells used by parallel filtering,
+     * converted on the EDT. Per column: null if not yet requested by a filter.
+     * Per cell: null if not yet converted. Kept across filter changes, 
+     * updated on model notification.
+     */
+    private String[][] stringSnapshots;
+
+    /**
+     * Flag to indicate that rows had been updated without sorting since
+     * the last sort.
+     */
+    private boolean hasUnsortedUpdates;
+
     public DefaultSortController() {
         super();
         setSortable(true);
@@ -253,9 +288,22 @@ public abstract class DefaultSortController<M> extends DefaultRowSorter<M, Integ
     @Override
     public void setStringValueProvider(StringValueProvider registry) {
         this.stringValueProvider = registry;
+        stringSnapshots = null;
 //        updateStringConverter();
     }
     
+    /**
+     * Notifies this controller that the string conversion of the 
+     * StringValueProvider has changed, f.i. after changing a renderer.
+     * Must be called by the owner of the provider to flush the strings
+     * kept for parallel filtering. Does not re-sort.
+     * 
+     * @see #setParallelFiltering(boolean)
+     */
+    public void stringValuesChanged() {
+        stringSnapshots = null;
+    }
+    
     /**
      * Returns the registry of string values.
      * 
@@ -296,6 +344,387 @@ public abstract class DefaultSortController<M> extends DefaultRowSorter<M, Integ
         }
     }
 
+//-------------------------- parallel filtering and sort key preparation
+
+    /**
+     * Sets whether or not the row filter is evaluated in parallel for big models.
+     * If enabled, the model rows are partitioned across the common 
+     * <code>ForkJoinPool</code> and the filter is evaluated concurrently, the
+     * EDT waits for all chunks to complete before mapping the view. 
+     * <p>
+     * 
+     * The default is false. Client code enabling parallel filtering must guarantee
+     * that the filter and the model's value access are thread-safe for concurrent 
+     * reading. Note that the filters created by core <code>RowFilter.regexFilter</code> 
+     * and <code>RowFilters.regexFilter</code> are <b>not</b> thread-safe, use
+     * <code>RowFilters.concurrentRegexFilter</code> instead. <p>
+     * 
+     * The StringValueProvider is never accessed concurrently (the formats 
+     * of the default StringValues aren't thread-safe): the string representation
+     * of the columns requested by the filter is converted on the EDT and kept 
+     * across filter changes until the model notifies a change. Client code
+     * changing the conversion must call <code>stringValuesChanged</code>. 
+     * 
+     * @param parallel whether or not to filter in parallel
+     * @see #isParallelFiltering()
+     * @see #stringValuesChanged()
+     * @see RowFilters#concurrentRegexFilter(java.util.regex.Pattern, int...)
+     */
+    public void setParallelFiltering(boolean parallel) {
+        this.parallelFiltering = parallel;
+        if (!parallel) {
+            stringSnapshots = null;
+        }
+    }
+    
+    /**
+     * Returns whether or not the row filter is evaluated in parallel for
+     * big models.
+     * 
+     * @return true if the row filter is evaluated in parallel, false otherwise.
+     * @see #setParallelFiltering(boolean)
+     */
+    public boolean isParallelFiltering() {
+        return parallelFiltering;
+    }
+    
+    /**
+     * {@inheritDoc} <p>
+     * 
+     * Overridden to evaluate the filter in parallel, if enabled and the model is 
+     * big enough, and to allow subclasses to prepare sort keys. The results are 
+     * fed into super's sort, so the mapping is updated in one go, as usual.
+     * 
+     * @see #setParallelFiltering(boolean)
+     * @see #shouldPrepareSortKeys()
+     */
+    @Override
+    public void sort() {
+        hasUnsortedUpdates = false;
+        boolean prepareSortKeys = shouldPrepareSortKeys();
+        if (!prepareSortKeys && !shouldFilterInParallel()) {
+            super.sort();
+            return;
+        }
+        // evaluate the filter before the sort keys are prepared
+        if (super.getRowFilter() != null) {
+            evaluatedFilter = createEvaluatedFilter(super.getRowFilter());
+        }
+        try {
+            if (prepareSortKeys) {
+                prepareSortKeys();
+            }
+            super.sort();
+        } finally {
+            evaluatedFilter = null;
+            if (prepareSortKeys) {
+                releaseSortKeys();
+            }
+        }
+    }
+    
+    /**
+     * Returns a boolean indicating whether the next sort should prepare 
+     * sort keys. If true, the row filter is evaluated before 
+     * <code>prepareSortKeys</code> is called and the prepared keys are released 
+     * after sorting.<p>
+     * 
+     * This implementation returns false.
+     * 
+     * @return true if the next sort should prepare sort keys, false otherwise.
+     * @see #prepareSortKeys()
+     * @see #releaseSortKeys()
+     */
+    protected boolean shouldPrepareSortKeys() {
+        return false;
+    }
+    
+    /**
+     * Hook for subclasses to prepare the values used for comparing while 
+     * sorting. The values are accessed by the model wrapper's 
+     * <code>getValueAt</code> and compared with the comparator returned
+     * by <code>getComparator</code> during the sort. <p>
+     * 
+     * This implementation does nothing.
+     */
+    protected void prepareSortKeys() {
+    }
+    
+    /**
+     * Hook for subclasses to release the values prepared for sorting. 
+     * Called after sorting, if <code>prepareSortKeys</code> had been
+     * called before. <p>
+     * 
+     * This implementation does nothing.
+     */
+    protected void releaseSortKeys() {
+    }
+    
+    /**
+     * {@inheritDoc} <p>
+     * 
+     * Overridden to return the filter's result as evaluated in parallel while
+     * sorting.
+     */
+    @Override
+    public RowFilter<? super M, ? super Integer> getRowFilter() {
+        if (evaluatedFilter != null) {
+            return evaluatedFilter;
+        }
+        return super.getRowFilter();
+    }
+    
+    /**
+     * Returns a boolean indicating whether the filter should be evaluated in parallel.
+     * 
+     * @return true if the next sort should evaluate the row filter in parallel.
+     */
+    protected boolean shouldFilterInParallel() {
+        return isParallelFiltering() && super.getRowFilter() != null
+                && getModelWrapper().getRowCount() >= PARALLEL_FILTER_THRESHOLD;
+    }
+
+    /**
+     * Evaluates the filter for all model rows, in parallel if appropriate, and 
+     * returns a filter which looks up the results. 
+     * 
+     * @param filter the filter to evaluate, must not be null
+     * @return a filter returning the evaluated results
+     */
+    private RowFilter<M, Integer> createEvaluatedFilter(RowFilter<? super M, ? super Integer> filter) {
+        final boolean[] included = new boolean[getModelWrapper().getRowCount()];
+        if (shouldFilterInParallel()) {
+            evaluateFilterInParallel(filter, included);
+        } else {
+            evaluateFilter(filter, included, new ModelEntry(), 0, included.length);
+        }
+        return new RowFilter<M, Integer>() {
+
+            @Override
+            public boolean include(Entry<? extends M, ? extends Integer> entry) {
+                return included[entry.getIdentifier()];
+            }
+        };
+    }
+
+    /**
+     * Evaluates the filter for all model rows in parallel. The filter sees the 
+     * string snapshots only, if it requests a column which isn't converted yet,
+     * the column is converted on the EDT and the evaluation repeated.
+     * 
+     * @param filter the filter to evaluate
+     * @param included the array to store the results
+     */
+    private void evaluateFilterInParallel(RowFilter<? super M, ? super Integer> filter, 
+            boolean[] included) {
+        int columnCount = getModelWrapper().getColumnCount();
+        if (stringSnapshots == null || stringSnapshots.length != columnCount) {
+            stringSnapshots = new String[columnCount][];
+        }
+        boolean[] requested = new boolean[columnCount];
+        do {
+            updateStringSnapshots(requested, included.length);
+            Arrays.fill(requested, false);
+            ForkJoinPool.commonPool().invoke(
+                    new FilterTask(filter, included, requested, 0, included.length));
+        } while (hasUnconverted(requested));
+    }
+
+    /**
+     * Converts the requested columns and all cells not yet converted in 
+     * the columns converted before.
+     * 
+     * @param requested the columns to convert
+     * @param rowCount the model row count
+     */
+    private void updateStringSnapshots(boolean[] requested, int rowCount) {
+        for (int column = 0; column < stringSnapshots.length; column++) {
+            String[] strings = stringSnapshots[column];
+            if (strings == null || strings.length != rowCount) {
+                if (!requested[column]) {
+                    stringSnapshots[column] = null;
+                    continue;
+                }
+                strings = new String[rowCount];
+                stringSnapshots[column] = strings;
+            }
+            for (int row = 0; row < rowCount; row++) {
+                if (strings[row] == null) {
+                    strings[row] = getModelWrapper().getStringValueAt(row, column);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param requested the columns requested by the filter
+     * @return true if any of the requested columns isn't converted.
+     */
+    private boolean hasUnconverted(boolean[] requested) {
+        for (int column = 0; column < requested.length; column++) {
+            if (requested[column] && stringSnapshots[column] == null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Updates the string snapshots after rows had been inserted or deleted.
+     * 
+     * @param firstRow the first row in model coordinates
+     * @param deleted the number of deleted rows
+     * @param inserted the number of inserted rows
+     */
+    private void moveStringSnapshots(int firstRow, int deleted, int inserted) {
+        if (stringSnapshots == null) return;
+        for (int column = 0; column < stringSnapshots.length; column++) {
+            String[] old = stringSnapshots[column];
+            if (old == null) continue;
+            if (firstRow < 0 || firstRow + deleted > old.length) {
+                stringSnapshots[column] = null;
+                continue;
+            }
+            String[] strings = new String[old.length - deleted + inserted];
+            System.arraycopy(old, 0, strings, 0, firstRow);
+            System.arraycopy(old, firstRow + deleted, strings, firstRow + inserted, 
+                    old.length - firstRow - deleted);
+            stringSnapshots[column] = strings;
+        }
+    }
+
+    /**
+     * Clears the string snapshots of the given cells, they are converted again
+     * before the next parallel filtering.
+     * 
+     * @param firstRow the first updated row in model coordinates
+     * @param endRow the last updated row in model coordinates
+     * @param column the updated column or -1 for all
+     */
+    private void clearStringSnapshots(int firstRow, int endRow, int column) {
+        if (stringSnapshots == null) return;
+        for (int i = 0; i < stringSnapshots.length; i++) {
+            String[] strings = stringSnapshots[i];
+            if (strings == null || (column >= 0 && column != i)) continue;
+            if (endRow >= strings.length || firstRow < 0) {
+                stringSnapshots[i] = null;
+                continue;
+            }
+            Arrays.fill(strings, firstRow, endRow + 1, null);
+        }
+    }
+
+    /**
+     * Evaluates the filter for the given range of model rows. Stops if the 
+     * entry is missing a string snapshot.
+     * 
+     * @param filter the filter to evaluate
+     * @param included the array to store the results
+     * @param entry the entry to pass into the filter
+     * @param from the first model row, inclusive
+     * @param to the last model row, exclusive
+     */
+    private void evaluateFilter(RowFilter<? super M, ? super Integer> filter, 
+            boolean[] included, ModelEntry entry, int from, int to) {
+        for (int row = from; row < to && !entry.incomplete; row++) {
+            entry.modelIndex = row;
+            included[row] = filter.include(entry);
+        }
+    }
+
+    /**
+     * Evaluates the filter for a range of model rows, splitting into subtasks
+     * for big ranges. 
+     */
+    private class FilterTask extends RecursiveAction {
+
+        private final RowFilter<? super M, ? super Integer> filter;
+        private final boolean[] included;
+        private final boolean[] requested;
+        private final int from;
+        private final int to;
+
+        public FilterTask(RowFilter<? super M, ? super Integer> filter, 
+                boolean[] included, boolean[] requested, int from, int to) {
+            this.filter = filter;
+            this.included = included;
+            this.requested = requested;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= FILTER_CHUNK_SIZE) {
+                evaluateFilter(filter, included, 
+                        new ModelEntry(stringSnapshots, requested), from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new FilterTask(filter, included, requested, from, middle),
+                    new FilterTask(filter, included, requested, middle, to));
+        }
+    }
+    
+    /**
+     * A filter entry for the model row at modelIndex. C&P'ed from core's 
+     * FilterEntry which is private and shared, instances of this are
+     * used by a single thread only. If created with string snapshots, 
+     * the string values are looked up in the snapshots instead of converted.
+     */
+    private class ModelEntry extends RowFilter.Entry<M, Integer> {
+        
+        int modelIndex;
+        
+        private final String[][] strings;
+        private final boolean[] requested;
+        /** true if a string had been requested which isn't in the snapshots. */
+        boolean incomplete;
+        
+        ModelEntry() {
+            this(null, null);
+        }
+        
+        ModelEntry(String[][] strings, boolean[] requested) {
+            this.strings = strings;
+            this.requested = requested;
+        }
+        
+        @Override
+        public M getModel() {
+            return getModelWrapper().getModel();
+        }
+
+        @Override
+        public int getValueCount() {
+            return getModelWrapper().getColumnCount();
+        }
+
+        @Override
+        public Object getValue(int index) {
+            return getModelWrapper().getValueAt(modelIndex, index);
+        }
+
+        @Override
+        public String getStringValue(int index) {
+            if (strings == null) {
+                return getModelWrapper().getStringValueAt(modelIndex, index);
+            }
+            requested[index] = true;
+            if (strings[index] == null) {
+                // converted on the EDT and evaluated again
+                incomplete = true;
+                return "";
+            }
+            return strings[index][modelIndex];
+        }
+
+        @Override
+        public Integer getIdentifier() {
+            return getModelWrapper().getIdentifier(modelIndex);
+        }
+    }
+    
 //-------------------------- replacing super for more consistent conversion/rowCount behaviour
 
     /**
@@ -386,22 +815,163 @@ public abstract class DefaultSortController<M> extends DefaultRowSorter<M, Integ
     @Override
     public void allRowsChanged() {
         cachedModelRowCount = getModelWrapper().getRowCount();
+        stringSnapshots = null;
         super.allRowsChanged();
     }
     @Override
     public void modelStructureChanged() {
+        stringSnapshots = null;
         super.modelStructureChanged();
         cachedModelRowCount = getModelWrapper().getRowCount();
     }
     @Override
     public void rowsDeleted(int firstRow, int endRow) {
         cachedModelRowCount = getModelWrapper().getRowCount();
+        moveStringSnapshots(firstRow, endRow - firstRow + 1, 0);
         super.rowsDeleted(firstRow, endRow);
     }
     @Override
     public void rowsInserted(int firstRow, int endRow) {
         cachedModelRowCount = getModelWrapper().getRowCount();
+        moveStringSnapshots(firstRow, 0, endRow - firstRow + 1);
         super.rowsInserted(firstRow, endRow);
     }
     
+    /**
+     * {@inheritDoc} <p>
+     * 
+     * Overridden to do nothing if the mapping can't be effected by the update, 
+     * that is if the updated column is neither sorted nor filtered.
+     */
+    @Override
+    public void rowsUpdated(int firstRow, int endRow, int column) {
+        clearStringSnapshots(firstRow, endRow, column);
+        if (getSortsOnUpdates() && !hasUnsortedUpdates && isValidUpdate(firstRow, endRow)
+                && column >= 0 && column < getModelWrapper().getColumnCount()
+                && super.getRowFilter() == null 
+                && SortUtils.getFirstSortKeyForColumn(getSortKeys(), column) == null) {
+            return;
+        }
+        super.rowsUpdated(firstRow, endRow, column);
+    }
+    
+    /**
+     * {@inheritDoc} <p>
+     * 
+     * Overridden to do nothing if the updated rows are still in order and 
+     * their filtered state is unchanged. Super re-positions the rows
+     * in the view and notifies its listeners in any case, which is expensive
+     * for frequent updates of big models.
+     */
+    @Override
+    public void rowsUpdated(int firstRow, int endRow) {
+        clearStringSnapshots(firstRow, endRow, -1);
+        if (!getSortsOnUpdates()) {
+            hasUnsortedUpdates = true;
+        } else if (!hasUnsortedUpdates && isValidUpdate(firstRow, endRow)
+                && (endRow - firstRow) < INCREMENTAL_UPDATE_LIMIT
+                && isMappingUnchanged(firstRow, endRow)) {
+            return;
+        }
+        super.rowsUpdated(firstRow, endRow);
+    }
+    
+    /**
+     * The maximal number of updated rows to check for an unchanged mapping.
+     */
+    private static final int INCREMENTAL_UPDATE_LIMIT = 64;
+
+    /**
+     * @param firstRow the first updated row in model coordinates
+     * @param endRow the last updated row in model coordinates
+     * @return true if the range is valid for the current model row count.
+     */
+    private boolean isValidUpdate(int firstRow, int endRow) {
+        return firstRow >= 0 && firstRow <= endRow && endRow < getModelRowCount();
+    }
+
+    /**
+     * Returns a boolean indicating whether the given updated model rows
+     * are still included/excluded as before and in the same order as 
+     * their neighbours in the view.
+     * 
+     * @param firstRow the first updated row in model coordinates
+     * @param endRow the last updated row in model coordinates
+     * @return true if the view mapping needn't be updated, false otherwise.
+     */
+    private boolean isMappingUnchanged(int firstRow, int endRow) {
+        RowFilter<? super M, ? super Integer> filter = super.getRowFilter();
+        ModelEntry entry = filter != null ? new ModelEntry() : null;
+        int viewRowCount = getViewRowCount();
+        for (int row = firstRow; row <= endRow; row++) {
+            int viewIndex = convertRowIndexToView(row);
+            if (filter != null) {
+                entry.modelIndex = row;
+                if (filter.include(entry) != (viewIndex >= 0)) {
+                    return false;
+                }
+            }
+            if (viewIndex < 0) continue;
+            if (viewIndex > 0 
+                    && compare(convertRowIndexToModel(viewIndex - 1), row) > 0) {
+                return false;
+            }
+            if (viewIndex < viewRowCount - 1 
+                    && compare(row, convertRowIndexToModel(viewIndex + 1)) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compares the given model rows by the current sort keys. 
+     * C&P'ed from super (which is private) to have the exact same order.
+     * 
+     * @param model1 the first row in model coordinates
+     * @param model2 the second row in model coordinates
+     * @return the comparison result, as defined in Comparator
+     */
+    @SuppressWarnings("unchecked")
+    private int compare(int model1, int model2) {
+        for (SortKey sortKey : getSortKeys()) {
+            int column = sortKey.getColumn();
+            SortOrder sortOrder = sortKey.getSortOrder();
+            int result;
+            if (sortOrder == SortOrder.UNSORTED) {
+                result = model1 - model2;
+            } else {
+                Object v1;
+                Object v2;
+                if (useToString(column)) {
+                    v1 = getModelWrapper().getStringValueAt(model1, column);
+                    v2 = getModelWrapper().getStringValueAt(model2, column);
+                } else {
+                    v1 = getModelWrapper().getValueAt(model1, column);
+                    v2 = getModelWrapper().getValueAt(model2, column);
+                }
+                // Treat nulls as < then non-null
+                if (v1 == null) {
+                    result = v2 == null ? 0 : -1;
+                } else if (v2 == null) {
+                    result = 1;
+                } else {
+                    Comparator<Object> comparator = (Comparator<Object>) getComparator(column);
+                    if (comparator == null) {
+                        comparator = Collator.getInstance();
+                    }
+                    result = comparator.compare(v1, v2);
+                }
+                if (sortOrder == SortOrder.DESCENDING) {
+                    result *= -1;
+                }
+            }
+            if (result != 0) {
+                return result;
+            }
+        }
+        // If we get here, they're equal. Fallback to model order.
+        return model1 - model2;
+    }
+    
 }
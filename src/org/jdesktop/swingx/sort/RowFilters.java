@@ -139,6 +139,26 @@ public class RowFilters {
         return (RowFilter<M,I>)new RegexFilter(pattern, indices);
     }
 
+    /**
+     * Returns a <code>RowFilter</code> that uses a regular
+     * expression to determine which entries to include. In contrast
+     * to the filter returned by <code>regexFilter</code>, the returned filter 
+     * is thread-safe and can be evaluated concurrently, f.i. by 
+     * a DefaultSortController with parallel filtering enabled.
+     * 
+     * @param pattern the Pattern to use for matching
+     * @param indices the indices of the values to check.  If not supplied all
+     *               values are evaluated
+     * @return a thread-safe <code>RowFilter</code> implementing the specified criteria
+     * @throws NullPointerException if <code>pattern</code> is
+     *         <code>null</code>
+     * @see DefaultSortController#setParallelFiltering(boolean)
+     */
+    public static <M,I> RowFilter<M,I> concurrentRegexFilter(Pattern pattern,
+                                                       int... indices) {
+        return (RowFilter<M,I>)new ConcurrentRegexFilter(pattern, indices);
+    }
+
     /**
      * C&P from core Swing to allow subclassing.
      */
@@ -212,6 +232,34 @@ public class RowFilters {
         }
     }
     
+    /**
+     * Thread-safe variant of RegexFilter: keeps a Matcher per thread.
+     */
+    private static class ConcurrentRegexFilter extends GeneralFilter {
+        private final ThreadLocal<Matcher> matcher;
+
+        ConcurrentRegexFilter(final Pattern regex, int[] columns) {
+            super(columns);
+            Contract.asNotNull(regex, "Pattern must be non-null");
+            matcher = new ThreadLocal<Matcher>() {
+
+                @Override
+                protected Matcher initialValue() {
+                    return regex.matcher("");
+                }
+                
+            };
+        }
+
+        @Override
+        protected boolean include(
+                Entry<? extends Object,? extends Object> value, int index) {
+            Matcher current = matcher.get();
+            current.reset(value.getStringValue(index));
+            return current.find();
+        }
+    }
+    
     private RowFilters() {};
     
 }
@@ -0,0 +1,260 @@
+/*
+ * $Id$
+ *
+ * Copyright 2009 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ */
+package org.jdesktop.swingx.sort;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.Comparator;
+import java.util.Date;
+
+import javax.swing.table.TableModel;
+
+/**
+ * Sort keys extracted once per sort from the columns of a TableModel.
+ * <p>
+ *
+ * Numeric and Date columns are stored in primitive arrays, String columns
+ * as CollationKeys and other Comparable columns as-is. While sorting, a
+ * cached column's value is a row handle which is compared by the column's
+ * comparator without accessing the model and without allocating.
+ * Outside of the sort, the comparator delegates to the column's default
+ * comparator.
+ *
+ * @see TableSortController#setCachingSortKeys(boolean)
+ */
+final class SortKeyCache {
+
+    private final int rowCount;
+
+    /** per column: long[], double[], Object[] or null if not cached. */
+    private Object[] keys;
+
+    /** per column: the null values of primitive keys, if any. */
+    private boolean[][] nulls;
+
+    /** per column: the comparator for the cached keys. */
+    private KeyComparator[] comparators;
+
+    private RowHandle[] handles;
+
+    /**
+     * Instantiates an empty cache.
+     *
+     * @param columnCount the number of columns in the model
+     * @param rowCount the number of rows in the model
+     */
+    public SortKeyCache(int columnCount, int rowCount) {
+        this.rowCount = rowCount;
+        keys = new Object[columnCount];
+        nulls = new boolean[columnCount][];
+        comparators = new KeyComparator[columnCount];
+    }
+
+    /**
+     * Returns a boolean indicating whether the column's keys are cached.
+     *
+     * @param column the column index in model coordinates
+     * @return true if the column's keys are cached, false otherwise.
+     */
+    public boolean isCached(int column) {
+        return keys != null && column < keys.length && keys[column] != null;
+    }
+
+    /**
+     * Returns the key for the given cell, to be compared with the column's
+     * comparator.
+     *
+     * @param row the row index in model coordinates
+     * @param column the column index in model coordinates, must be cached
+     * @return the key of the cell, null if the cell value is null.
+     */
+    public Object getKey(int row, int column) {
+        Object columnKeys = keys[column];
+        if (columnKeys instanceof Object[]) {
+            if (((Object[]) columnKeys)[row] == null) return null;
+        } else if (nulls[column] != null && nulls[column][row]) {
+            return null;
+        }
+        if (handles == null) {
+            handles = new RowHandle[rowCount];
+        }
+        RowHandle handle = handles[row];
+        if (handle == null) {
+            handle = new RowHandle(row);
+            handles[row] = handle;
+        }
+        return handle;
+    }
+
+    /**
+     * Returns the comparator for the keys of the given column.
+     *
+     * @param column the column index in model coordinates, must be cached
+     * @return the comparator for the keys of the given column.
+     */
+    public Comparator<?> getComparator(int column) {
+        return comparators[column];
+    }
+
+    /**
+     * Releases all keys. The comparators handed out by this cache delegate to
+     * the default comparator afterwards.
+     */
+    public void release() {
+        keys = null;
+        nulls = null;
+        handles = null;
+    }
+
+    /**
+     * Extracts the keys of the given column, if the values are of a type
+     * supported by this cache and the default comparator is known.
+     *
+     * @param model the model to extract the keys from
+     * @param column the column index in model coordinates
+     * @param defaultComparator the comparator to use for the column's values
+     * @return true if the column's keys are cached, false otherwise
+     */
+    public boolean cacheColumn(TableModel model, int column, Comparator<?> defaultComparator) {
+        Object[] values = new Object[rowCount];
+        Class<?> valueClass = null;
+        boolean hasNulls = false;
+        for (int row = 0; row < rowCount; row++) {
+            Object value = model.getValueAt(row, column);
+            values[row] = value;
+            if (value == null) {
+                hasNulls = true;
+            } else if (valueClass == null) {
+                valueClass = value.getClass();
+            } else if (valueClass != value.getClass()) {
+                // mixed types: leave the behaviour to the comparator
+                return false;
+            }
+        }
+        if (valueClass == null) return false;
+        Object columnKeys = null;
+        if (defaultComparator == DefaultSortController.COMPARABLE_COMPARATOR) {
+            if (valueClass == Integer.class || valueClass == Long.class
+                    || valueClass == Short.class || valueClass == Byte.class) {
+                long[] longs = new long[rowCount];
+                for (int row = 0; row < rowCount; row++) {
+                    if (values[row] != null) {
+                        longs[row] = ((Number) values[row]).longValue();
+                    }
+                }
+                columnKeys = longs;
+            } else if (valueClass == Double.class || valueClass == Float.class) {
+                double[] doubles = new double[rowCount];
+                for (int row = 0; row < rowCount; row++) {
+                    if (values[row] != null) {
+                        doubles[row] = ((Number) values[row]).doubleValue();
+                    }
+                }
+                columnKeys = doubles;
+            } else if (valueClass == Date.class) {
+                // subclasses like Timestamp have a different compareTo
+                long[] times = new long[rowCount];
+                for (int row = 0; row < rowCount; row++) {
+                    if (values[row] != null) {
+                        times[row] = ((Date) values[row]).getTime();
+                    }
+                }
+                columnKeys = times;
+            } else if (Comparable.class.isAssignableFrom(valueClass)) {
+                columnKeys = values;
+            }
+        } else if ((defaultComparator instanceof Collator) && valueClass == String.class) {
+            Collator collator = (Collator) defaultComparator;
+            CollationKey[] collationKeys = new CollationKey[rowCount];
+            for (int row = 0; row < rowCount; row++) {
+                if (values[row] != null) {
+                    collationKeys[row] = collator.getCollationKey((String) values[row]);
+                }
+            }
+            columnKeys = collationKeys;
+        }
+        if (columnKeys == null) return false;
+        keys[column] = columnKeys;
+        if (hasNulls && !(columnKeys instanceof Object[])) {
+            boolean[] columnNulls = new boolean[rowCount];
+            for (int row = 0; row < rowCount; row++) {
+                columnNulls[row] = values[row] == null;
+            }
+            nulls[column] = columnNulls;
+        }
+        comparators[column] = new KeyComparator(column, defaultComparator);
+        return true;
+    }
+
+    /**
+     * Compares the keys of the given rows.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private int compareRows(int column, int row1, int row2) {
+        Object columnKeys = keys[column];
+        if (columnKeys instanceof long[]) {
+            long[] longs = (long[]) columnKeys;
+            return Long.compare(longs[row1], longs[row2]);
+        }
+        if (columnKeys instanceof double[]) {
+            double[] doubles = (double[]) columnKeys;
+            return Double.compare(doubles[row1], doubles[row2]);
+        }
+        Object[] objects = (Object[]) columnKeys;
+        return ((Comparable) objects[row1]).compareTo(objects[row2]);
+    }
+
+    /**
+     * The key of a row while sorting.
+     */
+    private static class RowHandle {
+        final int row;
+
+        public RowHandle(int row) {
+            this.row = row;
+        }
+    }
+
+    /**
+     * Compares row handles by the cached keys, delegates everything else.
+     */
+    private class KeyComparator implements Comparator<Object> {
+
+        private final int column;
+        private final Comparator<Object> delegate;
+
+        @SuppressWarnings("unchecked")
+        public KeyComparator(int column, Comparator<?> delegate) {
+            this.column = column;
+            this.delegate = (Comparator<Object>) delegate;
+        }
+
+        @Override
+        public int compare(Object o1, Object o2) {
+            if ((o1 instanceof RowHandle) && (o2 instanceof RowHandle) && isCached(column)) {
+                return compareRows(column, ((RowHandle) o1).row, ((RowHandle) o2).row);
+            }
+            return delegate.compare(o1, o2);
+        }
+
+    }
+}
@@ -0,0 +1,306 @@
+/*
+ * $Id$
+ *
+ * Copyright 2009 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ */
+package org.jdesktop.swingx.sort;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+import javax.swing.table.TableModel;
+
+import org.jdesktop.swingx.renderer.StringValue;
+import org.jdesktop.swingx.util.Contract;
+
+/**
+ * A bounded cache of the string representation of a TableModel's cells, as
+ * converted by a StringValueProvider. Typically, this is created and
+ * maintained by a collection view which shares it across all parties
+ * interested in the string representation (sorting, filtering, searching
+ * and highlighting). <p>
+ *
+ * The cache is keyed by model row/column and direct-mapped: each cell is
+ * stored in exactly one slot, a colliding cell replaces the previous one. So
+ * a lookup never allocates and the size is bounded by the capacity. <p>
+ *
+ * The owner is responsible for keeping the cache in synch: model changes
+ * must be passed to <code>tableChanged</code> <b>before</b> any other party
+ * is notified, changes in the conversion must be followed by
+ * <code>invalidate</code>. <p>
+ *
+ * Lookup is safe for concurrent threads (as f.i. used by parallel filtering),
+ * invalidation is not. The hit/miss counters are approximations under
+ * concurrent access.
+ *
+ * @see org.jdesktop.swingx.JXTable#setCachingStrings(boolean)
+ */
+public class StringValueCache implements StringValueProvider, TableModelListener {
+
+    /** The default number of cached cells. */
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private final StringValueProvider provider;
+
+    private TableModel model;
+
+    private final Entry[] entries;
+
+    private long hitCount;
+
+    private long missCount;
+
+    /**
+     * Instantiates a cache with default capacity.
+     *
+     * @param provider the provider to use for conversion, must not be null.
+     * @param model the model to get the cell values from, may be null.
+     */
+    public StringValueCache(StringValueProvider provider, TableModel model) {
+        this(provider, model, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Instantiates a cache with the given capacity.
+     *
+     * @param provider the provider to use for conversion, must not be null.
+     * @param model the model to get the cell values from, may be null.
+     * @param capacity the maximal number of cached cells, is rounded up to
+     *   the next power of two.
+     * @throws NullPointerException if the provider is null
+     * @throws IllegalArgumentException if the capacity is &lt; 1
+     */
+    public StringValueCache(StringValueProvider provider, TableModel model, int capacity) {
+        this.provider = Contract.asNotNull(provider, "provider must not be null");
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be > 0 but was: " + capacity);
+        }
+        int size = 1;
+        while (size < capacity && size < (1 << 30)) {
+            size <<= 1;
+        }
+        this.entries = new Entry[size];
+        this.model = model;
+    }
+
+    /**
+     * {@inheritDoc} <p>
+     *
+     * Implemented to return the StringValue of the wrapped provider.
+     */
+    @Override
+    public StringValue getStringValue(int row, int column) {
+        return provider.getStringValue(row, column);
+    }
+
+    /**
+     * Returns the string representation of the model cell at the given
+     * position. Looked up in the cache, converted and stored if not
+     * cached.
+     *
+     * @param row the row index in model coordinates
+     * @param column the column index in model coordinates
+     * @return the string representation of the cell value.
+     */
+    public String getString(int row, int column) {
+        int slot = slot(row, column);
+        Entry entry = entries[slot];
+        if (entry != null && entry.row == row && entry.column == column) {
+            hitCount++;
+            return entry.string;
+        }
+        missCount++;
+        String string = getStringValue(row, column).getString(model.getValueAt(row, column));
+        entries[slot] = new Entry(row, column, string);
+        return string;
+    }
+
+    /**
+     * Sets the model to get the cell values from. Flushes the cache.
+     *
+     * @param model the model to get the cell values from, may be null.
+     */
+    public void setModel(TableModel model) {
+        this.model = model;
+        invalidate();
+    }
+
+    /**
+     * Returns the model to get the cell values from.
+     *
+     * @return the model, may be null.
+     */
+    public TableModel getModel() {
+        return model;
+    }
+
+    /**
+     * Flushes all cached strings.
+     */
+    public void invalidate() {
+        Arrays.fill(entries, null);
+    }
+
+    /**
+     * Returns the maximal number of cached cells.
+     *
+     * @return the capacity of this cache.
+     */
+    public int getCapacity() {
+        return entries.length;
+    }
+
+    /**
+     * Returns the number of lookups which were served from the cache.
+     *
+     * @return the hit count since creation or the last reset.
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of lookups which needed a conversion.
+     *
+     * @return the miss count since creation or the last reset.
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Resets the hit and miss counters.
+     */
+    public void resetStatistics() {
+        hitCount = 0;
+        missCount = 0;
+    }
+
+    /**
+     * {@inheritDoc} <p>
+     *
+     * Implemented to evict the cells effected by the change: inserted/deleted
+     * rows shift the cached rows below, updates evict the updated cells,
+     * dataChanged and structureChanged flush the complete cache.
+     */
+    @Override
+    public void tableChanged(TableModelEvent e) {
+        if (e.getFirstRow() == TableModelEvent.HEADER_ROW
+                || e.getLastRow() == Integer.MAX_VALUE) {
+            invalidate();
+            return;
+        }
+        int first = e.getFirstRow();
+        int last = e.getLastRow();
+        switch (e.getType()) {
+        case TableModelEvent.INSERT:
+            shiftRows(first, -1, last - first + 1);
+            break;
+        case TableModelEvent.DELETE:
+            shiftRows(first, last, first - last - 1);
+            break;
+        default:
+            evictRows(first, last, e.getColumn());
+        }
+    }
+
+    /**
+     * Evicts the cells in the given rows, re-keys the cells below.
+     *
+     * @param first the first row effected
+     * @param last the last row to evict, -1 for none
+     * @param delta the offset of the rows below
+     */
+    private void shiftRows(int first, int last, int delta) {
+        List<Entry> shifted = null;
+        for (int i = 0; i < entries.length; i++) {
+            Entry entry = entries[i];
+            if (entry == null || entry.row < first) continue;
+            entries[i] = null;
+            if (entry.row > last) {
+                if (shifted == null) {
+                    shifted = new ArrayList<Entry>();
+                }
+                shifted.add(new Entry(entry.row + delta, entry.column, entry.string));
+            }
+        }
+        if (shifted == null) return;
+        for (Entry entry : shifted) {
+            entries[slot(entry.row, entry.column)] = entry;
+        }
+    }
+
+    /**
+     * Evicts the cells in the given range.
+     *
+     * @param first the first row to evict
+     * @param last the last row to evict
+     * @param column the column to evict or ALL_COLUMNS
+     */
+    private void evictRows(int first, int last, int column) {
+        boolean allColumns = column == TableModelEvent.ALL_COLUMNS;
+        int columns = allColumns ? (model != null ? model.getColumnCount() : 0) : 1;
+        if ((long) (last - first + 1) * columns < entries.length / 8) {
+            // few cells: evict them directly
+            for (int row = first; row <= last; row++) {
+                for (int c = 0; c < columns; c++) {
+                    int current = allColumns ? c : column;
+                    int slot = slot(row, current);
+                    Entry entry = entries[slot];
+                    if (entry != null && entry.row == row && entry.column == current) {
+                        entries[slot] = null;
+                    }
+                }
+            }
+            return;
+        }
+        for (int i = 0; i < entries.length; i++) {
+            Entry entry = entries[i];
+            if (entry != null && entry.row >= first && entry.row <= last
+                    && (allColumns || entry.column == column)) {
+                entries[i] = null;
+            }
+        }
+    }
+
+    private int slot(int row, int column) {
+        int hash = row * 31 + column;
+        hash ^= hash >>> 16;
+        hash *= 0x9E3779B9;
+        return (hash ^ (hash >>> 15)) & (entries.length - 1);
+    }
+
+    /**
+     * An immutable cached cell.
+     */
+    private static class Entry {
+        final int row;
+        final int column;
+        final String string;
+
+        Entry(int row, int column, String string) {
+            this.row = row;
+            this.column = column;
+            this.string = string;
+        }
+    }
+}
@@ -24,6 +24,7 @@ package org.jdesktop.swingx.sort;
 import java.text.Collator;
 import java.util.Comparator;
 
+import javax.swing.SortOrder;
 import javax.swing.table.TableModel;
 
 /**
@@ -37,6 +38,13 @@ public class TableSortController<M extends TableModel> extends DefaultSortContro
      */
     private M tableModel;
     
+    private boolean cachingSortKeys;
+    
+    /**
+     * The keys prepared for the current sort, null if not sorting.
+     */
+    private SortKeyCache sortKeyCache;
+    
     public TableSortController() {
         this(null);
     }
@@ -83,6 +91,9 @@ public class TableSortController<M extends TableModel> extends DefaultSortContro
      */
     @Override
     public Comparator<?> getComparator(int column) {
+        if (isSortKeyCached(column)) {
+            return sortKeyCache.getComparator(column);
+        }
         Comparator<?> comparator = super.getComparator(column);
         if (comparator != null) {
             return comparator;
@@ -109,6 +120,9 @@ public class TableSortController<M extends TableModel> extends DefaultSortContro
      */
     @Override
     protected boolean useToString(int column) {
+        if (isSortKeyCached(column)) {
+            return false;
+        }
         Comparator<?> comparator = super.getComparator(column);
         if (comparator != null) {
             return false;
@@ -123,6 +137,88 @@ public class TableSortController<M extends TableModel> extends DefaultSortContro
         return true;
     }
 
+    
+    /**
+     * Sets whether or not to extract the sort keys of sorted columns once per
+     * sort. If enabled, the values of sorted columns with a default comparator 
+     * are read only once from the model: numbers and dates are stored as 
+     * primitives, strings as <code>CollationKey</code>s and compared without 
+     * allocation during the sort.<p>
+     * 
+     * The default is false. Enabling is recommended for big models.
+     * 
+     * @param cachingSortKeys whether or not to extract sort keys once per sort.
+     * @see #isCachingSortKeys()
+     */
+    public void setCachingSortKeys(boolean cachingSortKeys) {
+        this.cachingSortKeys = cachingSortKeys;
+    }
+
+    /**
+     * Returns whether or not the sort keys of sorted columns are extracted 
+     * once per sort.
+     * 
+     * @return true if sort keys are extracted once per sort, false otherwise.
+     * @see #setCachingSortKeys(boolean)
+     */
+    public boolean isCachingSortKeys() {
+        return cachingSortKeys;
+    }
+    
+    /**
+     * {@inheritDoc} <p>
+     * 
+     * Overridden to return true if caching sort keys is enabled and there 
+     * is a sorted column.
+     */
+    @Override
+    protected boolean shouldPrepareSortKeys() {
+        if (!isCachingSortKeys() || tableModel == null) return false;
+        for (SortKey sortKey : getSortKeys()) {
+            if (sortKey.getSortOrder() != SortOrder.UNSORTED) return true;
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc} <p>
+     * 
+     * Implemented to extract the keys of all sorted columns which use a 
+     * default comparator on the column values.
+     */
+    @Override
+    protected void prepareSortKeys() {
+        sortKeyCache = new SortKeyCache(getModelWrapper().getColumnCount(), 
+                getModelWrapper().getRowCount());
+        for (SortKey sortKey : getSortKeys()) {
+            int column = sortKey.getColumn();
+            if (sortKey.getSortOrder() == SortOrder.UNSORTED 
+                    || sortKeyCache.isCached(column) || useToString(column)
+                    || super.getComparator(column) != null) continue;
+            sortKeyCache.cacheColumn(tableModel, column, getComparator(column));
+        }
+    }
+
+    /**
+     * {@inheritDoc} <p>
+     * 
+     * Implemented to release the extracted keys.
+     */
+    @Override
+    protected void releaseSortKeys() {
+        if (sortKeyCache != null) {
+            sortKeyCache.release();
+        }
+        sortKeyCache = null;
+    }
+
+    /**
+     * @param column the column index in model coordinates
+     * @return true if the sort keys of the column are prepared.
+     */
+    private boolean isSortKeyCached(int column) {
+        return sortKeyCache != null && sortKeyCache.isCached(column);
+    }
 
     /**
      * Implementation of DefaultRowSorter.ModelWrapper that delegates to a
@@ -146,12 +242,20 @@ public class TableSortController<M extends TableModel> extends DefaultSortContro
 
         @Override
         public Object getValueAt(int row, int column) {
+            if (isSortKeyCached(column)) {
+                return sortKeyCache.getKey(row, column);
+            }
             return tableModel.getValueAt(row, column);
         }
 
         @Override
         public String getStringValueAt(int row, int column) {
-            return getStringValueProvider().getStringValue(row, column)
+            StringValueProvider provider = getStringValueProvider();
+            if ((provider instanceof StringValueCache) 
+                    && ((StringValueCache) provider).getModel() == tableModel) {
+                return ((StringValueCache) provider).getString(row, column);
+            }
+            return provider.getStringValue(row, column)
                 .getString(getValueAt(row, column));
         }
 
@@ -0,0 +1,90 @@
+/*
+ * $Id$
+ *
+ * Copyright 2009 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ */
+package org.jdesktop.swingx.table;
+
+import java.util.List;
+
+import javax.swing.RowFilter;
+import javax.swing.RowSorter.SortKey;
+import javax.swing.table.TableModel;
+
+/**
+ * The backing store of a <code>PagedTableModel</code>, typically a database
+ * query. <p>
+ *
+ * Rows are requested in blocks, sorted and filtered by the data source
+ * itself. The column meta data is accessed on the EDT and expected to be
+ * fast, the row count and rows are requested on a background thread.
+ * Implementations must be safe for concurrent access by several
+ * threads. <p>
+ *
+ * The filter is the RowFilter as set to the <code>PagedSortController</code>.
+ * A data source which pushes the filter into a query typically supports
+ * its own RowFilter subclasses only and throws an IllegalArgumentException
+ * for all others.
+ *
+ * @see PagedTableModel
+ * @see TableModelDataSource
+ */
+public interface PagedDataSource {
+
+    /**
+     * @return the number of columns.
+     */
+    int getColumnCount();
+
+    /**
+     * @param column the column index
+     * @return the name of the column.
+     */
+    String getColumnName(int column);
+
+    /**
+     * @param column the column index
+     * @return the most specific class of all values in the column.
+     */
+    Class<?> getColumnClass(int column);
+
+    /**
+     * Returns the number of rows which pass the given filter.
+     *
+     * @param filter the filter to apply, may be null
+     * @return the number of rows which pass the filter.
+     */
+    int getRowCount(RowFilter<? super TableModel, ? super Integer> filter);
+
+    /**
+     * Returns a block of rows which pass the given filter, in the order
+     * given by the sortKeys. The returned array is owned by the caller.
+     *
+     * @param first the index of the first row to return
+     * @param count the maximal number of rows to return
+     * @param sortKeys the keys to sort by, in order of priority. May be empty
+     *   but not null.
+     * @param filter the filter to apply, may be null.
+     * @return the rows, each an array of column values. May be shorter
+     *    than count if the end is reached.
+     */
+    Object[][] getRows(int first, int count, List<? extends SortKey> sortKeys,
+            RowFilter<? super TableModel, ? super Integer> filter);
+
+}
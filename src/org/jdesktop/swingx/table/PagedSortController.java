@@ -0,0 +1,216 @@
+/*
+ * $Id$
+ *
+ * Copyright 2009 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ */
+package org.jdesktop.swingx.table;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.swing.RowFilter;
+import javax.swing.table.TableModel;
+
+import org.jdesktop.swingx.sort.TableSortController;
+
+/**
+ * A SortController which pushes sorting and filtering down to the data
+ * source of a <code>PagedTableModel</code>. <p>
+ *
+ * Sort keys and filter are reported as usual, so the table header and
+ * the sort api behave as with a DefaultSortController. Instead of
+ * sorting and filtering in memory, they are passed to the model which
+ * reloads its rows in the new order. The mapping between view and model
+ * is always the identity. <p>
+ *
+ * Note: the filter must be understood by the model's data source.
+ *
+ * @see PagedTableModel#setQuery(List, RowFilter)
+ */
+public class PagedSortController extends TableSortController<PagedTableModel> {
+
+    private List<SortKey> sortKeys = Collections.emptyList();
+
+    private RowFilter<? super PagedTableModel, ? super Integer> filter;
+
+    /**
+     * Flag to hide sort keys and filter from super while it updates the mapping.
+     */
+    private boolean mapping;
+
+    /**
+     * Instantiates a PagedSortController for the given model.
+     *
+     * @param model the model to push sort keys and filter to.
+     */
+    public PagedSortController(PagedTableModel model) {
+        super(model);
+    }
+
+    /**
+     * {@inheritDoc} <p>
+     *
+     * Overridden to pass the keys to the model instead of sorting.
+     */
+    @Override
+    public void setSortKeys(List<? extends SortKey> keys) {
+        List<SortKey> old = sortKeys;
+        if (keys != null && !keys.isEmpty()) {
+            int columnCount = getModelWrapper().getColumnCount();
+            for (SortKey key : keys) {
+                if (key == null || key.getColumn() < 0 || key.getColumn() >= columnCount) {
+                    throw new IllegalArgumentException("Invalid SortKey");
+                }
+            }
+            sortKeys = Collections.unmodifiableList(new ArrayList<SortKey>(keys));
+        } else {
+            sortKeys = Collections.emptyList();
+        }
+        if (!sortKeys.equals(old)) {
+            fireSortOrderChanged();
+            pushQuery();
+        }
+    }
+
+    /**
+     * {@inheritDoc} <p>
+     *
+     * Overridden to return the keys passed to the model.
+     */
+    @Override
+    public List<? extends SortKey> getSortKeys() {
+        if (mapping) return Collections.emptyList();
+        return sortKeys;
+    }
+
+    /**
+     * {@inheritDoc} <p>
+     *
+     * Overridden to pass the filter to the model instead of filtering.
+     */
+    @Override
+    public void setRowFilter(RowFilter<? super PagedTableModel, ? super Integer> filter) {
+        this.filter = filter;
+        pushQuery();
+    }
+
+    /**
+     * {@inheritDoc} <p>
+     *
+     * Overridden to return the filter passed to the model.
+     */
+    @Override
+    public RowFilter<? super PagedTableModel, ? super Integer> getRowFilter() {
+        if (mapping) return null;
+        return filter;
+    }
+
+    /**
+     * {@inheritDoc} <p>
+     *
+     * Overridden to return the model row count, the model is
+     * filtered already.
+     */
+    @Override
+    public int getViewRowCount() {
+        return getModelRowCount();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void pushQuery() {
+        PagedTableModel model = getModel();
+        if (model == null) return;
+        // filters are evaluated by the data source, against its own entries
+        model.setQuery(sortKeys, (RowFilter<? super TableModel, ? super Integer>) filter);
+    }
+
+//------------------ notification methods: map as unsorted/unfiltered
+
+    @Override
+    public void sort() {
+        mapping = true;
+        try {
+            super.sort();
+        } finally {
+            mapping = false;
+        }
+    }
+
+    @Override
+    public void allRowsChanged() {
+        mapping = true;
+        try {
+            super.allRowsChanged();
+        } finally {
+            mapping = false;
+        }
+    }
+
+    @Override
+    public void modelStructureChanged() {
+        mapping = true;
+        try {
+            super.modelStructureChanged();
+        } finally {
+            mapping = false;
+        }
+    }
+
+    @Override
+    public void rowsDeleted(int firstRow, int endRow) {
+        mapping = true;
+        try {
+            super.rowsDeleted(firstRow, endRow);
+        } finally {
+            mapping = false;
+        }
+    }
+
+    @Override
+    public void rowsInserted(int firstRow, int endRow) {
+        mapping = true;
+        try {
+            super.rowsInserted(firstRow, endRow);
+        } finally {
+            mapping = false;
+        }
+    }
+
+    @Override
+    public void rowsUpdated(int firstRow, int endRow) {
+        mapping = true;
+        try {
+            super.rowsUpdated(firstRow, endRow);
+        } finally {
+            mapping = false;
+        }
+    }
+
+    @Override
+    public void rowsUpdated(int firstRow, int endRow, int column) {
+        mapping = true;
+        try {
+            super.rowsUpdated(firstRow, endRow, column);
+        } finally {
+            mapping = false;
+        }
+    }
+
+}
@@ -0,0 +1,441 @@
+/*
+ * $Id$
+ *
+ * Copyright 2009 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ */
+package org.jdesktop.swingx.table;
+
+import java.awt.Color;
+import java.awt.Component;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.swing.RowFilter;
+import javax.swing.RowSorter.SortKey;
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.TableModel;
+
+import org.jdesktop.swingx.decorator.ColorHighlighter;
+import org.jdesktop.swingx.decorator.ComponentAdapter;
+import org.jdesktop.swingx.decorator.HighlightPredicate;
+import org.jdesktop.swingx.decorator.Highlighter;
+import org.jdesktop.swingx.renderer.StringValue;
+import org.jdesktop.swingx.util.Contract;
+
+/**
+ * A read-only TableModel which lazily loads its rows from a
+ * <code>PagedDataSource</code>. Intended for models which are too big to
+ * be resident in memory. <p>
+ *
+ * Rows are loaded in pages of fixed size on a background Executor, the
+ * most recently used pages are cached. A cell of a row which is not
+ * yet loaded has the value {@link #LOADING}. Once the page is loaded, the model
+ * fires a rowsUpdated for the page's rows. <p>
+ *
+ * Sorting and filtering is done by the data source. To use with a JXTable, the
+ * table's RowSorter must be a <code>PagedSortController</code> which passes
+ * sort keys and filter to this model:
+ *
+ * <pre><code>
+ * PagedTableModel model = new PagedTableModel(dataSource);
+ * JXTable table = new JXTable(model);
+ * table.setRowSorter(new PagedSortController(model));
+ * table.addHighlighter(PagedTableModel.createLoadingHighlighter());
+ * </code></pre>
+ *
+ * Like all Swing models, this must be accessed on the EDT only.
+ *
+ * @see PagedSortController
+ * @see #IS_LOADING
+ */
+public class PagedTableModel extends AbstractTableModel {
+
+    private static final Logger LOG = Logger.getLogger(PagedTableModel.class
+            .getName());
+
+    /** The default number of rows per page. */
+    public static final int DEFAULT_PAGE_SIZE = 256;
+
+    /** The default maximal number of cached pages. */
+    public static final int DEFAULT_MAX_PAGES = 64;
+
+    /**
+     * The number of newer page requests after which a queued page is not
+     * loaded any more, it most probably has been scrolled out of view.
+     */
+    private static final int MAX_NEWER_REQUESTS = 16;
+
+    /**
+     * The value of cells in rows which are not yet loaded.
+     */
+    public static final Object LOADING = new Object() {
+        @Override
+        public String toString() {
+            return "";
+        }
+    };
+
+    /**
+     * Predicate which returns true if the cell is not yet loaded.
+     */
+    public static final HighlightPredicate IS_LOADING = new HighlightPredicate() {
+        /**
+         * {@inheritDoc} <p>
+         *
+         * Implemented to return true if the adapter's value is LOADING.
+         */
+        @Override
+        public boolean isHighlighted(Component renderer, ComponentAdapter adapter) {
+            return adapter.getValue() == LOADING;
+        }
+    };
+
+    private static ExecutorService defaultExecutor;
+
+    private final PagedDataSource dataSource;
+    private final int pageSize;
+    private final Executor executor;
+
+    private final Map<Integer, Object[][]> pages;
+    private final Set<Integer> pendingPages;
+
+    private List<? extends SortKey> sortKeys;
+    private RowFilter<? super TableModel, ? super Integer> filter;
+
+    private int rowCount;
+
+    /**
+     * Incremented on every change of the query, loads of older
+     * generations are dropped. Written on the EDT only, read by the 
+     * loaders to skip obsolete loads.
+     */
+    private volatile int generation;
+
+    /**
+     * Incremented on every page request. Written on the EDT only, read by
+     * the loaders to skip pages requested long ago.
+     */
+    private volatile int requestCount;
+
+    /**
+     * Instantiates a PagedTableModel with default page size and cache size,
+     * loading on a shared background Executor.
+     *
+     * @param dataSource the source to load the rows from, must not be null.
+     */
+    public PagedTableModel(PagedDataSource dataSource) {
+        this(dataSource, DEFAULT_PAGE_SIZE, DEFAULT_MAX_PAGES, null);
+    }
+
+    /**
+     * Instantiates a PagedTableModel with the given properties.
+     *
+     * @param dataSource the source to load the rows from, must not be null.
+     * @param pageSize the number of rows to load at once, must be &gt; 0
+     * @param maxPages the maximal number of pages to cache, must be &gt; 0
+     * @param executor the executor to load the rows on, may be null to
+     *   use a shared default.
+     * @throws NullPointerException if the dataSource is null
+     * @throws IllegalArgumentException if pageSize or maxPages are &lt; 1
+     */
+    public PagedTableModel(PagedDataSource dataSource, int pageSize,
+            final int maxPages, Executor executor) {
+        this.dataSource = Contract.asNotNull(dataSource, "dataSource must not be null");
+        if (pageSize < 1 || maxPages < 1) {
+            throw new IllegalArgumentException("pageSize and maxPages must be > 0 but were: "
+                    + pageSize + "/" + maxPages);
+        }
+        this.pageSize = pageSize;
+        this.executor = executor != null ? executor : getDefaultExecutor();
+        this.pages = new LinkedHashMap<Integer, Object[][]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Object[][]> eldest) {
+                return size() > maxPages;
+            }
+        };
+        this.pendingPages = new HashSet<Integer>();
+        this.sortKeys = Collections.emptyList();
+        reload();
+    }
+
+    /**
+     * Returns a Highlighter which paints rows not yet loaded with a
+     * light gray background.
+     *
+     * @return a Highlighter for cells which are not yet loaded.
+     */
+    public static Highlighter createLoadingHighlighter() {
+        return new ColorHighlighter(IS_LOADING, new Color(0xF0F0F0), null);
+    }
+
+    /**
+     * Returns a StringValue which converts LOADING to the given placeholder
+     * text and delegates all other values.
+     *
+     * @param delegate the StringValue to use for loaded values, must not be null
+     * @param placeholder the text to show for cells not yet loaded
+     * @return a StringValue which shows a placeholder for cells not yet loaded.
+     */
+    public static StringValue createLoadingStringValue(final StringValue delegate,
+            final String placeholder) {
+        Contract.asNotNull(delegate, "delegate must not be null");
+        return new StringValue() {
+            @Override
+            public String getString(Object value) {
+                return value == LOADING ? placeholder : delegate.getString(value);
+            }
+        };
+    }
+
+    /**
+     * Returns the data source the rows are loaded from.
+     *
+     * @return the data source.
+     */
+    public PagedDataSource getDataSource() {
+        return dataSource;
+    }
+
+    /**
+     * Returns the number of rows loaded at once.
+     *
+     * @return the page size.
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Sets the sort keys and filter to pass to the data source and reloads
+     * all rows. Typically, this is called by the PagedSortController only.
+     *
+     * @param sortKeys the keys to sort by, may be null
+     * @param filter the filter to apply, may be null
+     */
+    public void setQuery(List<? extends SortKey> sortKeys,
+            RowFilter<? super TableModel, ? super Integer> filter) {
+        this.sortKeys = sortKeys != null
+            ? Collections.unmodifiableList(new ArrayList<SortKey>(sortKeys))
+            : Collections.<SortKey>emptyList();
+        this.filter = filter;
+        reload();
+    }
+
+    /**
+     * Returns the sort keys passed to the data source.
+     *
+     * @return the current sort keys, never null.
+     */
+    public List<? extends SortKey> getSortKeys() {
+        return sortKeys;
+    }
+
+    /**
+     * Returns the filter passed to the data source.
+     *
+     * @return the current filter, may be null.
+     */
+    public RowFilter<? super TableModel, ? super Integer> getRowFilter() {
+        return filter;
+    }
+
+    /**
+     * Flushes all cached pages and reloads the row count. The current row
+     * count is kept until the new row count is loaded.
+     */
+    public void reload() {
+        generation++;
+        pages.clear();
+        pendingPages.clear();
+        final int currentGeneration = generation;
+        final RowFilter<? super TableModel, ? super Integer> currentFilter = filter;
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                // a newer reload is queued already
+                if (currentGeneration != generation) return;
+                try {
+                    final int count = dataSource.getRowCount(currentFilter);
+                    SwingUtilities.invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            rowCountLoaded(currentGeneration, count);
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    LOG.log(Level.WARNING, "loading the row count failed", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns a boolean indicating whether the given row is loaded.
+     *
+     * @param row the row index
+     * @return true if the row is loaded, false otherwise.
+     */
+    public boolean isLoaded(int row) {
+        return pages.containsKey(row / pageSize);
+    }
+
+    /**
+     * {@inheritDoc} <p>
+     *
+     * Implemented to return the cached value, if loaded. Otherwise
+     * requests the row's page and returns LOADING.
+     */
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        int page = rowIndex / pageSize;
+        Object[][] rows = pages.get(page);
+        if (rows == null) {
+            loadPage(page);
+            return LOADING;
+        }
+        int row = rowIndex - page * pageSize;
+        if (row >= rows.length || columnIndex >= rows[row].length) {
+            return null;
+        }
+        return rows[row][columnIndex];
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return dataSource.getColumnCount();
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return dataSource.getColumnName(column);
+    }
+
+    @Override
+    public Class<?> getColumnClass(int columnIndex) {
+        return dataSource.getColumnClass(columnIndex);
+    }
+
+    /**
+     * Loads the given page in the background, if not yet pending.
+     *
+     * @param page the page index
+     */
+    private void loadPage(final int page) {
+        if (!pendingPages.add(page)) return;
+        final int currentGeneration = generation;
+        final int request = ++requestCount;
+        final List<? extends SortKey> currentKeys = sortKeys;
+        final RowFilter<? super TableModel, ? super Integer> currentFilter = filter;
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (currentGeneration != generation
+                        || requestCount - request > MAX_NEWER_REQUESTS) {
+                    SwingUtilities.invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            pageDropped(currentGeneration, page);
+                        }
+                    });
+                    return;
+                }
+                Object[][] loaded = null;
+                try {
+                    loaded = dataSource.getRows(page * pageSize, pageSize,
+                            currentKeys, currentFilter);
+                } catch (RuntimeException e) {
+                    LOG.log(Level.WARNING, "loading page " + page + " failed", e);
+                }
+                final Object[][] rows = loaded;
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        pageLoaded(currentGeneration, page, rows);
+                    }
+                });
+            }
+        });
+    }
+
+    private void pageLoaded(int loadGeneration, int page, Object[][] rows) {
+        if (loadGeneration != generation) return;
+        pendingPages.remove(page);
+        // failed: leave as LOADING, retried on next access
+        if (rows == null) return;
+        pages.put(page, rows);
+        int first = page * pageSize;
+        int last = Math.min(first + pageSize, rowCount) - 1;
+        if (last >= first) {
+            fireTableRowsUpdated(first, last);
+        }
+    }
+
+    /**
+     * Forgets the request of a page which has not been loaded because it
+     * was obsolete. The page's rows are updated, so that the page is
+     * requested again if it is still visible.
+     */
+    private void pageDropped(int loadGeneration, int page) {
+        if (loadGeneration != generation) return;
+        pendingPages.remove(page);
+        int first = page * pageSize;
+        int last = Math.min(first + pageSize, rowCount) - 1;
+        if (last >= first) {
+            fireTableRowsUpdated(first, last);
+        }
+    }
+
+    private void rowCountLoaded(int loadGeneration, int count) {
+        if (loadGeneration != generation) return;
+        rowCount = count;
+        fireTableDataChanged();
+    }
+
+    private static synchronized Executor getDefaultExecutor() {
+        if (defaultExecutor == null) {
+            defaultExecutor = Executors.newFixedThreadPool(2, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "PagedTableModel-loader");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return defaultExecutor;
+    }
+
+}
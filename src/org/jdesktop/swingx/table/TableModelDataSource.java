@@ -0,0 +1,222 @@
+/*
+ * $Id$
+ *
+ * Copyright 2009 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ */
+package org.jdesktop.swingx.table;
+
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import javax.swing.RowFilter;
+import javax.swing.SortOrder;
+import javax.swing.RowSorter.SortKey;
+import javax.swing.table.TableModel;
+
+import org.jdesktop.swingx.util.Contract;
+
+/**
+ * An in-memory PagedDataSource which serves the rows of a TableModel. Useful
+ * as stand-in for a real backing store in testing and prototyping. <p>
+ *
+ * Sorts the way a default SortController does: Strings by Collator,
+ * Comparables by their natural order and all others by their toString
+ * value. Filters are evaluated against entries of the wrapped model.
+ * The order for the last query is cached. <p>
+ *
+ * Note: the wrapped model is accessed from background threads, it must not
+ * be changed while used by this data source.
+ */
+public class TableModelDataSource implements PagedDataSource {
+
+    private final TableModel model;
+
+    private List<SortKey> lastSortKeys;
+    private RowFilter<? super TableModel, ? super Integer> lastFilter;
+    private int[] lastOrder;
+
+    /**
+     * Instantiates a data source serving the rows of the given model.
+     *
+     * @param model the model to serve the rows of, must not be null.
+     */
+    public TableModelDataSource(TableModel model) {
+        this.model = Contract.asNotNull(model, "model must not be null");
+    }
+
+    /**
+     * @return the wrapped model.
+     */
+    public TableModel getModel() {
+        return model;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return model.getColumnCount();
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return model.getColumnName(column);
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return model.getColumnClass(column);
+    }
+
+    @Override
+    public int getRowCount(RowFilter<? super TableModel, ? super Integer> filter) {
+        if (filter == null) return model.getRowCount();
+        return getOrder(Collections.<SortKey>emptyList(), filter).length;
+    }
+
+    @Override
+    public Object[][] getRows(int first, int count, List<? extends SortKey> sortKeys,
+            RowFilter<? super TableModel, ? super Integer> filter) {
+        int[] order = getOrder(sortKeys, filter);
+        int last = Math.min(first + count, order.length);
+        if (last <= first) return new Object[0][];
+        Object[][] rows = new Object[last - first][model.getColumnCount()];
+        for (int i = first; i < last; i++) {
+            for (int column = 0; column < rows[i - first].length; column++) {
+                rows[i - first][column] = model.getValueAt(order[i], column);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Returns the model rows passing the filter, in sorted order.
+     */
+    private synchronized int[] getOrder(List<? extends SortKey> sortKeys,
+            RowFilter<? super TableModel, ? super Integer> filter) {
+        List<SortKey> keys = new ArrayList<SortKey>(sortKeys);
+        if (lastOrder != null && keys.equals(lastSortKeys) && filter == lastFilter) {
+            return lastOrder;
+        }
+        int[] included = filter(filter);
+        if (!isUnsorted(keys)) {
+            Integer[] rows = new Integer[included.length];
+            for (int i = 0; i < rows.length; i++) {
+                rows[i] = included[i];
+            }
+            Arrays.sort(rows, new RowComparator(keys));
+            for (int i = 0; i < rows.length; i++) {
+                included[i] = rows[i];
+            }
+        }
+        lastSortKeys = keys;
+        lastFilter = filter;
+        lastOrder = included;
+        return included;
+    }
+
+    private int[] filter(RowFilter<? super TableModel, ? super Integer> filter) {
+        int rowCount = model.getRowCount();
+        int[] rows = new int[rowCount];
+        int count = 0;
+        ModelEntry entry = new ModelEntry();
+        for (int row = 0; row < rowCount; row++) {
+            entry.row = row;
+            if (filter == null || filter.include(entry)) {
+                rows[count++] = row;
+            }
+        }
+        return count == rowCount ? rows : Arrays.copyOf(rows, count);
+    }
+
+    private boolean isUnsorted(List<SortKey> keys) {
+        return keys.isEmpty() || keys.get(0).getSortOrder() == SortOrder.UNSORTED;
+    }
+
+    /**
+     * Compares model rows by the sort keys, same as a DefaultRowSorter.
+     */
+    private class RowComparator implements Comparator<Integer> {
+
+        private final List<SortKey> keys;
+        private final Collator collator = Collator.getInstance();
+
+        public RowComparator(List<SortKey> keys) {
+            this.keys = keys;
+        }
+
+        @Override
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        public int compare(Integer row1, Integer row2) {
+            for (SortKey key : keys) {
+                if (key.getSortOrder() == SortOrder.UNSORTED) continue;
+                int column = key.getColumn();
+                Object o1 = model.getValueAt(row1, column);
+                Object o2 = model.getValueAt(row2, column);
+                int result;
+                if (o1 == null) {
+                    result = o2 == null ? 0 : -1;
+                } else if (o2 == null) {
+                    result = 1;
+                } else if (o1 instanceof String && o2 instanceof String) {
+                    result = collator.compare(o1, o2);
+                } else if (o1 instanceof Comparable
+                        && Comparable.class.isAssignableFrom(model.getColumnClass(column))) {
+                    result = ((Comparable) o1).compareTo(o2);
+                } else {
+                    result = collator.compare(o1.toString(), o2.toString());
+                }
+                if (key.getSortOrder() == SortOrder.DESCENDING) {
+                    result = -result;
+                }
+                if (result != 0) return result;
+            }
+            return row1 - row2;
+        }
+    }
+
+    /**
+     * Entry of the wrapped model, re-used for all rows.
+     */
+    private class ModelEntry extends RowFilter.Entry<TableModel, Integer> {
+        int row;
+
+        @Override
+        public TableModel getModel() {
+            return model;
+        }
+
+        @Override
+        public int getValueCount() {
+            return model.getColumnCount();
+        }
+
+        @Override
+        public Object getValue(int index) {
+            return model.getValueAt(row, index);
+        }
+
+        @Override
+        public Integer getIdentifier() {
+            return row;
+        }
+    }
+}